@@ -0,0 +1,54 @@
+package com.iksgmbh.actuator.health.procstat.benchmark;
+
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * benchmark of adding errors to a full error list.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AddErrorBenchmark {
+
+    @Param({"10", "1000"})
+    private int errorListMaxSize;
+
+    private HealthProcessStatisticData healthProcessStatisticData;
+
+
+    @Setup
+    public void setup() {
+        healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setErrorListMaxSize(errorListMaxSize);
+        for (int i = 0; i < errorListMaxSize; i++) {
+            healthProcessStatisticData.addError("myFunction", "ERR-001", "Function failed.");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        healthProcessStatisticData.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void addError_1Thread() {
+        healthProcessStatisticData.addError("myFunction", "ERR-001", "Function failed.");
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void addError_maxThreads() {
+        healthProcessStatisticData.addError("myFunction", "ERR-001", "Function failed.");
+    }
+}
@@ -0,0 +1,60 @@
+package com.iksgmbh.actuator.health.procstat.benchmark;
+
+import com.iksgmbh.actuator.health.procstat.healthindicator.HealthProcessStatisticStatusDecider;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticDataKey;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * benchmark of health status decision with and without details.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckHealthBenchmark {
+
+    @Param({"10", "100"})
+    private int keyCount;
+
+    private HealthProcessStatisticData healthProcessStatisticData;
+
+    private HealthProcessStatisticStatusDecider healthProcessStatisticStatusDecider;
+
+
+    @Setup
+    public void setup() {
+        healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticStatusDecider = new HealthProcessStatisticStatusDecider(healthProcessStatisticData);
+        for (int i = 0; i < keyCount; i++) {
+            healthProcessStatisticData.incrementCounter("myFunction" + i + "Request");
+        }
+        healthProcessStatisticData.addError("myFunction", "ERR-001", "Function failed.");
+        healthProcessStatisticData.incrementCounter(HealthProcessStatisticDataKey.request);
+    }
+
+    @TearDown
+    public void tearDown() {
+        healthProcessStatisticData.close();
+    }
+
+    @Benchmark
+    public Health checkHealth() {
+        return healthProcessStatisticStatusDecider.checkHealth();
+    }
+
+    @Benchmark
+    public Status checkStatus() {
+        return healthProcessStatisticStatusDecider.checkStatus();
+    }
+}
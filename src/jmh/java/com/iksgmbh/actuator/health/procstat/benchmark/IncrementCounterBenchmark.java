@@ -0,0 +1,101 @@
+package com.iksgmbh.actuator.health.procstat.benchmark;
+
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticCounter;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticDataKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * benchmark of incrementing counters with few and many keys, single and all threads.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IncrementCounterBenchmark {
+
+    @Param({"1", "1000"})
+    private int keyCount;
+
+    private HealthProcessStatisticData healthProcessStatisticData;
+
+    private String[] keys;
+
+    private HealthProcessStatisticCounter[] counters;
+
+
+    @Setup
+    public void setup() {
+        healthProcessStatisticData = new HealthProcessStatisticData();
+        keys = new String[keyCount];
+        counters = new HealthProcessStatisticCounter[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "myFunction" + i + "Request";
+            counters[i] = healthProcessStatisticData.counter(keys[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        healthProcessStatisticData.close();
+    }
+
+    /**
+     * Round robin index over keys, one per thread.
+     */
+    @State(Scope.Thread)
+    public static class KeyIndex {
+
+        private int index;
+
+        int next(final int keyCount) {
+            int current = index;
+            index = (current + 1 == keyCount ? 0 : current + 1);
+            return current;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void incrementCounterString_1Thread(final KeyIndex keyIndex) {
+        healthProcessStatisticData.incrementCounter(keys[keyIndex.next(keyCount)]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void incrementCounterString_maxThreads(final KeyIndex keyIndex) {
+        healthProcessStatisticData.incrementCounter(keys[keyIndex.next(keyCount)]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void incrementCounterEnum_1Thread() {
+        healthProcessStatisticData.incrementCounter(HealthProcessStatisticDataKey.request);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void incrementCounterEnum_maxThreads() {
+        healthProcessStatisticData.incrementCounter(HealthProcessStatisticDataKey.request);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void counterHandle_1Thread(final KeyIndex keyIndex) {
+        counters[keyIndex.next(keyCount)].increment();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void counterHandle_maxThreads(final KeyIndex keyIndex) {
+        counters[keyIndex.next(keyCount)].increment();
+    }
+}
@@ -0,0 +1,50 @@
+package com.iksgmbh.actuator.health.procstat.benchmark;
+
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * benchmark of building the details map with 10, 100 and 1000 keys.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatisticDataMapBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int keyCount;
+
+    private HealthProcessStatisticData healthProcessStatisticData;
+
+
+    @Setup
+    public void setup() {
+        healthProcessStatisticData = new HealthProcessStatisticData();
+        for (int i = 0; i < keyCount; i++) {
+            healthProcessStatisticData.incrementCounter("myFunction" + i + "Request");
+        }
+        for (int i = 0; i < healthProcessStatisticData.getErrorListMaxSize(); i++) {
+            healthProcessStatisticData.addError("myFunction", "ERR-001", "Function failed.");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        healthProcessStatisticData.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> getHealthProcessStatisticDataMap() {
+        return healthProcessStatisticData.getHealthProcessStatisticDataMap();
+    }
+}
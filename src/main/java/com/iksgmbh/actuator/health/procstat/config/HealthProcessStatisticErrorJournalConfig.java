@@ -0,0 +1,40 @@
+package com.iksgmbh.actuator.health.procstat.config;
+
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.persistence.HealthErrorJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * configuration of error journal, only if management.health.processStatistic.errorjournal.directory is set.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+@Configuration
+@ConditionalOnProperty(name = "management.health.processStatistic.errorjournal.directory")
+public class HealthProcessStatisticErrorJournalConfig {
+
+    @Bean(destroyMethod = "close")
+    public HealthErrorJournal healthErrorJournal(
+            final HealthProcessStatisticData healthProcessStatisticData,
+            @Value("${management.health.processStatistic.errorjournal.directory}") final String directory,
+            @Value("${management.health.processStatistic.errorjournal.segment-size:10MB}") final DataSize segmentSize,
+            @Value("${management.health.processStatistic.errorjournal.segment-age:1d}") final Duration segmentAge,
+            @Value("${management.health.processStatistic.errorjournal.max-segments:10}") final int maxSegments,
+            @Value("${management.health.processStatistic.errorjournal.queue-size:10000}") final int queueSize) throws IOException {
+
+        HealthErrorJournal healthErrorJournal = new HealthErrorJournal(healthProcessStatisticData, Paths.get(directory),
+                segmentSize.toBytes(), segmentAge, maxSegments, queueSize);
+        healthErrorJournal.start();
+        return healthErrorJournal;
+    }
+}
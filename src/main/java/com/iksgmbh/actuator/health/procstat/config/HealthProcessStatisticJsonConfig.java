@@ -0,0 +1,24 @@
+package com.iksgmbh.actuator.health.procstat.config;
+
+import com.iksgmbh.actuator.health.procstat.json.HealthProcessStatisticJacksonModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * configuration of streaming health details, only if management.health.processStatistic.details.streaming=true.
+ * Spring Boot registers the module at the application's object mapper.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+@Configuration
+@ConditionalOnProperty(name = "management.health.processStatistic.details.streaming", havingValue = "true")
+public class HealthProcessStatisticJsonConfig {
+
+    @Bean
+    public HealthProcessStatisticJacksonModule healthProcessStatisticJacksonModule() {
+        return new HealthProcessStatisticJacksonModule();
+    }
+}
@@ -0,0 +1,28 @@
+package com.iksgmbh.actuator.health.procstat.config;
+
+import com.iksgmbh.actuator.health.procstat.metrics.HealthProcessStatisticMeterBinder;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * configuration of Micrometer binder, only if Micrometer is present and
+ * management.health.processStatistic.metrics.enabled=true.
+ * Spring Boot binds the binder to the application's meter registries.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+@Configuration
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+@ConditionalOnProperty(name = "management.health.processStatistic.metrics.enabled", havingValue = "true")
+public class HealthProcessStatisticMetricsConfig {
+
+    @Bean
+    public HealthProcessStatisticMeterBinder healthProcessStatisticMeterBinder(final HealthProcessStatisticData healthProcessStatisticData) {
+        return new HealthProcessStatisticMeterBinder(healthProcessStatisticData);
+    }
+}
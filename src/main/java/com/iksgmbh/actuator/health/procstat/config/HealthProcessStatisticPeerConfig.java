@@ -0,0 +1,33 @@
+package com.iksgmbh.actuator.health.procstat.config;
+
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.peer.HealthProcessStatisticPeerAggregator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * configuration of aggregation over several service instances, only if management.health.processStatistic.peers.urls is set.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+@Configuration
+@ConditionalOnProperty(name = "management.health.processStatistic.peers.urls")
+public class HealthProcessStatisticPeerConfig {
+
+    @Bean(destroyMethod = "close")
+    public HealthProcessStatisticPeerAggregator healthProcessStatisticPeerAggregator(
+            final HealthProcessStatisticData healthProcessStatisticData,
+            @Value("${management.health.processStatistic.peers.urls}") final List<String> peerUrls,
+            @Value("${management.health.processStatistic.peers.timeout:2s}") final Duration timeout,
+            @Value("${management.health.processStatistic.peers.cache-duration:10s}") final Duration cacheDuration) {
+
+        return new HealthProcessStatisticPeerAggregator(healthProcessStatisticData, peerUrls, timeout, cacheDuration);
+    }
+}
@@ -0,0 +1,43 @@
+package com.iksgmbh.actuator.health.procstat.config;
+
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.persistence.HealthProcessStatisticMappedFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * configuration of persistent counters, only if management.health.processStatistic.persistence.file is set.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+@Configuration
+@ConditionalOnProperty(name = "management.health.processStatistic.persistence.file")
+public class HealthProcessStatisticPersistenceConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthProcessStatisticPersistenceConfig.class);
+
+    @Bean(destroyMethod = "close")
+    public HealthProcessStatisticMappedFile healthProcessStatisticMappedFile(
+            final HealthProcessStatisticData healthProcessStatisticData,
+            @Value("${management.health.processStatistic.persistence.file}") final String file,
+            @Value("${management.health.processStatistic.persistence.interval:1s}") final Duration interval,
+            @Value("${management.health.processStatistic.persistence.max-keys:1024}") final int maxKeys) throws IOException {
+
+        HealthProcessStatisticMappedFile mappedFile = new HealthProcessStatisticMappedFile(healthProcessStatisticData,
+                Paths.get(file), maxKeys);
+        int restored = mappedFile.restore();
+        log.info("Health process statistic data of {} keys restored from {}.", restored, file);
+        mappedFile.start(interval);
+        return mappedFile;
+    }
+}
@@ -0,0 +1,37 @@
+package com.iksgmbh.actuator.health.procstat.config;
+
+import com.iksgmbh.actuator.health.procstat.healthindicator.HealthProcessStatisticStatusDecider;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.stream.HealthProcessStatisticEventStream;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * configuration of Server-Sent Events stream, only if management.health.processStatistic.stream.enabled is true.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+@Configuration
+@ConditionalOnProperty(name = "management.health.processStatistic.stream.enabled", havingValue = "true")
+public class HealthProcessStatisticStreamConfig {
+
+    @Bean(destroyMethod = "close")
+    public HealthProcessStatisticEventStream healthProcessStatisticEventStream(
+            final HealthProcessStatisticData healthProcessStatisticData,
+            final ObjectProvider<HealthProcessStatisticStatusDecider> healthProcessStatisticStatusDecider,
+            @Value("${management.health.processStatistic.stream.interval:1s}") final Duration interval,
+            @Value("${management.health.processStatistic.stream.timeout:30m}") final Duration timeout,
+            @Value("${management.health.processStatistic.stream.max-subscribers:100}") final int subscriberMaxSize) {
+
+        HealthProcessStatisticStatusDecider statusDecider = healthProcessStatisticStatusDecider.getIfAvailable();
+        return new HealthProcessStatisticEventStream(healthProcessStatisticData,
+                (statusDecider != null ? statusDecider::checkStatus : null), interval, timeout, subscriberMaxSize);
+    }
+}
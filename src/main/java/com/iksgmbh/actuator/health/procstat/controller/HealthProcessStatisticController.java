@@ -1,14 +1,24 @@
 package com.iksgmbh.actuator.health.procstat.controller;
 
+import com.iksgmbh.actuator.health.procstat.metrics.HealthProcessStatisticExpositionWriter;
 import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticMergeableSnapshot;
+import com.iksgmbh.actuator.health.procstat.persistence.HealthProcessStatisticSnapshotCodec;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+
 /**
  * Health process statistic endpoint for in memory process statistic data -
  * REST controller.
@@ -21,6 +31,8 @@ public class HealthProcessStatisticController {
 
     final private HealthProcessStatisticData healthProcessStatisticData;
 
+    final private HealthProcessStatisticExpositionWriter healthProcessStatisticExpositionWriter;
+
     /**
      * Constructor.
      *
@@ -29,6 +41,7 @@ public class HealthProcessStatisticController {
     @Autowired
     public HealthProcessStatisticController(final HealthProcessStatisticData healthProcessStatisticData) {
         this.healthProcessStatisticData = healthProcessStatisticData;
+        this.healthProcessStatisticExpositionWriter = new HealthProcessStatisticExpositionWriter(healthProcessStatisticData);
     }
 
 
@@ -37,7 +50,7 @@ public class HealthProcessStatisticController {
     public ResponseEntity<?> healthProcessStatisticGet(@PathVariable String key) {
 
         if (StringUtils.hasText(key)) {
-            Object value = healthProcessStatisticData.getHealthProcessStatisticDataMap().get(key);
+            Object value = healthProcessStatisticData.getHealthProcessStatisticDataValue(key);
             if (value != null) {
                 return ResponseEntity.ok(String.valueOf(value));
             } else {
@@ -48,6 +61,51 @@ public class HealthProcessStatisticController {
         }
     }
 
+    // keys=errorCounter,myFunctionSuccessTimestamp or prefix=myFunction
+    // @GetMapping(value = "/actuator/healthProcessStatistic/get")
+    @GetMapping(value = "${management.endpoints.web.base-path:/actuator}/healthProcessStatistic/get")
+    public ResponseEntity<?> healthProcessStatisticGetBatch(@RequestParam(required = false) List<String> keys,
+            @RequestParam(required = false) String prefix) {
+
+        if (keys != null && !keys.isEmpty()) {
+            return ResponseEntity.ok(healthProcessStatisticData.getHealthProcessStatisticDataMap(keys));
+        } else if (StringUtils.hasText(prefix)) {
+            return ResponseEntity.ok(healthProcessStatisticData.getHealthProcessStatisticDataMap(prefix));
+        } else {
+            return ResponseEntity.badRequest().body("400 - Bad request.");
+        }
+    }
+
+    // mergeable snapshot, fetched by peers to aggregate statistic data of several service instances,
+    // compact binary encoding if requested by Accept header or format=binary (download)
+    // @GetMapping(value = "/actuator/healthProcessStatistic/snapshot")
+    @GetMapping(value = "${management.endpoints.web.base-path:/actuator}/healthProcessStatistic/snapshot")
+    public ResponseEntity<?> healthProcessStatisticSnapshot(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestParam(required = false) String format) {
+
+        HealthProcessStatisticMergeableSnapshot snapshot = HealthProcessStatisticMergeableSnapshot.of(healthProcessStatisticData.getSnapshot());
+        if ("binary".equals(format)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(HealthProcessStatisticSnapshotCodec.CONTENT_TYPE))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"processStatistic.hps\"")
+                    .body(HealthProcessStatisticSnapshotCodec.encode(snapshot));
+        } else if (accept != null && accept.contains(HealthProcessStatisticSnapshotCodec.CONTENT_TYPE)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(HealthProcessStatisticSnapshotCodec.CONTENT_TYPE))
+                    .body(HealthProcessStatisticSnapshotCodec.encode(snapshot));
+        } else {
+            return ResponseEntity.ok(snapshot);
+        }
+    }
+
+    // statistic data changed since version of previous call, since=0 or missing for all statistic data
+    // @GetMapping(value = "/actuator/healthProcessStatistic/delta")
+    @GetMapping(value = "${management.endpoints.web.base-path:/actuator}/healthProcessStatistic/delta")
+    public ResponseEntity<?> healthProcessStatisticDelta(@RequestParam(required = false, defaultValue = "0") long since) {
+
+        return ResponseEntity.ok(healthProcessStatisticData.getHealthProcessStatisticDataDelta(since));
+    }
+
     // @GetMapping(value = "/actuator/healthProcessStatistic/reset")
     @GetMapping(value = "${management.endpoints.web.base-path:/actuator}/healthProcessStatistic/reset")
     public ResponseEntity<?> healthProcessStatisticReset(@RequestParam(required = false) String reset) {
@@ -59,4 +117,17 @@ public class HealthProcessStatisticController {
             return ResponseEntity.badRequest().body("400 - Bad request.");
         }
     }
+
+    // Prometheus text format, OpenMetrics if requested by Accept header
+    // @GetMapping(value = "/actuator/healthProcessStatistic/metrics")
+    @GetMapping(value = "${management.endpoints.web.base-path:/actuator}/healthProcessStatistic/metrics")
+    public void healthProcessStatisticMetrics(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletResponse response) throws IOException {
+
+        boolean openMetrics = (accept != null && accept.contains("application/openmetrics-text"));
+        response.setContentType(openMetrics
+                ? HealthProcessStatisticExpositionWriter.CONTENT_TYPE_OPENMETRICS
+                : HealthProcessStatisticExpositionWriter.CONTENT_TYPE_PROMETHEUS);
+        healthProcessStatisticExpositionWriter.write(response.getOutputStream(), openMetrics);
+    }
 }
@@ -0,0 +1,52 @@
+package com.iksgmbh.actuator.health.procstat.controller;
+
+import com.iksgmbh.actuator.health.procstat.persistence.HealthErrorJournal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * REST controller of error journal.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+@RestController
+@ConditionalOnProperty(name = "management.health.processStatistic.errorjournal.directory")
+public class HealthProcessStatisticErrorJournalController {
+
+    // Constants
+    private final static int PAGE_MAX_SIZE = 1000;
+
+    final private HealthErrorJournal healthErrorJournal;
+
+    /**
+     * Constructor.
+     *
+     * @param healthErrorJournal  Error journal
+     */
+    @Autowired
+    public HealthProcessStatisticErrorJournalController(final HealthErrorJournal healthErrorJournal) {
+        this.healthErrorJournal = healthErrorJournal;
+    }
+
+
+    // newest error events first
+    // @GetMapping(value = "/actuator/healthProcessStatistic/errors")
+    @GetMapping(value = "${management.endpoints.web.base-path:/actuator}/healthProcessStatistic/errors")
+    public ResponseEntity<?> healthProcessStatisticErrors(@RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) throws IOException {
+
+        if (page >= 0 && size > 0 && size <= PAGE_MAX_SIZE) {
+            return ResponseEntity.ok(healthErrorJournal.readPage(page, size));
+        } else {
+            return ResponseEntity.badRequest().body("400 - Bad request.");
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.iksgmbh.actuator.health.procstat.controller;
+
+import com.iksgmbh.actuator.health.procstat.peer.HealthProcessStatisticPeerAggregator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * REST controller of statistic data merged over several service instances.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+@RestController
+@ConditionalOnProperty(name = "management.health.processStatistic.peers.urls")
+public class HealthProcessStatisticPeerController {
+
+    final private HealthProcessStatisticPeerAggregator healthProcessStatisticPeerAggregator;
+
+    /**
+     * Constructor.
+     *
+     * @param healthProcessStatisticPeerAggregator  Aggregator of statistic data of peers
+     */
+    @Autowired
+    public HealthProcessStatisticPeerController(final HealthProcessStatisticPeerAggregator healthProcessStatisticPeerAggregator) {
+        this.healthProcessStatisticPeerAggregator = healthProcessStatisticPeerAggregator;
+    }
+
+
+    // statistic data of this service instance and all peers
+    // @GetMapping(value = "/actuator/healthProcessStatistic/aggregate")
+    @GetMapping(value = "${management.endpoints.web.base-path:/actuator}/healthProcessStatistic/aggregate")
+    public ResponseEntity<?> healthProcessStatisticAggregate() {
+        return ResponseEntity.ok(healthProcessStatisticPeerAggregator.getHealthProcessStatisticDataMap());
+    }
+}
@@ -0,0 +1,50 @@
+package com.iksgmbh.actuator.health.procstat.controller;
+
+import com.iksgmbh.actuator.health.procstat.stream.HealthProcessStatisticEventStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * REST controller of Server-Sent Events stream of statistic updates.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+@RestController
+@ConditionalOnProperty(name = "management.health.processStatistic.stream.enabled", havingValue = "true")
+public class HealthProcessStatisticStreamController {
+
+    final private HealthProcessStatisticEventStream healthProcessStatisticEventStream;
+
+    /**
+     * Constructor.
+     *
+     * @param healthProcessStatisticEventStream  Shared producer of statistic updates
+     */
+    @Autowired
+    public HealthProcessStatisticStreamController(final HealthProcessStatisticEventStream healthProcessStatisticEventStream) {
+        this.healthProcessStatisticEventStream = healthProcessStatisticEventStream;
+    }
+
+
+    // full frame first, then coalesced delta frames with changed keys, new errors and status transitions
+    // @GetMapping(value = "/actuator/healthProcessStatistic/stream")
+    @GetMapping(value = "${management.endpoints.web.base-path:/actuator}/healthProcessStatistic/stream",
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> healthProcessStatisticStream() {
+
+        SseEmitter emitter = healthProcessStatisticEventStream.subscribe();
+        if (emitter != null) {
+            return ResponseEntity.ok(emitter);
+        } else {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();  // max number of subscribers reached
+        }
+    }
+}
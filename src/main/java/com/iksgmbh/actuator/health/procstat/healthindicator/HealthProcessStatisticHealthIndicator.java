@@ -1,25 +1,69 @@
 package com.iksgmbh.actuator.health.procstat.healthindicator;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.autoconfigure.health.ConditionalOnEnabledHealthIndicator;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * Health process statistic endpoint for in memory process statistic data -
  * health indicator.
  * URL: http://host:port/app/actuator/health/processStatistic
+ * <p>
+ * Optionally the health result is cached, so frequent probes do not rebuild it every time:
+ * until the TTL expires and/or as long as the statistic data did not change.
+ * If the result depends on the current time (see {@link HealthProcessStatisticStatusDecider#isTimeDependent()}),
+ * a result cached on change is only reused within the same second of the statistic data clock.
+ * With background refresh a stale result is returned while a new one is built asynchronously.
+ * <p>
+ * With lazy details the details map is only built if the actuator shows details,
+ * otherwise only {@link HealthProcessStatisticStatusDecider#checkStatus()} is evaluated.
  *
  * @author H. Jägle / IKS GmbH
  * @version 1.6 2023-10-02
  */
 @Component("processStatistic")
 @ConditionalOnEnabledHealthIndicator("processStatistic")
-public class HealthProcessStatisticHealthIndicator implements HealthIndicator {
+public class HealthProcessStatisticHealthIndicator implements HealthIndicator, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthProcessStatisticHealthIndicator.class);
+
+    // Constants
+    private final static long NOT_TIME_DEPENDENT = Long.MIN_VALUE;
 
     private HealthProcessStatisticStatusDecider healthProcessStatisticStatusDecider;
 
+    /** Max age of cached health result, zero if not limited by time. */
+    private Duration cacheTtl = Duration.ZERO;
+
+    /** Reuse cached health result as long as statistic data did not change. */
+    private boolean cacheOnChange = false;
+
+    /** Return stale health result and rebuild it in background. */
+    private boolean cacheBackgroundRefresh = false;
+
+    /** Build details only if actuator shows them. */
+    private boolean detailsLazy = false;
+
+    /** Cached health result, null if not built yet. */
+    private volatile CachedHealth cachedHealth;
+
+    /** Background refresh is running. */
+    private final AtomicBoolean refreshRunning = new AtomicBoolean();
+
+    /** Executor of background refresh, created on first use. */
+    private ExecutorService refreshExecutor;
+
 
     /**
      * Constructor.
@@ -37,6 +81,194 @@ public class HealthProcessStatisticHealthIndicator implements HealthIndicator {
      * @return Health status object
      */
     public Health health() {
-        return healthProcessStatisticStatusDecider.checkHealth();
+        if (!isCacheEnabled()) {
+            return healthProcessStatisticStatusDecider.checkHealth();
+        }
+
+        CachedHealth cached = cachedHealth;
+        if (cached != null && isValid(cached)) {
+            return cached.health;
+        }
+
+        if (cached != null && cacheBackgroundRefresh) {
+            refreshInBackground();
+            return cached.health;
+        }
+
+        return refresh().health;
+    }
+
+    /**
+     * Determine current application health status, with details only if requested.
+     * If details are not requested and lazy details are enabled, only the status is determined.
+     *
+     * @param includeDetails Details are shown
+     * @return Health status object
+     */
+    @Override
+    public Health getHealth(final boolean includeDetails) {
+        if (!includeDetails && detailsLazy) {
+            return Health.status(healthProcessStatisticStatusDecider.checkStatus()).build();
+        }
+
+        Health health = health();
+        return (includeDetails ? health : Health.status(health.getStatus()).build());
+    }
+
+    /**
+     * Build health result and store it in cache.
+     *
+     * @return Cached health result
+     */
+    private CachedHealth refresh() {
+        // read modification count before building, so changes while building invalidate the result
+        long modificationCount = getModificationCount();
+        long creationTime = System.nanoTime();
+        long creationSecond = (healthProcessStatisticStatusDecider.isTimeDependent() ? getCurrentSecond() : NOT_TIME_DEPENDENT);
+        CachedHealth cached = new CachedHealth(healthProcessStatisticStatusDecider.checkHealth(),
+                modificationCount, creationTime, creationSecond);
+        cachedHealth = cached;
+        return cached;
+    }
+
+    /**
+     * Start background refresh of health result if not already running.
+     */
+    private void refreshInBackground() {
+        if (!refreshRunning.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            getRefreshExecutor().execute(() -> {
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    log.warn("Background refresh of health process statistic failed.", e);
+                } finally {
+                    refreshRunning.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshRunning.set(false);
+            throw e;
+        }
+    }
+
+    private synchronized ExecutorService getRefreshExecutor() {
+        if (refreshExecutor == null) {
+            refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "health-process-statistic-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return refreshExecutor;
+    }
+
+    /**
+     * Check cached health result can be reused.
+     *
+     * @param cached Cached health result
+     * @return true if neither TTL expired nor statistic data changed, as far as configured
+     */
+    private boolean isValid(final CachedHealth cached) {
+        if (!cacheTtl.isZero() && System.nanoTime() - cached.creationTime >= cacheTtl.toNanos()) {
+            return false;
+        }
+        if (!cacheOnChange) {
+            return true;
+        }
+        // time dependent result, e.g. of stale rules, may change without any change of the statistic data
+        return cached.modificationCount == getModificationCount()
+                && (cached.creationSecond == NOT_TIME_DEPENDENT || cached.creationSecond == getCurrentSecond());
+    }
+
+    private long getModificationCount() {
+        return healthProcessStatisticStatusDecider.getHealthProcessStatisticData().getModificationCount();
+    }
+
+    private long getCurrentSecond() {
+        return healthProcessStatisticStatusDecider.getHealthProcessStatisticData().getClock().millis() / 1000L;
+    }
+
+    private boolean isCacheEnabled() {
+        return cacheOnChange || !cacheTtl.isZero();
+    }
+
+    /**
+     * Discard cached health result.
+     */
+    public void invalidateCache() {
+        cachedHealth = null;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+            refreshExecutor = null;
+        }
+    }
+
+    // Getter + setter
+
+    public Duration getCacheTtl() {
+        return cacheTtl;
+    }
+
+    @Value("${management.health.processStatistic.cache.ttl:0}")
+    public void setCacheTtl(final Duration cacheTtl) {
+        this.cacheTtl = cacheTtl;
+        invalidateCache();
+    }
+
+    public boolean isCacheOnChange() {
+        return cacheOnChange;
+    }
+
+    @Value("${management.health.processStatistic.cache.on-change:false}")
+    public void setCacheOnChange(final boolean cacheOnChange) {
+        this.cacheOnChange = cacheOnChange;
+        invalidateCache();
+    }
+
+    public boolean isCacheBackgroundRefresh() {
+        return cacheBackgroundRefresh;
+    }
+
+    @Value("${management.health.processStatistic.cache.background-refresh:false}")
+    public void setCacheBackgroundRefresh(final boolean cacheBackgroundRefresh) {
+        this.cacheBackgroundRefresh = cacheBackgroundRefresh;
+    }
+
+    public boolean isDetailsLazy() {
+        return detailsLazy;
+    }
+
+    @Value("${management.health.processStatistic.details.lazy:false}")
+    public void setDetailsLazy(final boolean detailsLazy) {
+        this.detailsLazy = detailsLazy;
+    }
+
+    /**
+     * Cached health result with modification count of statistic data and creation time.
+     */
+    private static class CachedHealth {
+
+        private final Health health;
+        private final long modificationCount;
+        private final long creationTime;
+
+        /** Second of statistic data clock at creation, NOT_TIME_DEPENDENT if the result does not depend on time. */
+        private final long creationSecond;
+
+        private CachedHealth(final Health health, final long modificationCount, final long creationTime,
+                final long creationSecond) {
+            this.health = health;
+            this.modificationCount = modificationCount;
+            this.creationTime = creationTime;
+            this.creationSecond = creationSecond;
+        }
     }
 }
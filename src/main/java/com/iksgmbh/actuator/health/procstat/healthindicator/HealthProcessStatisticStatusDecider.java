@@ -1,28 +1,62 @@
 package com.iksgmbh.actuator.health.procstat.healthindicator;
 
+import com.iksgmbh.actuator.health.procstat.json.HealthProcessStatisticDetails;
 import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticDataEntry;
 import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticDataKey;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticSnapshot;
+import com.iksgmbh.actuator.health.procstat.rule.HealthProcessStatisticRule;
+import com.iksgmbh.actuator.health.procstat.rule.HealthProcessStatisticRulePlan;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
-import java.time.OffsetDateTime;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Health process statistic endpoint for in memory process statistic data -
  * health status decider for {@link HealthProcessStatisticHealthIndicator}
+ * <p>
+ * If health rules are configured by management.health.processStatistic.rules[n].*, the status is determined
+ * by the compiled {@link HealthProcessStatisticRulePlan} instead of the default implementation.
+ * <p>
+ * {@link #checkHealth()} determines status and details from one {@link HealthProcessStatisticSnapshot}:
+ * while {@link #checkStatus()} runs, the check methods like {@link #isCounterGreaterZero(String)}
+ * read the snapshot instead of the live statistic data, so status and details never contradict each other.
  *
  * @author H. Jägle / IKS GmbH
  * @version 1.6 2023-10-02
  */
 @Component
-public class HealthProcessStatisticStatusDecider {
+public class HealthProcessStatisticStatusDecider implements EnvironmentAware {
 
     // Constants
     public final static String HEALTH_STATUS_CODE_WARNING = "WARNING";
+    public final static Status HEALTH_STATUS_WARNING = new Status(HEALTH_STATUS_CODE_WARNING);
+    public final static String HEALTH_RULES_PROPERTY = "management.health.process-statistic.rules";
 
     protected HealthProcessStatisticData healthProcessStatisticData;
 
+    /** Write details directly with the JSON generator instead of building the details map. */
+    private boolean detailsStreaming = false;
+
+    /** Compiled health rules, null if no rules are configured. */
+    private volatile HealthProcessStatisticRulePlan rulePlan;
+
+    /** Pre-encoded attribute names of streaming details. */
+    private final HealthProcessStatisticDetails.NameCache detailsNameCache = new HealthProcessStatisticDetails.NameCache();
+
+    /** Snapshot of current health check of thread, null outside of {@link #checkHealth()}. */
+    private final ThreadLocal<HealthProcessStatisticSnapshot> currentSnapshot = new ThreadLocal<>();
+
 
     /**
      * Constructor.
@@ -39,9 +73,61 @@ public class HealthProcessStatisticStatusDecider {
      * UP, DOWN, OUT_OF_SERVICE, UNKNOWN, ERROR, WARNING, etc.
      * @see org.springframework.boot.actuate.health.Health
      *
+     * Status and details are determined from the same snapshot of the statistic data.
+     *
      * @return Health status object
      */
     public Health checkHealth() {
+        HealthProcessStatisticSnapshot snapshot = healthProcessStatisticData.getSnapshot();
+        Status status = checkStatus(snapshot);
+        if (detailsStreaming) {
+            return Health.status(status)
+                    .withDetail(HealthProcessStatisticDetails.DETAILS_KEY,
+                            new HealthProcessStatisticDetails(snapshot, detailsNameCache))
+                    .build();
+        }
+        return Health.status(status)
+                .withDetails(snapshot.getHealthProcessStatisticDataMap())
+                .build();
+    }
+
+    /**
+     * Determine health status from snapshot: runs {@link #checkStatus()} with the check methods reading the snapshot.
+     *
+     * @param snapshot Snapshot of statistic data
+     * @return Health status
+     */
+    public Status checkStatus(final HealthProcessStatisticSnapshot snapshot) {
+        HealthProcessStatisticSnapshot previous = currentSnapshot.get();
+        currentSnapshot.set(snapshot);
+        try {
+            return checkStatus();
+        } finally {
+            if (previous != null) {
+                currentSnapshot.set(previous);
+            } else {
+                currentSnapshot.remove();
+            }
+        }
+    }
+
+    /**
+     * Implementation to determine current application health status only, without building
+     * the details map. Reads only counters and timestamps of the statistic data.
+     * Used by {@link HealthProcessStatisticHealthIndicator} if details are not shown and
+     * lazy details are enabled, so a custom implementation should override this method.
+     *
+     * @return Health status
+     */
+    public Status checkStatus() {
+
+        // Configured health rules
+        HealthProcessStatisticRulePlan plan = rulePlan;
+        if (plan != null) {
+            HealthProcessStatisticSnapshot snapshot = getSnapshot();
+            Status status = (snapshot != null ? plan.evaluate(snapshot) : plan.evaluate(healthProcessStatisticData));
+            return (status != null ? status : Status.UP);
+        }
 
         // DOWN - Error occurred after last request
         if (isErrorTimestampGreaterSuccessTimestamp(HealthProcessStatisticDataKey.error,
@@ -50,22 +136,81 @@ public class HealthProcessStatisticStatusDecider {
         //                                                HealthProcessStatisticDataKey.request1)
         //     || isErrorTimestampGreaterSuccessTimestamp(HealthProcessStatisticDataKey.error2,
         //                                                HealthProcessStatisticDataKey.request2)) {
-            return Health.down()
-                    .withDetails(healthProcessStatisticData.getHealthProcessStatisticDataMap())
-                    .build();
+            return Status.DOWN;
         }
 
         // WARNING - Errors occurred in the past
         if (isCounterGreaterZero(HealthProcessStatisticDataKey.error)) {
-           return Health.status(HEALTH_STATUS_CODE_WARNING)
-                    .withDetails(healthProcessStatisticData.getHealthProcessStatisticDataMap())
-                    .build();
+            return HEALTH_STATUS_WARNING;
         }
 
         // UP - Everything ok
-        return Health.up()
-                .withDetails(healthProcessStatisticData.getHealthProcessStatisticDataMap())
-                .build();
+        return Status.UP;
+    }
+
+    public HealthProcessStatisticData getHealthProcessStatisticData() {
+        return healthProcessStatisticData;
+    }
+
+    /**
+     * Check whether the health result may change without any change of the statistic data, e.g. by stale rules
+     * or by the rates shown in the details if sliding windows are configured.
+     * Then a result cached as long as the statistic data did not change is only reused within the same second.
+     * Custom implementations of {@link #checkStatus()} depending on the current time should return true.
+     *
+     * @return true if the health result depends on the current time
+     */
+    public boolean isTimeDependent() {
+        HealthProcessStatisticRulePlan plan = rulePlan;
+        return (plan != null && plan.isTimeDependent()) || !healthProcessStatisticData.getRateWindows().isEmpty();
+    }
+
+    /**
+     * Returns snapshot of the current health check, e.g. for custom checks in {@link #checkStatus()}.
+     *
+     * @return Snapshot, null if {@link #checkStatus()} is called without snapshot (lazy details)
+     */
+    protected HealthProcessStatisticSnapshot getSnapshot() {
+        return currentSnapshot.get();
+    }
+
+    /**
+     * Bind health rules of management.health.processStatistic.rules[n].* and compile them.
+     *
+     * @param environment Environment of application
+     */
+    @Override
+    public void setEnvironment(final Environment environment) {
+        setRules(Binder.get(environment)
+                .bind(HEALTH_RULES_PROPERTY, Bindable.listOf(HealthProcessStatisticRule.class))
+                .orElse(Collections.emptyList()));
+    }
+
+    /**
+     * Compile health rules. Rate rules require the sliding windows of the statistic data to be set before.
+     *
+     * @param rules Health rules, empty list for the default implementation
+     * @throws IllegalArgumentException Rule is incomplete or invalid
+     */
+    public void setRules(final List<HealthProcessStatisticRule> rules) {
+        if (rules.isEmpty()) {
+            rulePlan = null;
+        } else {
+            rulePlan = HealthProcessStatisticRulePlan.compile(rules, healthProcessStatisticData.getRateWindows());
+        }
+    }
+
+    public HealthProcessStatisticRulePlan getRulePlan() {
+        return rulePlan;
+    }
+
+    public boolean isDetailsStreaming() {
+        return detailsStreaming;
+    }
+
+    @Value("${management.health.processStatistic.details.streaming:false}")
+    public void setDetailsStreaming(final boolean detailsStreaming) {
+        this.detailsStreaming = detailsStreaming;
     }
 
     /**
@@ -85,8 +230,41 @@ public class HealthProcessStatisticStatusDecider {
      * @return true if counter is not null and greater than zero, otherwise false
      */
     protected boolean isCounterGreaterZero(final String statisticDataKey) {
-        Long sdcs = healthProcessStatisticData.getStatisticDataCounter(statisticDataKey);
-        return (sdcs != null && sdcs > 0L);
+        HealthProcessStatisticSnapshot snapshot = getSnapshot();
+        if (snapshot != null) {
+            return snapshot.getCounterValue(statisticDataKey) > 0L;
+        }
+        return healthProcessStatisticData.getStatisticDataCounterValue(statisticDataKey) > 0L;
+    }
+
+    /**
+     * Check number of events of given statistic data key within sliding window is greater than threshold.
+     * Requires the window to be configured by management.health.processStatistic.rate.windows.
+     *
+     * @param statisticDataKey Statistic data key
+     * @param window           Sliding window, e.g. Duration.ofMinutes(1)
+     * @param threshold        Threshold of number of events
+     * @return true if number of events within window is greater than threshold, otherwise false
+     */
+    protected boolean isRateGreater(final Enum<?> statisticDataKey, final Duration window, final long threshold) {
+        return isRateGreater(statisticDataKey.toString(), window, threshold);
+    }
+
+    /**
+     * Check number of events of given statistic data key within sliding window is greater than threshold.
+     * Requires the window to be configured by management.health.processStatistic.rate.windows.
+     *
+     * @param statisticDataKey Statistic data key
+     * @param window           Sliding window, e.g. Duration.ofMinutes(1)
+     * @param threshold        Threshold of number of events
+     * @return true if number of events within window is greater than threshold, otherwise false
+     */
+    protected boolean isRateGreater(final String statisticDataKey, final Duration window, final long threshold) {
+        HealthProcessStatisticSnapshot snapshot = getSnapshot();
+        if (snapshot != null && snapshot.hasRateWindow(window)) {
+            return snapshot.getRate(statisticDataKey, window) > threshold;
+        }
+        return healthProcessStatisticData.getRate(statisticDataKey, window) > threshold;
     }
 
     /**
@@ -105,7 +283,8 @@ public class HealthProcessStatisticStatusDecider {
 
     /**
      * Check last timestamp of given error statistic data key is after than or equal to
-     * corresponding last timestamp of given success statistic data key.
+     * corresponding last timestamp of given success statistic data key. Equal timestamps, e.g. within one tick
+     * of a coarse-grained clock, are ordered by the sequence of events.
      *
      * @param statisticDataKeyError Statistic data key of last error processing
      * @param statisticDataKeySuccess Statistic data key of last success processing
@@ -113,10 +292,21 @@ public class HealthProcessStatisticStatusDecider {
      */
     protected boolean isErrorTimestampGreaterSuccessTimestamp(final String statisticDataKeyError,
             final String statisticDataKeySuccess) {
-        OffsetDateTime errorTimestamp = healthProcessStatisticData.getStatisticDataTimestamp(statisticDataKeyError);
-        OffsetDateTime successTimestamp = healthProcessStatisticData.getStatisticDataTimestamp(statisticDataKeySuccess);
-        return (errorTimestamp != null &&
-                (successTimestamp == null ||
-                 !errorTimestamp.isBefore(successTimestamp)));
+        HealthProcessStatisticSnapshot snapshot = getSnapshot();
+        long errorTimestamp = (snapshot != null ? snapshot.getTimestampMillis(statisticDataKeyError)
+                : healthProcessStatisticData.getStatisticDataTimestampMillis(statisticDataKeyError));
+        long successTimestamp = (snapshot != null ? snapshot.getTimestampMillis(statisticDataKeySuccess)
+                : healthProcessStatisticData.getStatisticDataTimestampMillis(statisticDataKeySuccess));
+        if (errorTimestamp == HealthProcessStatisticDataEntry.NO_TIMESTAMP) {
+            return false;
+        }
+        if (successTimestamp == HealthProcessStatisticDataEntry.NO_TIMESTAMP) {
+            return true;
+        }
+        long errorSequence = (snapshot != null ? snapshot.getEventSequence(statisticDataKeyError)
+                : healthProcessStatisticData.getStatisticDataEventSequence(statisticDataKeyError));
+        long successSequence = (snapshot != null ? snapshot.getEventSequence(statisticDataKeySuccess)
+                : healthProcessStatisticData.getStatisticDataEventSequence(statisticDataKeySuccess));
+        return HealthProcessStatisticDataEntry.isNotBefore(errorTimestamp, errorSequence, successTimestamp, successSequence);
     }
 }
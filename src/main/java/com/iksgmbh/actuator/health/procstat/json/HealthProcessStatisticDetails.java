@@ -0,0 +1,218 @@
+package com.iksgmbh.actuator.health.procstat.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticDataEntry;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticSnapshot;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData.*;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * health details written directly with the {@link JsonGenerator}.
+ * <p>
+ * Writes the same JSON as {@link HealthProcessStatisticData#getHealthProcessStatisticDataMap()},
+ * but from a {@link HealthProcessStatisticSnapshot} without building the map and without boxing.
+ * Attribute names like "myFunctionRequestCounter" are pre-encoded once per statistic data key.
+ * <p>
+ * It is added as single detail {@link #DETAILS_KEY} to the health result,
+ * {@link HealthProcessStatisticJacksonModule} writes its attributes directly as details of the health result.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthProcessStatisticDetails implements JsonSerializable {
+
+    // Constants
+    public final static String DETAILS_KEY = "processStatistic";
+
+    private final static SerializedString SERVICE_START_TIMESTAMP = new SerializedString("serviceStartTimestamp");
+    private final static SerializedString ERROR_LIST = new SerializedString("errorList");
+    private final static SerializedString ERROR_AGGREGATE_LIST = new SerializedString("errorAggregateList");
+    private final static SerializedString ERROR_DROPPED_COUNTER = new SerializedString("errorDroppedCounter");
+    private final static SerializedString ERROR_SUPPRESSED_COUNTER = new SerializedString("errorSuppressedCounter");
+    private final static SerializedString KEY_REJECTED_COUNTER = new SerializedString("statisticDataKeyRejectedCounter");
+    private final static SerializedString KEY_EVICTED_COUNTER = new SerializedString("statisticDataKeyEvictedCounter");
+
+    private final HealthProcessStatisticSnapshot snapshot;
+
+    private final NameCache nameCache;
+
+
+    /**
+     * Constructor.
+     *
+     * @param snapshot  Snapshot of statistic data
+     * @param nameCache Cache of pre-encoded attribute names, shared by all details objects
+     */
+    public HealthProcessStatisticDetails(final HealthProcessStatisticSnapshot snapshot, final NameCache nameCache) {
+        this.snapshot = snapshot;
+        this.nameCache = nameCache;
+    }
+
+    /**
+     * Write details as JSON object.
+     *
+     * @param gen      JSON generator
+     * @param provider Serializer provider, used for date time values and error events
+     * @throws IOException Writing failed
+     */
+    @Override
+    public void serialize(final JsonGenerator gen, final SerializerProvider provider) throws IOException {
+        gen.writeStartObject(this);
+        serializeFields(gen, provider);
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(final JsonGenerator gen, final SerializerProvider provider,
+            final TypeSerializer typeSerializer) throws IOException {
+        serialize(gen, provider);
+    }
+
+    /**
+     * Write details as fields of the current JSON object, in the order of the details map.
+     *
+     * @param gen      JSON generator
+     * @param provider Serializer provider, used for date time values and error events
+     * @throws IOException Writing failed
+     */
+    public void serializeFields(final JsonGenerator gen, final SerializerProvider provider) throws IOException {
+        nameCache.validate(snapshot);
+
+        writeObjectField(gen, provider, SERVICE_START_TIMESTAMP, snapshot.getServiceStartTimestamp());
+
+        ErrorListDetails details = snapshot.getErrorListDetails();
+        if (details != ErrorListDetails.AGGREGATE) {
+            writeObjectField(gen, provider, ERROR_LIST, snapshot.getErrorList());
+        }
+        if (details != ErrorListDetails.LIST) {
+            writeObjectField(gen, provider, ERROR_AGGREGATE_LIST, snapshot.getErrorAggregateList());
+        }
+        if (snapshot.isErrorQueueEnabled()) {
+            gen.writeFieldName(ERROR_DROPPED_COUNTER);
+            gen.writeNumber(snapshot.getErrorDroppedCounter());
+        }
+        if (snapshot.getErrorSuppressedCounterMap() != null) {
+            writeObjectField(gen, provider, ERROR_SUPPRESSED_COUNTER, snapshot.getErrorSuppressedCounterMap());
+        }
+
+        int windowCount = snapshot.getRateWindowCount();
+        for (int i = 0; i < snapshot.getStatisticDataKeyCount(); i++) {
+            SerializableString[] names = nameCache.getEntryNames(snapshot.getStatisticDataKey(i), snapshot);
+            gen.writeFieldName(names[0]);
+            gen.writeNumber(snapshot.getCounter(i));
+            gen.writeFieldName(names[1]);
+            if (snapshot.getTimestampMillis(i) != HealthProcessStatisticDataEntry.NO_TIMESTAMP) {
+                provider.defaultSerializeValue(snapshot.getTimestamp(i), gen);
+            } else {
+                gen.writeNull();
+            }
+            for (int w = 0; w < windowCount; w++) {
+                gen.writeFieldName(names[2 + w]);
+                gen.writeNumber(snapshot.getRate(i, w));
+            }
+        }
+
+        if (snapshot.isKeyGuardEnabled()) {
+            gen.writeFieldName(KEY_REJECTED_COUNTER);
+            gen.writeNumber(snapshot.getKeyRejectedCounter());
+            gen.writeFieldName(KEY_EVICTED_COUNTER);
+            gen.writeNumber(snapshot.getKeyEvictedCounter());
+        }
+
+        for (int i = 0; i < snapshot.getDurationKeyCount(); i++) {
+            SerializableString[] names = nameCache.getDurationNames(snapshot.getDurationKey(i));
+            for (int v = 0; v < names.length; v++) {
+                gen.writeFieldName(names[v]);
+                gen.writeNumber(snapshot.getDuration(i, v));
+            }
+        }
+    }
+
+    /**
+     * Write field with value serialized by the object mapper. Null values are written like in the details map,
+     * whose content inclusion is not restricted by the health result.
+     */
+    private static void writeObjectField(final JsonGenerator gen, final SerializerProvider provider,
+            final SerializableString name, final Object value) throws IOException {
+        gen.writeFieldName(name);
+        provider.defaultSerializeValue(value, gen);
+    }
+
+    @Override
+    public String toString() {
+        return "HealthProcessStatisticDetails{" + snapshot.getStatisticDataKeyCount() + " keys}";
+    }
+
+    /**
+     * Cache of pre-encoded attribute names per statistic data key and duration statistic key.
+     * Cleared if the rate windows change or it grows beyond the registered keys, e.g. after eviction.
+     */
+    public static class NameCache {
+
+        private final ConcurrentHashMap<String, SerializableString[]> entryNameMap = new ConcurrentHashMap<>();
+
+        private final ConcurrentHashMap<String, SerializableString[]> durationNameMap = new ConcurrentHashMap<>();
+
+        /** Rate window sub keys of cached names. */
+        private volatile List<String> subKeys = Collections.emptyList();
+
+        private void validate(final HealthProcessStatisticSnapshot snapshot) {
+            List<String> currentSubKeys = subKeys;
+            boolean changed = currentSubKeys.size() != snapshot.getRateWindowCount();
+            for (int w = 0; !changed && w < currentSubKeys.size(); w++) {
+                changed = !currentSubKeys.get(w).equals(snapshot.getRateWindowSubKey(w));
+            }
+            if (changed) {
+                List<String> newSubKeys = new ArrayList<>(snapshot.getRateWindowCount());
+                for (int w = 0; w < snapshot.getRateWindowCount(); w++) {
+                    newSubKeys.add(snapshot.getRateWindowSubKey(w));
+                }
+                entryNameMap.clear();
+                subKeys = newSubKeys;
+            }
+            if (entryNameMap.size() > 2 * snapshot.getStatisticDataKeyCount() + 16) {
+                entryNameMap.clear();
+            }
+            if (durationNameMap.size() > 2 * snapshot.getDurationKeyCount() + 16) {
+                durationNameMap.clear();
+            }
+        }
+
+        private SerializableString[] getEntryNames(final String statisticDataKey,
+                final HealthProcessStatisticSnapshot snapshot) {
+            int windowCount = snapshot.getRateWindowCount();
+            SerializableString[] names = entryNameMap.get(statisticDataKey);
+            if (names == null || names.length != 2 + windowCount) {
+                names = new SerializableString[2 + windowCount];
+                names[0] = new SerializedString(statisticDataKey + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_COUNTER);
+                names[1] = new SerializedString(statisticDataKey + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_TIMESTAMP);
+                for (int w = 0; w < windowCount; w++) {
+                    names[2 + w] = new SerializedString(statisticDataKey + snapshot.getRateWindowSubKey(w));
+                }
+                entryNameMap.put(statisticDataKey, names);
+            }
+            return names;
+        }
+
+        private SerializableString[] getDurationNames(final String durationKey) {
+            return durationNameMap.computeIfAbsent(durationKey, key -> new SerializableString[] {
+                    new SerializedString(key + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P50),
+                    new SerializedString(key + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P90),
+                    new SerializedString(key + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P99),
+                    new SerializedString(key + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_MAX)});
+        }
+    }
+}
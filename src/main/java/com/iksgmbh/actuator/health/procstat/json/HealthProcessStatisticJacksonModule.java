@@ -0,0 +1,115 @@
+package com.iksgmbh.actuator.health.procstat.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * Jackson module writing {@link HealthProcessStatisticDetails} directly as details of the health result.
+ * <p>
+ * A health result with {@link HealthProcessStatisticDetails} as its only detail is written as
+ * "description", "status" and "details" with the attributes of the statistic data,
+ * like a health result with the details map. All other health results are written by the default serializer.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthProcessStatisticJacksonModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    public HealthProcessStatisticJacksonModule() {
+        super(HealthProcessStatisticJacksonModule.class.getSimpleName());
+        setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public JsonSerializer<?> modifySerializer(final SerializationConfig config,
+                    final BeanDescription beanDesc, final JsonSerializer<?> serializer) {
+                if (Health.class.isAssignableFrom(beanDesc.getBeanClass())) {
+                    return new HealthSerializer((JsonSerializer<Object>) serializer);
+                }
+                return serializer;
+            }
+        });
+    }
+
+    /**
+     * Serializer of health result, delegating to the default serializer without statistic details.
+     */
+    private static class HealthSerializer extends JsonSerializer<Health>
+            implements ContextualSerializer, ResolvableSerializer {
+
+        private final JsonSerializer<Object> defaultSerializer;
+
+        private HealthSerializer(final JsonSerializer<Object> defaultSerializer) {
+            this.defaultSerializer = defaultSerializer;
+        }
+
+        @Override
+        public void serialize(final Health health, final JsonGenerator gen, final SerializerProvider provider)
+                throws IOException {
+            HealthProcessStatisticDetails details = getDetails(health);
+            if (details == null) {
+                defaultSerializer.serialize(health, gen, provider);
+                return;
+            }
+
+            gen.writeStartObject(health);
+            if (StringUtils.hasLength(health.getStatus().getDescription())) {
+                gen.writeStringField("description", health.getStatus().getDescription());
+            }
+            gen.writeStringField("status", health.getStatus().getCode());
+            gen.writeFieldName("details");
+            details.serialize(gen, provider);
+            gen.writeEndObject();
+        }
+
+        private static HealthProcessStatisticDetails getDetails(final Health health) {
+            Map<String, Object> details = health.getDetails();
+            if (details.size() != 1) {
+                return null;
+            }
+            Object value = details.get(HealthProcessStatisticDetails.DETAILS_KEY);
+            return (value instanceof HealthProcessStatisticDetails ? (HealthProcessStatisticDetails) value : null);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public JsonSerializer<?> createContextual(final SerializerProvider provider, final BeanProperty property)
+                throws JsonMappingException {
+            if (defaultSerializer instanceof ContextualSerializer) {
+                JsonSerializer<?> contextual = ((ContextualSerializer) defaultSerializer).createContextual(provider, property);
+                if (contextual != defaultSerializer) {
+                    return new HealthSerializer((JsonSerializer<Object>) contextual);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public void resolve(final SerializerProvider provider) throws JsonMappingException {
+            if (defaultSerializer instanceof ResolvableSerializer) {
+                ((ResolvableSerializer) defaultSerializer).resolve(provider);
+            }
+        }
+
+        @Override
+        public Class<Health> handledType() {
+            return Health.class;
+        }
+    }
+}
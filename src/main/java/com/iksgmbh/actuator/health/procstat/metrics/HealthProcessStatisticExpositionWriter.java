@@ -0,0 +1,221 @@
+package com.iksgmbh.actuator.health.procstat.metrics;
+
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticDataEntry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * writer of Prometheus text format or OpenMetrics.
+ * Counters, timestamps of last events and size of error list are written straight from the entries
+ * of the statistic data bean into a byte buffer, numbers are formatted without creating strings.
+ * The label of each statistic data key is encoded once and cached, so a scrape allocates only its buffer.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthProcessStatisticExpositionWriter {
+
+    // Constants
+    public final static String CONTENT_TYPE_PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
+    public final static String CONTENT_TYPE_OPENMETRICS = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+    private final static int BUFFER_SIZE = 8192;
+
+    private final static byte[] COUNT_HEADER_PROMETHEUS = bytes(
+            "# HELP health_process_statistic_count_total Counter of health process statistic data key.\n"
+            + "# TYPE health_process_statistic_count_total counter\n");
+    private final static byte[] COUNT_HEADER_OPENMETRICS = bytes(
+            "# HELP health_process_statistic_count Counter of health process statistic data key.\n"
+            + "# TYPE health_process_statistic_count counter\n");
+    private final static byte[] COUNT_NAME = bytes("health_process_statistic_count_total");
+    private final static byte[] TIMESTAMP_HEADER = bytes(
+            "# HELP health_process_statistic_timestamp_seconds Timestamp of last event of health process statistic data key.\n"
+            + "# TYPE health_process_statistic_timestamp_seconds gauge\n");
+    private final static byte[] TIMESTAMP_NAME = bytes("health_process_statistic_timestamp_seconds");
+    private final static byte[] ERROR_LIST_SIZE_HEADER = bytes(
+            "# HELP health_process_statistic_error_list_size Number of entries in error list.\n"
+            + "# TYPE health_process_statistic_error_list_size gauge\n");
+    private final static byte[] ERROR_LIST_SIZE_NAME = bytes("health_process_statistic_error_list_size ");
+    private final static byte[] EOF = bytes("# EOF\n");
+
+    private final HealthProcessStatisticData healthProcessStatisticData;
+
+    /** Encoded labels by statistic data key, e.g. {key="error"} followed by a blank. */
+    private final ConcurrentHashMap<String, byte[]> labelCache = new ConcurrentHashMap<>();
+
+
+    /**
+     * Constructor.
+     *
+     * @param healthProcessStatisticData Health process statistic data bean
+     */
+    public HealthProcessStatisticExpositionWriter(final HealthProcessStatisticData healthProcessStatisticData) {
+        this.healthProcessStatisticData = healthProcessStatisticData;
+    }
+
+    /**
+     * Write all statistic data keys to stream. The stream is flushed, but not closed.
+     *
+     * @param outputStream Output stream, e.g. of HTTP response
+     * @param openMetrics  true for OpenMetrics, false for Prometheus text format
+     * @throws IOException Writing to stream failed
+     */
+    public void write(final OutputStream outputStream, final boolean openMetrics) throws IOException {
+        List<HealthProcessStatisticDataEntry> entryList = healthProcessStatisticData.getStatisticDataEntryList();
+        if (labelCache.size() > 2 * entryList.size() + 16) {
+            labelCache.clear();  // drop labels of keys removed by reset
+        }
+
+        Output output = new Output(outputStream);
+
+        output.write(openMetrics ? COUNT_HEADER_OPENMETRICS : COUNT_HEADER_PROMETHEUS);
+        for (HealthProcessStatisticDataEntry entry : entryList) {
+            output.write(COUNT_NAME);
+            output.write(getLabel(entry.getStatisticDataKey()));
+            output.writeLong(entry.getCounter());
+            output.write('\n');
+        }
+
+        output.write(TIMESTAMP_HEADER);
+        for (HealthProcessStatisticDataEntry entry : entryList) {
+            long timestamp = entry.getTimestamp();
+            if (timestamp != HealthProcessStatisticDataEntry.NO_TIMESTAMP) {
+                output.write(TIMESTAMP_NAME);
+                output.write(getLabel(entry.getStatisticDataKey()));
+                output.writeSeconds(timestamp);
+                output.write('\n');
+            }
+        }
+
+        output.write(ERROR_LIST_SIZE_HEADER);
+        output.write(ERROR_LIST_SIZE_NAME);
+        output.writeLong(healthProcessStatisticData.getErrorListSize());
+        output.write('\n');
+
+        if (openMetrics) {
+            output.write(EOF);
+        }
+        output.flush();
+    }
+
+    private byte[] getLabel(final String statisticDataKey) {
+        return labelCache.computeIfAbsent(statisticDataKey, HealthProcessStatisticExpositionWriter::encodeLabel);
+    }
+
+    /**
+     * Encode label of statistic data key, escapes backslash, double quote and line feed.
+     *
+     * @param statisticDataKey Statistic data key
+     * @return Encoded label followed by a blank
+     */
+    private static byte[] encodeLabel(final String statisticDataKey) {
+        StringBuilder label = new StringBuilder(statisticDataKey.length() + 10).append("{key=\"");
+        for (int i = 0; i < statisticDataKey.length(); i++) {
+            char c = statisticDataKey.charAt(i);
+            if (c == '\\' || c == '"') {
+                label.append('\\').append(c);
+            } else if (c == '\n') {
+                label.append("\\n");
+            } else {
+                label.append(c);
+            }
+        }
+        return bytes(label.append("\"} ").toString());
+    }
+
+    private static byte[] bytes(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Buffered output of one write call.
+     */
+    private static class Output {
+
+        private final OutputStream outputStream;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+
+        private Output(final OutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        private void write(final byte[] bytes) throws IOException {
+            if (bytes.length > buffer.length - position) {
+                flushBuffer();
+                if (bytes.length > buffer.length) {
+                    outputStream.write(bytes);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void write(final char c) throws IOException {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            buffer[position++] = (byte) c;
+        }
+
+        /**
+         * Write decimal digits of value.
+         *
+         * @param value Value
+         */
+        private void writeLong(final long value) throws IOException {
+            if (value == Long.MIN_VALUE) {
+                write(bytes(Long.toString(value)));
+                return;
+            }
+            if (buffer.length - position < 20) {
+                flushBuffer();
+            }
+            long v = value;
+            if (v < 0L) {
+                buffer[position++] = '-';
+                v = -v;
+            }
+            int digits = 1;
+            for (long limit = 10L; digits < 19 && v >= limit; limit *= 10L) {
+                digits++;
+            }
+            int end = position + digits;
+            for (int i = end - 1; i >= position; i--) {
+                buffer[i] = (byte) ('0' + (v % 10L));
+                v /= 10L;
+            }
+            position = end;
+        }
+
+        /**
+         * Write milliseconds as seconds with three decimals.
+         *
+         * @param millis Milliseconds
+         */
+        private void writeSeconds(final long millis) throws IOException {
+            writeLong(Math.floorDiv(millis, 1000L));
+            int fraction = (int) Math.floorMod(millis, 1000L);
+            write('.');
+            write((char) ('0' + fraction / 100));
+            write((char) ('0' + fraction / 10 % 10));
+            write((char) ('0' + fraction % 10));
+        }
+
+        private void flushBuffer() throws IOException {
+            outputStream.write(buffer, 0, position);
+            position = 0;
+        }
+
+        private void flush() throws IOException {
+            flushBuffer();
+            outputStream.flush();
+        }
+    }
+}
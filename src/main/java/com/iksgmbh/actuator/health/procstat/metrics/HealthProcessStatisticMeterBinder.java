@@ -0,0 +1,132 @@
+package com.iksgmbh.actuator.health.procstat.metrics;
+
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticDataEntry;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticDataListener;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * Micrometer binder.
+ * Every statistic data key is exposed as function counter "health.process.statistic.count" and
+ * time gauge "health.process.statistic.timestamp" (time of last event since epoch) with tag "key".
+ * Meters read the counter and timestamp of the statistic data bean on every scrape, nothing is counted twice.
+ * New keys are registered as they appear, meters of keys removed by a reset or eviction are removed.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthProcessStatisticMeterBinder implements MeterBinder, HealthProcessStatisticDataListener {
+
+    // Constants
+    public final static String METER_NAME_COUNT = "health.process.statistic.count";
+    public final static String METER_NAME_TIMESTAMP = "health.process.statistic.timestamp";
+    public final static String TAG_KEY = "key";
+
+    private final HealthProcessStatisticData healthProcessStatisticData;
+
+    /** Registries this binder is bound to. */
+    private final CopyOnWriteArrayList<MeterRegistry> registryList = new CopyOnWriteArrayList<>();
+
+    /** IDs of registered meters by statistic data key. */
+    private final ConcurrentHashMap<String, Set<Meter.Id>> meterIdMap = new ConcurrentHashMap<>();
+
+
+    /**
+     * Constructor.
+     *
+     * @param healthProcessStatisticData Health process statistic data bean
+     */
+    public HealthProcessStatisticMeterBinder(final HealthProcessStatisticData healthProcessStatisticData) {
+        this.healthProcessStatisticData = healthProcessStatisticData;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        if (!registryList.addIfAbsent(registry)) {
+            return;
+        }
+        healthProcessStatisticData.addListener(this);
+        for (String statisticDataKey : healthProcessStatisticData.getStatisticDataKeyList()) {
+            register(registry, statisticDataKey);
+        }
+    }
+
+    @Override
+    public void statisticDataKeyAdded(final String statisticDataKey) {
+        for (MeterRegistry registry : registryList) {
+            register(registry, statisticDataKey);
+        }
+    }
+
+    @Override
+    public void statisticDataKeysRemoved(final List<String> statisticDataKeys) {
+        for (String statisticDataKey : statisticDataKeys) {
+            remove(statisticDataKey);
+        }
+    }
+
+    @Override
+    public void statisticDataReset() {
+        Set<String> statisticDataKeys = new HashSet<>(healthProcessStatisticData.getStatisticDataKeyList());
+        for (String statisticDataKey : meterIdMap.keySet()) {
+            if (!statisticDataKeys.contains(statisticDataKey)) {
+                remove(statisticDataKey);
+            }
+        }
+        for (String statisticDataKey : statisticDataKeys) {
+            statisticDataKeyAdded(statisticDataKey);
+        }
+    }
+
+    /**
+     * Remove meters of statistic data key from all registries.
+     *
+     * @param statisticDataKey Statistic data key
+     */
+    private void remove(final String statisticDataKey) {
+        Set<Meter.Id> meterIds = meterIdMap.remove(statisticDataKey);
+        if (meterIds != null) {
+            for (Meter.Id meterId : meterIds) {
+                for (MeterRegistry registry : registryList) {
+                    registry.remove(meterId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Register counter and timestamp meter of statistic data key. Already registered meters are reused by the registry.
+     *
+     * @param registry         Meter registry
+     * @param statisticDataKey Statistic data key
+     */
+    private void register(final MeterRegistry registry, final String statisticDataKey) {
+        Set<Meter.Id> meterIds = meterIdMap.computeIfAbsent(statisticDataKey, key -> ConcurrentHashMap.newKeySet());
+        meterIds.add(FunctionCounter.builder(METER_NAME_COUNT, healthProcessStatisticData,
+                        data -> data.getStatisticDataCounterValue(statisticDataKey))
+                .tag(TAG_KEY, statisticDataKey)
+                .description("Counter of health process statistic data key")
+                .register(registry).getId());
+        meterIds.add(TimeGauge.builder(METER_NAME_TIMESTAMP, healthProcessStatisticData, TimeUnit.MILLISECONDS,
+                        data -> toTimestamp(data.getStatisticDataTimestampMillis(statisticDataKey)))
+                .tag(TAG_KEY, statisticDataKey)
+                .description("Timestamp of last event of health process statistic data key")
+                .register(registry).getId());
+    }
+
+    private static double toTimestamp(final long timestamp) {
+        return (timestamp != HealthProcessStatisticDataEntry.NO_TIMESTAMP ? timestamp : Double.NaN);
+    }
+}
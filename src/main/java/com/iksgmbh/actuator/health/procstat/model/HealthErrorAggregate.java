@@ -0,0 +1,135 @@
+package com.iksgmbh.actuator.health.procstat.model;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * aggregate of error events with same function and return code.
+ * Holds count, first seen and the latest error event as sample, updated in O(1) without a lock.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthErrorAggregate implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Function where error events occurred. */
+    private final String function;
+
+    /** Return code of error events. */
+    private final String returnCode;
+
+    /** Number of error events. */
+    private final LongAdder count = new LongAdder();
+
+    /** Timestamp of first error event. */
+    private final OffsetDateTime firstSeen;
+
+    /** Latest error event. */
+    private final AtomicReference<HealthErrorData> latest;
+
+
+    /**
+     * Constructor.
+     *
+     * @param function        Function where error events occurred
+     * @param returnCode      Return code of error events
+     * @param healthErrorData First error event, not counted yet
+     */
+    public HealthErrorAggregate(final String function, final String returnCode, final HealthErrorData healthErrorData) {
+        super();
+        this.function = function;
+        this.returnCode = returnCode;
+        this.firstSeen = healthErrorData.getTimestamp();
+        this.latest = new AtomicReference<>(healthErrorData);
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param source Error aggregate to copy
+     */
+    private HealthErrorAggregate(final HealthErrorAggregate source) {
+        super();
+        this.function = source.function;
+        this.returnCode = source.returnCode;
+        this.firstSeen = source.firstSeen;
+        this.latest = new AtomicReference<>(source.latest.get());
+        this.count.add(source.count.sum());
+    }
+
+    /**
+     * Returns copy with current count and latest error event, not affected by further error events.
+     *
+     * @return Copy of error aggregate
+     */
+    public HealthErrorAggregate copy() {
+        return new HealthErrorAggregate(this);
+    }
+
+    /**
+     * Count error event and keep it as latest sample, if it is not older than the current sample.
+     *
+     * @param healthErrorData Error event
+     */
+    public void add(final HealthErrorData healthErrorData) {
+        count.increment();
+
+        HealthErrorData current;
+        while ((current = latest.get()) != healthErrorData && !isOlder(healthErrorData, current)) {
+            if (latest.compareAndSet(current, healthErrorData)) {
+                break;
+            }
+        }
+    }
+
+    private static boolean isOlder(final HealthErrorData healthErrorData, final HealthErrorData current) {
+        return healthErrorData.getTimestamp() != null && current.getTimestamp() != null
+                && healthErrorData.getTimestamp().isBefore(current.getTimestamp());
+    }
+
+    @Override
+    public String toString() {
+        return "HealthErrorAggregate{" +
+               "function='" + function + "'" +
+               ", returnCode='" + returnCode + "'" +
+               ", count=" + count.sum() +
+               ", firstSeen=" + firstSeen +
+               ", lastSeen=" + getLastSeen() +
+               "}";
+    }
+
+    // Getter
+
+    public String getFunction() {
+        return function;
+    }
+
+    public String getReturnCode() {
+        return returnCode;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public OffsetDateTime getFirstSeen() {
+        return firstSeen;
+    }
+
+    public OffsetDateTime getLastSeen() {
+        return latest.get().getTimestamp();
+    }
+
+    public String getMessageText() {
+        return latest.get().getMessageText();
+    }
+
+    public String getReferenceId() {
+        return latest.get().getReferenceId();
+    }
+}
@@ -1,5 +1,7 @@
 package com.iksgmbh.actuator.health.procstat.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.io.Serializable;
 import java.time.OffsetDateTime;
 import java.util.Objects;
@@ -33,6 +35,10 @@ public class HealthErrorData implements Serializable {
     /** Reference Id(s). */
     private String referenceId;
 
+    /** Number of error events of same function suppressed by sampling before this error event. */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long suppressedCounter;
+
 
     /**
      * Constructor.
@@ -83,6 +89,31 @@ public class HealthErrorData implements Serializable {
         this.referenceId = null;
     }
 
+    /**
+     * Copy constructor.
+     *
+     * @param source Error event to copy
+     */
+    private HealthErrorData(final HealthErrorData source) {
+        super();
+        this.timestamp = source.timestamp;
+        this.function = source.function;
+        this.returnCode = source.returnCode;
+        this.messageText = source.messageText;
+        this.instructionText = source.instructionText;
+        this.referenceId = source.referenceId;
+        this.suppressedCounter = source.suppressedCounter;
+    }
+
+    /**
+     * Returns copy, not affected by further changes of this error event.
+     *
+     * @return Copy of error event
+     */
+    public HealthErrorData copy() {
+        return new HealthErrorData(this);
+    }
+
 
     @Override
     public String toString() {
@@ -93,6 +124,7 @@ public class HealthErrorData implements Serializable {
                ", messageText='" + messageText + "'" +
                ", instructionText='" + instructionText + "'" +
                ", referenceId='" + referenceId + "'" +
+               ", suppressedCounter=" + suppressedCounter +
                "}";
     }
 
@@ -105,7 +137,8 @@ public class HealthErrorData implements Serializable {
             return false;
         }
         HealthErrorData that = (HealthErrorData) o;
-        return Objects.equals(timestamp, that.timestamp) &&
+        return suppressedCounter == that.suppressedCounter &&
+               Objects.equals(timestamp, that.timestamp) &&
                Objects.equals(function, that.function) &&
                Objects.equals(returnCode, that.returnCode) &&
                Objects.equals(messageText, that.messageText) &&
@@ -115,7 +148,7 @@ public class HealthErrorData implements Serializable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(timestamp, function, returnCode, messageText, instructionText, referenceId);
+        return Objects.hash(timestamp, function, returnCode, messageText, instructionText, referenceId, suppressedCounter);
     }
 
     // Getter + setter
@@ -167,4 +200,12 @@ public class HealthErrorData implements Serializable {
     public void setReferenceId(final String referenceId) {
         this.referenceId = referenceId;
     }
+
+    public long getSuppressedCounter() {
+        return suppressedCounter;
+    }
+
+    public void setSuppressedCounter(final long suppressedCounter) {
+        this.suppressedCounter = suppressedCounter;
+    }
 }
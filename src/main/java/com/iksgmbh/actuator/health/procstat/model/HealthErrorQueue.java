@@ -0,0 +1,289 @@
+package com.iksgmbh.actuator.health.procstat.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * bounded queue of error events, drained in batches by a daemon thread.
+ * <p>
+ * Producers and consumers claim slots by sequence numbers without a common lock. If the queue is full,
+ * the error event is dropped ({@link OverflowPolicy#DROP_NEWEST}) or the oldest queued error event is
+ * dropped to make room ({@link OverflowPolicy#DROP_OLDEST}); dropped error events are counted.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthErrorQueue implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthErrorQueue.class);
+
+    // Constants
+    private final static int BATCH_MAX_SIZE = 64;
+    private final static long WORKER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100L);
+
+    /**
+     * Handling of error events if queue is full.
+     */
+    public enum OverflowPolicy {
+        /** Drop new error event. */
+        DROP_NEWEST,
+        /** Drop oldest queued error event, then queue new error event. */
+        DROP_OLDEST;
+
+        /**
+         * Parse policy, e.g. "drop-newest" or "DROP_OLDEST".
+         *
+         * @param overflowPolicy Name of policy
+         * @return Policy
+         */
+        public static OverflowPolicy parse(final String overflowPolicy) {
+            return valueOf(overflowPolicy.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /** Slot index mask, capacity is a power of two. */
+    private final int mask;
+
+    /** Sequence number per slot: free for producer at position, filled for consumer at position + 1. */
+    private final AtomicLongArray sequences;
+
+    private final AtomicReferenceArray<HealthErrorData> elements;
+
+    private final AtomicLong enqueuePosition = new AtomicLong();
+
+    private final AtomicLong dequeuePosition = new AtomicLong();
+
+    private volatile OverflowPolicy overflowPolicy;
+
+    private final LongAdder droppedCounter;
+
+    /** Consumer of drained batches, called by one thread at a time. */
+    private final Consumer<List<HealthErrorData>> batchConsumer;
+
+    /** Serializes draining by worker thread and {@link #flush()}. */
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    private final Thread workerThread;
+
+    /** Worker thread is about to park, producers have to unpark it. */
+    private volatile boolean workerWaiting;
+
+    private volatile boolean closed;
+
+
+    /**
+     * Constructor, starts the worker thread.
+     *
+     * @param capacity       Max number of queued error events, rounded up to a power of two
+     * @param overflowPolicy Handling of error events if queue is full
+     * @param droppedCounter Counter of dropped error events
+     * @param batchConsumer  Consumer of drained batches of error events
+     */
+    public HealthErrorQueue(final int capacity,
+            final OverflowPolicy overflowPolicy,
+            final LongAdder droppedCounter,
+            final Consumer<List<HealthErrorData>> batchConsumer) {
+        super();
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = (capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1);
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.elements = new AtomicReferenceArray<>(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.overflowPolicy = overflowPolicy;
+        this.droppedCounter = droppedCounter;
+        this.batchConsumer = batchConsumer;
+        this.workerThread = new Thread(this::work, "health-process-statistic-errors");
+        this.workerThread.setDaemon(true);
+        this.workerThread.start();
+    }
+
+    /**
+     * Queue error event, never blocks.
+     *
+     * @param healthErrorData Error event
+     * @return true if queued, false if dropped
+     */
+    public boolean offer(final HealthErrorData healthErrorData) {
+        if (closed) {
+            droppedCounter.increment();
+            return false;
+        }
+        while (!tryEnqueue(healthErrorData)) {
+            if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+                droppedCounter.increment();
+                return false;
+            }
+            if (tryDequeue() != null) {
+                droppedCounter.increment();
+            }
+        }
+        if (workerWaiting) {
+            LockSupport.unpark(workerThread);
+        }
+        return true;
+    }
+
+    private boolean tryEnqueue(final HealthErrorData healthErrorData) {
+        long position = enqueuePosition.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0L) {
+                if (enqueuePosition.compareAndSet(position, position + 1L)) {
+                    elements.set(index, healthErrorData);
+                    sequences.set(index, position + 1L);
+                    return true;
+                }
+                position = enqueuePosition.get();
+            } else if (difference < 0L) {
+                return false;  // full
+            } else {
+                position = enqueuePosition.get();  // another producer was faster
+            }
+        }
+    }
+
+    private HealthErrorData tryDequeue() {
+        long position = dequeuePosition.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1L);
+            if (difference == 0L) {
+                if (dequeuePosition.compareAndSet(position, position + 1L)) {
+                    HealthErrorData healthErrorData = elements.get(index);
+                    elements.set(index, null);
+                    sequences.set(index, position + mask + 1L);
+                    return healthErrorData;
+                }
+                position = dequeuePosition.get();
+            } else if (difference < 0L) {
+                return null;  // empty, or producer has not finished writing yet
+            } else {
+                position = dequeuePosition.get();  // another consumer was faster
+            }
+        }
+    }
+
+    /**
+     * Drain queue in batches until closed, park while empty.
+     */
+    private void work() {
+        List<HealthErrorData> batch = new ArrayList<>(BATCH_MAX_SIZE);
+        while (!closed) {
+            if (drain(batch) == 0) {
+                workerWaiting = true;
+                if (isEmpty() && !closed) {
+                    LockSupport.parkNanos(this, WORKER_PARK_NANOS);
+                }
+                workerWaiting = false;
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Drain one batch and pass it to the batch consumer.
+     *
+     * @param batch Empty list, cleared afterwards
+     * @return Number of drained error events
+     */
+    private int drain(final List<HealthErrorData> batch) {
+        try {
+            drainLock.lock();
+            HealthErrorData healthErrorData;
+            while (batch.size() < BATCH_MAX_SIZE && (healthErrorData = tryDequeue()) != null) {
+                batch.add(healthErrorData);
+            }
+            int size = batch.size();
+            if (size > 0) {
+                batchConsumer.accept(batch);
+            }
+            return size;
+        } catch (RuntimeException e) {
+            // error events of the batch are lost, counted as dropped like error events of a full queue
+            droppedCounter.add(batch.size());
+            log.warn("Health process statistic error events could not be processed, {} dropped.", batch.size(), e);
+            return batch.size();
+        } finally {
+            batch.clear();
+            drainLock.unlock();
+        }
+    }
+
+    /**
+     * Process all queued error events on the calling thread, after a batch in progress of the worker thread.
+     */
+    public void flush() {
+        List<HealthErrorData> batch = new ArrayList<>(BATCH_MAX_SIZE);
+        while (drain(batch) > 0) {
+            // next batch
+        }
+    }
+
+    /**
+     * Returns whether no error event is queued.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return dequeuePosition.get() >= enqueuePosition.get();
+    }
+
+    /**
+     * Returns number of queued error events.
+     *
+     * @return Number of queued error events
+     */
+    public int size() {
+        return (int) Math.max(0L, enqueuePosition.get() - dequeuePosition.get());
+    }
+
+    /**
+     * Stop worker thread after processing all queued error events. Error events added afterwards are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(workerThread);
+        flush();
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(final OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @Override
+    public String toString() {
+        return "HealthErrorQueue{" +
+               "capacity=" + getCapacity() +
+               ", overflowPolicy=" + overflowPolicy +
+               ", size=" + size() +
+               "}";
+    }
+}
@@ -0,0 +1,147 @@
+package com.iksgmbh.actuator.health.procstat.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * fixed capacity ring buffer of error events.
+ * Producers claim a sequence number and write their slot without a common lock,
+ * the oldest entry is overwritten in O(1) when the buffer is full.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthErrorRingBuffer implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Max numbers of entries. */
+    private final int capacity;
+
+    /** Slots of ring buffer, slot index is sequence number modulo capacity. */
+    private final AtomicReferenceArray<Slot> slots;
+
+    /** Next sequence number, equals number of entries added since creation. */
+    private final AtomicLong sequence = new AtomicLong();
+
+
+    /**
+     * Constructor.
+     *
+     * @param capacity Max numbers of entries, 0 keeps no entries at all
+     */
+    public HealthErrorRingBuffer(final int capacity) {
+        super();
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Add error event, overwrites the oldest entry if buffer is full.
+     *
+     * @param healthErrorData Error event
+     */
+    public void add(final HealthErrorData healthErrorData) {
+        add(healthErrorData, () -> 0L);
+    }
+
+    /**
+     * Add error event with change version, overwrites the oldest entry if buffer is full.
+     * The change version is read again after the entry is visible and moved forward if it changed meanwhile,
+     * so a reader of entries since a change version never misses an entry added concurrently.
+     *
+     * @param healthErrorData Error event
+     * @param changeVersion   Current change version, see {@link HealthProcessStatisticData#getChangeVersion()}
+     */
+    public void add(final HealthErrorData healthErrorData, final LongSupplier changeVersion) {
+        if (capacity == 0) {
+            return;
+        }
+
+        long slotSequence = sequence.getAndIncrement();
+        int index = (int) (slotSequence % capacity);
+        Slot slot = new Slot(slotSequence, changeVersion.getAsLong(), healthErrorData);
+
+        Slot current;
+        do {
+            current = slots.get(index);
+            if (current != null && current.sequence > slotSequence) {
+                return;  // a producer with a newer sequence number was faster, this entry is already evicted
+            }
+        } while (!slots.compareAndSet(index, current, slot));
+
+        long version;
+        while ((version = changeVersion.getAsLong()) != slot.changeVersion) {
+            slot.changeVersion = version;
+        }
+    }
+
+    /**
+     * Returns all entries ordered from oldest to newest.
+     * Entries whose producer has not finished writing yet are not included.
+     *
+     * @return List of error events
+     */
+    public List<HealthErrorData> toList() {
+        return toList(-1L);
+    }
+
+    /**
+     * Returns entries added with a change version higher than the given one, ordered from oldest to newest.
+     *
+     * @param sinceChangeVersion Change version of entries already read
+     * @return List of error events
+     */
+    public List<HealthErrorData> toList(final long sinceChangeVersion) {
+        long end = sequence.get();
+        long start = Math.max(0L, end - capacity);
+
+        List<HealthErrorData> list = new ArrayList<>((int) (end - start));
+        for (long slotSequence = start; slotSequence < end; slotSequence++) {
+            Slot slot = slots.get((int) (slotSequence % capacity));
+            if (slot != null && slot.sequence == slotSequence && slot.changeVersion > sinceChangeVersion) {
+                list.add(slot.healthErrorData);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Returns number of entries.
+     *
+     * @return Number of entries
+     */
+    public int size() {
+        return (int) Math.min(sequence.get(), capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Slot of ring buffer, entry together with its sequence number.
+     */
+    private static class Slot implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long sequence;
+        private volatile long changeVersion;
+        private final HealthErrorData healthErrorData;
+
+        private Slot(final long sequence, final long changeVersion, final HealthErrorData healthErrorData) {
+            this.sequence = sequence;
+            this.changeVersion = changeVersion;
+            this.healthErrorData = healthErrorData;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.iksgmbh.actuator.health.procstat.model;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * per function sampling of error events added to the error list.
+ * <p>
+ * Each function has a token bucket with a rate of error events per second and a burst size, implemented as
+ * generic cell rate algorithm: one CAS on the theoretical arrival time per error event, no lock.
+ * Error events beyond the rate are suppressed and counted; the next error event of the function added to the
+ * error list carries the number of error events suppressed before it. Until then the number is pending,
+ * see {@link #getSuppressedCounterMap()}.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthErrorSampler implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Constants
+    private final static int FUNCTION_MAX_SIZE = 1000;
+    private final static String FUNCTION_OVERFLOW = "*";
+
+    /** Error events per second and function, 0 if functions without own rate are not sampled. */
+    private final double defaultRate;
+
+    /** Max number of error events per function added at once after a quiet period. */
+    private final int burst;
+
+    /** Error events per second of single functions. */
+    private final Map<String, Double> functionRateMap;
+
+    /** Token bucket per function. */
+    private final ConcurrentHashMap<String, Bucket> bucketMap = new ConcurrentHashMap<>();
+
+
+    /**
+     * Constructor.
+     *
+     * @param defaultRate     Error events per second and function, 0 to sample only functions of functionRateMap
+     * @param burst           Max number of error events per function added at once, at least 1
+     * @param functionRateMap Error events per second of single functions, 0 to not sample the function
+     */
+    public HealthErrorSampler(final double defaultRate, final int burst, final Map<String, Double> functionRateMap) {
+        super();
+        if (defaultRate < 0.0d || burst < 1) {
+            throw new IllegalArgumentException("Rate must not be negative and burst must be at least 1: "
+                    + defaultRate + ", " + burst);
+        }
+        for (Map.Entry<String, Double> entry : functionRateMap.entrySet()) {
+            if (entry.getValue() < 0.0d) {
+                throw new IllegalArgumentException("Rate of function " + entry.getKey() + " must not be negative: "
+                        + entry.getValue());
+            }
+        }
+        this.defaultRate = defaultRate;
+        this.burst = burst;
+        this.functionRateMap = Collections.unmodifiableMap(new LinkedHashMap<>(functionRateMap));
+    }
+
+    /**
+     * Parse rates of single functions, e.g. "myFunction=5, otherFunction=0.5".
+     *
+     * @param functionRates Comma separated function=rate pairs, may be empty
+     * @return Error events per second by function
+     * @throws IllegalArgumentException Pair is invalid
+     */
+    public static Map<String, Double> parseFunctionRates(final String functionRates) {
+        Map<String, Double> map = new LinkedHashMap<>();
+        for (String pair : functionRates.split(",")) {
+            if (pair.trim().isEmpty()) {
+                continue;
+            }
+            int separator = pair.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Function rate must be given as function=rate: " + pair);
+            }
+            map.put(pair.substring(0, separator).trim(), Double.valueOf(pair.substring(separator + 1).trim()));
+        }
+        return map;
+    }
+
+    /**
+     * Decide whether error event is added to the error list.
+     *
+     * @param healthErrorData Error event
+     * @param nowMillis       Current time in milliseconds since epoch
+     * @return Number of error events of the function suppressed since the last added one, -1 if suppressed
+     */
+    public long sample(final HealthErrorData healthErrorData, final long nowMillis) {
+        Bucket bucket = getBucket(Objects.toString(healthErrorData.getFunction(), ""));
+        if (bucket == null) {
+            return 0L;
+        }
+        if (!bucket.tryAcquire(TimeUnit.MILLISECONDS.toNanos(nowMillis))) {
+            bucket.suppressed.incrementAndGet();
+            return -1L;
+        }
+        return bucket.suppressed.getAndSet(0L);
+    }
+
+    /**
+     * Returns bucket of function, adds it if not registered yet.
+     * Beyond max numbers of functions the overflow bucket is returned.
+     *
+     * @param function Function of error event
+     * @return Bucket, null if function is not sampled
+     */
+    private Bucket getBucket(final String function) {
+        Bucket bucket = bucketMap.get(function);
+        if (bucket != null) {
+            return bucket;
+        }
+
+        double rate = functionRateMap.getOrDefault(function, defaultRate);
+        if (rate == 0.0d) {
+            return null;
+        }
+        String bucketKey = (bucketMap.size() < FUNCTION_MAX_SIZE ? function : FUNCTION_OVERFLOW);
+        return bucketMap.computeIfAbsent(bucketKey, key -> new Bucket(rate, burst));
+    }
+
+    /**
+     * Returns number of error events suppressed since the last added one per function, only functions with
+     * suppressed error events. Suppressed error events of functions beyond the max number of functions are
+     * counted as function "*".
+     *
+     * @return Number of suppressed error events by function
+     */
+    public LinkedHashMap<String, Long> getSuppressedCounterMap() {
+        LinkedHashMap<String, Long> map = new LinkedHashMap<>();
+        for (Map.Entry<String, Bucket> entry : bucketMap.entrySet()) {
+            long suppressed = entry.getValue().suppressed.get();
+            if (suppressed > 0L) {
+                map.put(entry.getKey(), suppressed);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Forget state of all buckets, e.g. on reset of the error list.
+     */
+    public void reset() {
+        bucketMap.clear();
+    }
+
+    public double getDefaultRate() {
+        return defaultRate;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public Map<String, Double> getFunctionRateMap() {
+        return functionRateMap;
+    }
+
+    @Override
+    public String toString() {
+        return "HealthErrorSampler{" +
+               "defaultRate=" + defaultRate +
+               ", burst=" + burst +
+               ", functionRateMap=" + functionRateMap +
+               "}";
+    }
+
+    /**
+     * Token bucket of one function.
+     */
+    private static class Bucket implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Nanoseconds per error event. */
+        private final long intervalNanos;
+
+        /** Max distance of theoretical arrival time ahead of now. */
+        private final long toleranceNanos;
+
+        /** Theoretical arrival time of next error event in nanoseconds. */
+        private final AtomicLong theoreticalArrivalNanos = new AtomicLong(Long.MIN_VALUE);
+
+        /** Number of error events suppressed since the last added one. */
+        private final AtomicLong suppressed = new AtomicLong();
+
+        private Bucket(final double rate, final int burst) {
+            this.intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1L) / rate));
+            this.toleranceNanos = intervalNanos * burst;
+        }
+
+        private boolean tryAcquire(final long nowNanos) {
+            while (true) {
+                long arrival = theoreticalArrivalNanos.get();
+                long next = Math.max(arrival, nowNanos) + intervalNanos;
+                if (next - nowNanos > toleranceNanos) {
+                    return false;
+                }
+                if (theoreticalArrivalNanos.compareAndSet(arrival, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
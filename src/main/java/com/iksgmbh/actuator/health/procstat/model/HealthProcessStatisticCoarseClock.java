@@ -0,0 +1,147 @@
+package com.iksgmbh.actuator.health.procstat.model;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * coarse-grained clock. The current time is updated by a daemon thread every
+ * granularity milliseconds, so reading the time costs only one volatile read.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthProcessStatisticCoarseClock extends Clock implements AutoCloseable {
+
+    /** Time zone of clock. */
+    private final ZoneId zone;
+
+    /** Granularity of clock in milliseconds. */
+    private final long granularityMillis;
+
+    /** Thread updating current time. */
+    private final Thread tickThread;
+
+    /** Current time in milliseconds since epoch. */
+    private volatile long currentTimeMillis = System.currentTimeMillis();
+
+    /** Clock is closed, tick thread stops. */
+    private volatile boolean closed;
+
+
+    /**
+     * Constructor.
+     *
+     * @param granularityMillis Granularity of clock in milliseconds
+     * @param zone              Time zone of clock
+     */
+    public HealthProcessStatisticCoarseClock(final long granularityMillis, final ZoneId zone) {
+        super();
+        if (granularityMillis <= 0L) {
+            throw new IllegalArgumentException("Granularity must be greater than zero: " + granularityMillis);
+        }
+        this.zone = zone;
+        this.granularityMillis = granularityMillis;
+        this.tickThread = new Thread(this::tick, "health-process-statistic-clock");
+        this.tickThread.setDaemon(true);
+        this.tickThread.start();
+    }
+
+    /**
+     * Update current time every granularity milliseconds until clock is closed.
+     */
+    private void tick() {
+        long granularityNanos = TimeUnit.MILLISECONDS.toNanos(granularityMillis);
+        while (!closed) {
+            currentTimeMillis = System.currentTimeMillis();
+            LockSupport.parkNanos(this, granularityNanos);
+        }
+    }
+
+    /**
+     * Stop tick thread. Afterwards the clock keeps returning the last time.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(tickThread);
+    }
+
+    @Override
+    public long millis() {
+        return currentTimeMillis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(currentTimeMillis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Returns a clock with the given zone sharing the tick thread of this clock.
+     *
+     * @param zone Time zone
+     * @return Clock with given zone
+     */
+    @Override
+    public Clock withZone(final ZoneId zone) {
+        if (this.zone.equals(zone)) {
+            return this;
+        }
+        return new ZonedView(this, zone);
+    }
+
+    public long getGranularityMillis() {
+        return granularityMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "HealthProcessStatisticCoarseClock{" +
+               "zone=" + zone +
+               ", granularityMillis=" + granularityMillis +
+               "}";
+    }
+
+    /**
+     * Coarse clock with another time zone.
+     */
+    private static class ZonedView extends Clock {
+
+        private final HealthProcessStatisticCoarseClock clock;
+        private final ZoneId zone;
+
+        private ZonedView(final HealthProcessStatisticCoarseClock clock, final ZoneId zone) {
+            this.clock = clock;
+            this.zone = zone;
+        }
+
+        @Override
+        public long millis() {
+            return clock.millis();
+        }
+
+        @Override
+        public Instant instant() {
+            return clock.instant();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return clock.withZone(zone);
+        }
+    }
+}
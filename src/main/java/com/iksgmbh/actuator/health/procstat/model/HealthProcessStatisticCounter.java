@@ -0,0 +1,64 @@
+package com.iksgmbh.actuator.health.procstat.model;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * pre-resolved counter handle of one statistic data key.
+ * Use {@link HealthProcessStatisticData#counter(String)} to get a handle once and call
+ * {@link #increment()} in hot code paths instead of {@link HealthProcessStatisticData#incrementCounter(String)}.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthProcessStatisticCounter {
+
+    /** Health process statistic data bean, source of the clock. */
+    private final HealthProcessStatisticData healthProcessStatisticData;
+
+    /** Entry of statistic data key. */
+    private final HealthProcessStatisticDataEntry entry;
+
+
+    /**
+     * Constructor.
+     *
+     * @param healthProcessStatisticData Health process statistic data bean
+     * @param entry                      Entry of statistic data key
+     */
+    HealthProcessStatisticCounter(final HealthProcessStatisticData healthProcessStatisticData,
+            final HealthProcessStatisticDataEntry entry) {
+        super();
+        this.healthProcessStatisticData = healthProcessStatisticData;
+        this.entry = entry;
+    }
+
+    /**
+     * Increment counter of statistic data key. Stores also timestamp of event.
+     */
+    public void increment() {
+        entry.increment(healthProcessStatisticData.currentTimeMillis());
+        healthProcessStatisticData.markEvent(entry);
+    }
+
+    @Override
+    public String toString() {
+        return "HealthProcessStatisticCounter{" +
+               "statisticDataKey='" + entry.getStatisticDataKey() + "'" +
+               "}";
+    }
+
+    // Getter
+
+    public String getStatisticDataKey() {
+        return entry.getStatisticDataKey();
+    }
+
+    public long getCounter() {
+        return entry.getCounter();
+    }
+
+    public OffsetDateTime getTimestamp() {
+        return healthProcessStatisticData.getStatisticDataTimestamp(entry.getStatisticDataKey());
+    }
+}
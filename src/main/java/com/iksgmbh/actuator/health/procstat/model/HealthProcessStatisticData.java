@@ -3,11 +3,25 @@ package com.iksgmbh.actuator.health.procstat.model;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 
 /**
  * Health process statistic endpoint for in memory process statistic data -
@@ -23,35 +37,155 @@ public class HealthProcessStatisticData implements Serializable {
     private static final Logger log = LoggerFactory.getLogger(HealthProcessStatisticData.class);
 
     // Lock mutexes
-    private final ReentrantLock errorListLock = new ReentrantLock();
     private final ReentrantLock statisticDataLock = new ReentrantLock();
 
     // Constants
     public final static String HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_COUNTER = "Counter";
     public final static String HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_TIMESTAMP = "Timestamp";
+    public final static String HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_RATE = "Rate";
+    public final static String HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P50 = "DurationP50";
+    public final static String HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P90 = "DurationP90";
+    public final static String HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P99 = "DurationP99";
+    public final static String HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_MAX = "DurationMax";
+    public final static double NANOS_PER_MILLI = 1000000.0d;
+    private final static int SNAPSHOT_MAX_ATTEMPTS = 4;
     private final static int STATISTIC_DATA_INIT_SIZE = 8;
+    private final static int ERROR_LIST_DEFAULT_MAX_SIZE = 10;
+    private final static int ERROR_AGGREGATE_DEFAULT_MAX_SIZE = 100;
+    private final static int ERROR_SAMPLING_DEFAULT_BURST = 10;
+    /** Statistic data key counting events of keys rejected because max numbers of keys is reached. */
+    public final static String STATISTIC_DATA_KEY_OVERFLOW = "overflow";
+    private final static int KEY_REJECTED_SET_MAX_SIZE = 10000;
+    private final static long KEY_EVICTION_MIN_INTERVAL_MILLIS = 1000L;
+    /** Function and return code of aggregate collecting error events beyond max numbers of aggregates. */
+    public final static String ERROR_AGGREGATE_OVERFLOW = "*";
+
+    /**
+     * Error details shown in health details: raw error list, aggregated error list or both.
+     */
+    public enum ErrorListDetails {
+        LIST, AGGREGATE, BOTH
+    }
+
+    /**
+     * Clock used for timestamps of events, can be replaced for tests or by a coarse-grained clock.
+     * Not serialized, its zone and granularity are.
+     */
+    private transient volatile Clock clock = Clock.systemDefaultZone();
 
     /** Max numbers of entries in error list */
-    @Value("${management.health.processStatistic.errorlist.maxsize:10}")
-    private int errorListMaxSize;
+    private int errorListMaxSize = ERROR_LIST_DEFAULT_MAX_SIZE;
 
     /** List of errors occurred since last service start. */
-    private List<HealthErrorData> errorList = new ArrayList<>(errorListMaxSize);
+    private volatile HealthErrorRingBuffer errorList = new HealthErrorRingBuffer(errorListMaxSize);
+
+    /** Max numbers of error aggregates, 0 disables aggregation. */
+    private volatile int errorAggregateMaxSize = ERROR_AGGREGATE_DEFAULT_MAX_SIZE;
+
+    /** Map of error aggregates by function and return code. */
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, HealthErrorAggregate>> errorAggregateMap = new ConcurrentHashMap<>(STATISTIC_DATA_INIT_SIZE);
+
+    /** List of error aggregates in order of first error event, used for output. */
+    private final CopyOnWriteArrayList<HealthErrorAggregate> errorAggregateList = new CopyOnWriteArrayList<>();
+
+    /** Aggregate of error events beyond max numbers of error aggregates, null if not needed yet. */
+    private volatile HealthErrorAggregate errorAggregateOverflow;
+
+    /** Error details shown in health details. */
+    private volatile ErrorListDetails errorListDetails = ErrorListDetails.LIST;
 
     /** List of default health process statistic keys */
     private LinkedHashSet<String> defaultStatisticDataKeyList = new LinkedHashSet<>(STATISTIC_DATA_INIT_SIZE);
 
-    /** List of health process statistic keys */
-    private LinkedHashSet<String> statisticDataKeyList = new LinkedHashSet<>(STATISTIC_DATA_INIT_SIZE);
+    /** List of health process statistic entries in order of key registration, used for output */
+    private final CopyOnWriteArrayList<HealthProcessStatisticDataEntry> statisticDataEntryList = new CopyOnWriteArrayList<>();
+
+    /** Map of health process statistic entries (counter + timestamp) by statistic data key */
+    private final ConcurrentHashMap<String, HealthProcessStatisticDataEntry> statisticDataEntryMap = new ConcurrentHashMap<>(STATISTIC_DATA_INIT_SIZE);
+
+    /** List of duration statistic keys in order of registration, used for output */
+    private final CopyOnWriteArrayList<String> durationKeyList = new CopyOnWriteArrayList<>();
+
+    /** Map of duration histograms by duration statistic key */
+    private final ConcurrentHashMap<String, HealthProcessStatisticHistogram> durationHistogramMap = new ConcurrentHashMap<>(STATISTIC_DATA_INIT_SIZE);
+
+    /** Sliding windows of event counts per statistic data key, ascending, empty if rates are not enabled. */
+    private volatile Duration[] rateWindows = new Duration[0];
+
+    /** Statistic data sub keys of sliding windows, e.g. "Rate1m". */
+    private volatile String[] rateWindowSubKeys = new String[0];
+
+    /** Max numbers of statistic data keys without overflow key, 0 if not limited. */
+    private volatile int keyMaxSize = 0;
+
+    /** Keys without event for this duration are evicted, zero if keys are never evicted. */
+    private volatile Duration keyIdleTimeout = Duration.ZERO;
+
+    /** Earliest time of next eviction of idle keys in milliseconds since epoch. */
+    private volatile long nextKeyEvictionTimestamp;
+
+    /** Entry of overflow key while max numbers of keys is reached, null otherwise. */
+    private volatile HealthProcessStatisticDataEntry keyOverflowEntry;
+
+    /** Number of new statistic data keys rejected because max numbers of keys is reached, each key counted once. */
+    private final LongAdder keyRejectedCounter = new LongAdder();
+
+    /** Recently rejected statistic data keys, cleared beyond its max size, so keys are counted once. */
+    private final Set<String> keyRejectedSet = ConcurrentHashMap.newKeySet();
+
+    /** Number of statistic data keys evicted because they were idle. */
+    private final LongAdder keyEvictedCounter = new LongAdder();
+
+    /**
+     * Queue of error events processed asynchronously, null if error events are processed on the calling thread.
+     * Not serialized with its worker thread, but created again from its capacity.
+     */
+    private transient volatile HealthErrorQueue errorQueue;
+
+    /** Max number of queued error events, 0 if error events are processed on the calling thread. */
+    private volatile int errorQueueCapacity;
+
+    /** Handling of error events if the queue is full. */
+    private volatile HealthErrorQueue.OverflowPolicy errorQueueOverflowPolicy = HealthErrorQueue.OverflowPolicy.DROP_NEWEST;
+
+    /** Sampling of error events added to the error list, null if all error events are added. */
+    private volatile HealthErrorSampler errorSampler;
+
+    /** Error events per second and function added to the error list, 0 if not sampled. */
+    private double errorSamplingRate = 0.0d;
+
+    /** Max number of error events per function added to the error list at once. */
+    private int errorSamplingBurst = ERROR_SAMPLING_DEFAULT_BURST;
 
-    /** Map of health process statistic data counters */
-    private HashMap<String, Long> statisticDataCounterMap = new HashMap<>(STATISTIC_DATA_INIT_SIZE);
+    /** Error events per second added to the error list of single functions. */
+    private Map<String, Double> errorSamplingFunctionRateMap = Collections.emptyMap();
 
-    /** Map of health process statistic data timestamps */
-    private HashMap<String, OffsetDateTime> statisticDataTimestampMap = new HashMap<>(STATISTIC_DATA_INIT_SIZE);
+    /** Number of error events dropped because the queue was full. */
+    private final LongAdder errorDroppedCounter = new LongAdder();
+
+    /** Version of structure, odd while a reset, an eviction or a change of rate windows is in progress. */
+    private final AtomicLong structureVersion = new AtomicLong();
+
+    /**
+     * Change version, advanced by readers of deltas only, so writers just read it. Changes are stamped with
+     * the current change version, a delta since a version contains all changes stamped with a later one.
+     */
+    private final AtomicLong changeVersion = new AtomicLong(1L);
+
+    /** Change version of last structural change, i.e. reset, eviction or change of rate windows. */
+    private volatile long structureChangeVersion;
+
+    /** Sequence of events of all statistic data keys, orders events with equal timestamps. Starts after 0 (unknown). */
+    private final AtomicLong eventSequence = new AtomicLong(1L);
+
+    /** Modification count of changes not reflected by the sum of counters (reset, new keys, etc.). */
+    private final AtomicLong modificationCountBase = new AtomicLong();
+
+    /** Listeners of structural changes, e.g. new keys or reset, and of errors. Not serialized. */
+    private transient CopyOnWriteArrayList<HealthProcessStatisticDataListener> listenerList = new CopyOnWriteArrayList<>();
 
     /** Starting time of service or timestamp of last reset. */
-    private OffsetDateTime serviceStartTimestamp = OffsetDateTime.now();
+    private volatile OffsetDateTime serviceStartTimestamp = OffsetDateTime.now(clock);
 
 
     /**
@@ -82,10 +216,19 @@ public class HealthProcessStatisticData implements Serializable {
      * Reset all statistic data attributes.
      */
     public void reset() {
-        serviceStartTimestamp = OffsetDateTime.now();
-        resetErrorList();
-        resetStatisticData();
+        flushErrors();
+        try {
+            lockStructure();
+            serviceStartTimestamp = OffsetDateTime.now(clock);
+            resetErrorListLocked();
+            resetStatisticDataLocked();
+        } finally {
+            unlockStructure();
+        }
 
+        for (HealthProcessStatisticDataListener listener : listenerList) {
+            listener.statisticDataReset();
+        }
         log.info("Health endpoint process statistic data was reset.");
     }
 
@@ -93,244 +236,1532 @@ public class HealthProcessStatisticData implements Serializable {
      * Reset error list.
      */
     public void resetErrorList() {
+        flushErrors();
         try {
-            errorListLock.lock();
-            errorList.clear();
+            lockStructure();
+            resetErrorListLocked();
         } finally {
-            errorListLock.unlock();
+            unlockStructure();
         }
     }
 
+    private void resetErrorListLocked() {
+        errorList = new HealthErrorRingBuffer(errorListMaxSize);
+        HealthErrorSampler sampler = errorSampler;
+        if (sampler != null) {
+            sampler.reset();
+        }
+        errorAggregateMap.clear();
+        errorAggregateList.clear();
+        errorAggregateOverflow = null;
+        incrementModificationCountBase(1L);
+        markStructureChanged();
+    }
+
     /**
      * Reset all statistic data maps.
+     * Entries of default keys and of keys with a counter handle (see {@link #counter(String)}) are kept
+     * and set to zero, so handles stay valid. All other keys are removed.
      */
     public void resetStatisticData() {
         try {
-            statisticDataLock.lock();
-            statisticDataKeyList.clear();
-            statisticDataCounterMap.clear();
-            statisticDataTimestampMap.clear();
-            for (String statisticDataKey : defaultStatisticDataKeyList) {
-                addStatisticDataKey(statisticDataKey);
-            }
+            lockStructure();
+            resetStatisticDataLocked();
         } finally {
-            statisticDataLock.unlock();
+            unlockStructure();
+        }
+
+        for (HealthProcessStatisticDataListener listener : listenerList) {
+            listener.statisticDataReset();
+        }
+    }
+
+    private void resetStatisticDataLocked() {
+        List<HealthProcessStatisticDataEntry> entryList = new ArrayList<>(defaultStatisticDataKeyList.size());
+        for (String statisticDataKey : defaultStatisticDataKeyList) {
+            HealthProcessStatisticDataEntry entry = statisticDataEntryMap.get(statisticDataKey);
+            if (entry == null) {
+                entry = new HealthProcessStatisticDataEntry(statisticDataKey);
+                entry.setRateWindow(createRateWindow());
+            }
+            entryList.add(entry);
         }
+        for (HealthProcessStatisticDataEntry entry : statisticDataEntryList) {
+            if (entry.isPinned() && !defaultStatisticDataKeyList.contains(entry.getStatisticDataKey())) {
+                entryList.add(entry);
+            }
+        }
+
+        incrementModificationCountBase(sumCounters() + sumDurationCounts() + 1L);
+        statisticDataEntryList.clear();
+        statisticDataEntryMap.clear();
+        for (HealthProcessStatisticDataEntry entry : entryList) {
+            entry.reset();
+            statisticDataEntryList.add(entry);
+            statisticDataEntryMap.put(entry.getStatisticDataKey(), entry);
+        }
+        durationKeyList.clear();
+        durationHistogramMap.clear();
+        keyOverflowEntry = null;
+        keyRejectedSet.clear();
+        markStructureChanged();
     }
 
     /**
-     * Add statistic data key.
-     *
-     * @param statisticDataKey Name of statistic data key
+     * Take statistic data lock for a structural change, readers of snapshots retry while it is in progress.
+     * Nested structural changes count as one.
      */
-    protected void addStatisticDataKey(final String statisticDataKey) {
-        if (!statisticDataKeyList.contains(statisticDataKey)) {
-            statisticDataKeyList.add(statisticDataKey);
-            statisticDataCounterMap.put(statisticDataKey, 0L);
-            statisticDataTimestampMap.put(statisticDataKey, null);
+    private void lockStructure() {
+        statisticDataLock.lock();
+        if (statisticDataLock.getHoldCount() == 1) {
+            structureVersion.incrementAndGet();
         }
     }
 
+    private void unlockStructure() {
+        if (statisticDataLock.getHoldCount() == 1) {
+            structureVersion.incrementAndGet();
+        }
+        statisticDataLock.unlock();
+    }
+
     /**
-     * Increment health process statistic data key value. Stores also timestamp of event.
+     * Returns version of structure, odd while a structural change is in progress.
      *
-     * @param statisticDataKey of health process statistic data to increment
+     * @return Structure version
      */
-    public void incrementCounter(final Enum<?> statisticDataKey) {
-        incrementCounter(statisticDataKey.toString());
+    long getStructureVersion() {
+        return structureVersion.get();
     }
 
     /**
-     * Increment health process statistic data key value. Stores also timestamp of event.
+     * Returns number of holds of the statistic data lock by the current thread, e.g. to check listeners in tests.
      *
-     * @param statisticDataKey of health process statistic data to increment
+     * @return Hold count, 0 if the lock is not held by the current thread
      */
-    public void incrementCounter(final String statisticDataKey) {
-        try {
-            statisticDataLock.lock();
+    int getStatisticDataLockHoldCount() {
+        return statisticDataLock.getHoldCount();
+    }
+
+    /**
+     * Record structural change, so the next delta contains all statistic data. Called with structure lock held.
+     */
+    private void markStructureChanged() {
+        structureChangeVersion = changeVersion.getAndIncrement();
+    }
 
-            addStatisticDataKey(statisticDataKey);
+    /**
+     * Stamp entry with the current change version. The change version is read again after stamping
+     * and the stamp moved forward if it changed meanwhile, so a concurrent delta never misses the change.
+     *
+     * @param entry Entry of changed statistic data key
+     */
+    void markChanged(final HealthProcessStatisticDataEntry entry) {
+        long version;
+        do {
+            version = changeVersion.get();
+            entry.markChanged(version);
+        } while (changeVersion.get() != version);
+    }
 
-            Long counter = statisticDataCounterMap.get(statisticDataKey);
-            statisticDataCounterMap.put(statisticDataKey, ++counter);
-            statisticDataTimestampMap.put(statisticDataKey, OffsetDateTime.now());
-        } finally {
-            statisticDataLock.unlock();
-        }
+    /**
+     * Stamp entry after an event with the event sequence and the current change version.
+     *
+     * @param entry Entry of statistic data key with event
+     */
+    void markEvent(final HealthProcessStatisticDataEntry entry) {
+        entry.markEventSequence(eventSequence);
+        markChanged(entry);
     }
 
     /**
-     * Returns all statistic data attributes as map.
+     * Add statistic data key.
      *
-     * @return Map of all statistic data attributes
+     * @param statisticDataKey Name of statistic data key
      */
-    public LinkedHashMap<String, Object> getHealthProcessStatisticDataMap() {
-        LinkedHashMap<String, Object> map = new LinkedHashMap<>(statisticDataKeyList.size() * 2 + 2);
+    protected void addStatisticDataKey(final String statisticDataKey) {
+        getStatisticDataEntry(statisticDataKey);
+    }
 
-        map.put("serviceStartTimestamp", serviceStartTimestamp);
+    /**
+     * Returns entry of statistic data key, adds statistic data key if not registered yet.
+     * Only the registration of a new key takes the statistic data lock.
+     * If max numbers of keys is reached, the entry of the overflow key is returned instead, without taking the lock.
+     *
+     * @param statisticDataKey Name of statistic data key
+     * @return Entry of statistic data key
+     */
+    private HealthProcessStatisticDataEntry getStatisticDataEntry(final String statisticDataKey) {
+        HealthProcessStatisticDataEntry entry = statisticDataEntryMap.get(statisticDataKey);
+        if (entry != null) {
+            return entry;
+        }
 
-        try {
-            errorListLock.lock();
-            map.put("errorList", errorList);
-        } finally {
-            errorListLock.unlock();
+        evictIdleKeysIfDue();
+
+        // max numbers of keys reached: overflow entry without lock, so a burst of new keys does not serialize callers
+        HealthProcessStatisticDataEntry overflowEntry = keyOverflowEntry;
+        if (overflowEntry != null) {
+            countRejectedKey(statisticDataKey);
+            return overflowEntry;
         }
 
+        String addedKey = null;
         try {
             statisticDataLock.lock();
-            for (String statisticDataKey : statisticDataKeyList) {
-                map.put(statisticDataKey + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_COUNTER,
-                        statisticDataCounterMap.get(statisticDataKey));
-                map.put(statisticDataKey + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_TIMESTAMP,
-                        statisticDataTimestampMap.get(statisticDataKey));
+            entry = statisticDataEntryMap.get(statisticDataKey);
+            if (entry == null) {
+                String key = statisticDataKey;
+                boolean rejected = isKeyMaxSizeReached();
+                if (rejected) {
+                    countRejectedKey(statisticDataKey);
+                    key = STATISTIC_DATA_KEY_OVERFLOW;
+                    entry = statisticDataEntryMap.get(key);
+                }
+                if (entry == null) {
+                    entry = new HealthProcessStatisticDataEntry(key);
+                    entry.setRateWindow(createRateWindow());
+                    entry.setRegistrationTimestamp(clock.millis());
+                    statisticDataEntryList.add(entry);
+                    statisticDataEntryMap.put(key, entry);
+                    addedKey = key;
+                    incrementModificationCountBase(1L);
+                }
+                if (rejected) {
+                    keyOverflowEntry = entry;
+                }
             }
         } finally {
             statisticDataLock.unlock();
         }
 
-        return map;
+        if (addedKey != null) {
+            for (HealthProcessStatisticDataListener listener : listenerList) {
+                listener.statisticDataKeyAdded(addedKey);
+            }
+        }
+        return entry;
     }
 
-
     /**
-     * Add error event.
+     * Count rejected statistic data key, each key once as long as it is in the set of recently rejected keys.
      *
-     * @param function         Function where error event occurred
-     * @param returnCode       Return code of error event
-     * @param messageText      Message text of error event
-     * @param instructionText  Instruction text for error event
-     * @param referenceId      Reference IDs of error event
+     * @param statisticDataKey Rejected statistic data key
      */
-    public void addError(final String function,
-            final String returnCode,
-            final String messageText,
-            final String instructionText,
-            final String referenceId) {
-        addError(new HealthErrorData(function,
-                returnCode,
-                messageText,
-                instructionText,
-                referenceId));
+    private void countRejectedKey(final String statisticDataKey) {
+        if (keyRejectedSet.contains(statisticDataKey)) {
+            return;
+        }
+        if (keyRejectedSet.size() >= KEY_REJECTED_SET_MAX_SIZE) {
+            keyRejectedSet.clear();  // bounded memory, keys rejected before may be counted again
+        }
+        if (keyRejectedSet.add(statisticDataKey)) {
+            keyRejectedCounter.increment();
+        }
     }
 
     /**
-     * Add error event.
+     * Check max numbers of keys is reached, the overflow key is not counted. Must be called holding the lock.
      *
-     * @param function         Function where error event occurred
-     * @param returnCode       Return code of error event
-     * @param messageText      Message text of error event
+     * @return true if a new key must be rejected
      */
-    public void addError(final String function,
-            final String returnCode,
-            final String messageText) {
-        addError(new HealthErrorData(function,
-                returnCode,
-                messageText));
+    private boolean isKeyMaxSizeReached() {
+        int max = keyMaxSize;
+        if (max <= 0) {
+            return false;
+        }
+        int size = statisticDataEntryMap.size() - (statisticDataEntryMap.containsKey(STATISTIC_DATA_KEY_OVERFLOW) ? 1 : 0);
+        return size >= max;
     }
 
     /**
-     * Add error event.
-     *
-     * @param healthErrorData health error data
+     * Evict idle keys if idle eviction is enabled and the last eviction is long enough ago.
+     * Called on registration of new keys and on reading the details, so no background thread is needed.
      */
-    public void addError(final HealthErrorData healthErrorData) {
+    public void evictIdleKeysIfDue() {
+        Duration idleTimeout = keyIdleTimeout;
+        if (idleTimeout.isZero()) {
+            return;
+        }
+        long now = clock.millis();
+        if (now < nextKeyEvictionTimestamp) {
+            return;
+        }
+        nextKeyEvictionTimestamp = now + Math.max(KEY_EVICTION_MIN_INTERVAL_MILLIS, idleTimeout.toMillis() / 2L);
+        evictIdleKeys();
+    }
 
-        if (healthErrorData.getTimestamp() == null) {
-            healthErrorData.setTimestamp(OffsetDateTime.now());
+    /**
+     * Evict keys without event for the configured idle timeout. Default keys and keys with a counter handle
+     * are never evicted. An event of an evicted key, which occurs while it is evicted, may be lost.
+     *
+     * @return Number of evicted keys
+     */
+    public int evictIdleKeys() {
+        Duration idleTimeout = keyIdleTimeout;
+        if (idleTimeout.isZero()) {
+            return 0;
         }
 
+        List<String> evictedKeys = new ArrayList<>();
         try {
-            errorListLock.lock();
-
-            if (errorList.size() == errorListMaxSize) {
-                // max list size reached, remove the oldest entry
-                errorList.remove(0);
+            lockStructure();
+            long idleSince = clock.millis() - idleTimeout.toMillis();
+            List<HealthProcessStatisticDataEntry> evictedEntries = new ArrayList<>();
+            long evictedCounters = 0L;
+            for (HealthProcessStatisticDataEntry entry : statisticDataEntryList) {
+                if (!entry.isPinned()
+                        && !defaultStatisticDataKeyList.contains(entry.getStatisticDataKey())
+                        && entry.getLastActivityTimestamp() < idleSince) {
+                    evictedEntries.add(entry);
+                    evictedKeys.add(entry.getStatisticDataKey());
+                    evictedCounters += entry.getCounter();
+                }
+            }
+            if (evictedEntries.isEmpty()) {
+                return 0;
             }
 
-            errorList.add(healthErrorData);
+            for (String evictedKey : evictedKeys) {
+                statisticDataEntryMap.remove(evictedKey);
+            }
+            statisticDataEntryList.removeAll(evictedEntries);
+            keyOverflowEntry = null;  // evicted keys make room for new keys
+            keyEvictedCounter.add(evictedKeys.size());
+            incrementModificationCountBase(evictedCounters + 1L);  // counters leave the sum, count must not decrease
+            markStructureChanged();
         } finally {
-            errorListLock.unlock();
+            unlockStructure();
         }
 
-        incrementCounter(HealthProcessStatisticDataKey.error.toString());
+        for (HealthProcessStatisticDataListener listener : listenerList) {
+            listener.statisticDataKeysRemoved(evictedKeys);
+        }
+        return evictedKeys.size();
     }
 
-    // Getter + setter
-
-    public OffsetDateTime getServiceStartTimestamp() {
-        return serviceStartTimestamp;
+    /**
+     * Restore counter and timestamp of statistic data key, e.g. of a previous run of the service.
+     * The counter is added to the current counter, the timestamp is only moved forward.
+     *
+     * @param statisticDataKey Statistic data key
+     * @param counter          Restored counter
+     * @param timestamp        Restored timestamp in milliseconds since epoch,
+     *                         {@link HealthProcessStatisticDataEntry#NO_TIMESTAMP} if no event occurred
+     */
+    public void restoreStatisticData(final String statisticDataKey, final long counter, final long timestamp) {
+        HealthProcessStatisticDataEntry entry = getStatisticDataEntry(statisticDataKey);
+        entry.restore(counter, timestamp);
+        markChanged(entry);
     }
 
-    public void setServiceStartTimestamp(final OffsetDateTime serviceStartTimestamp) {
-        this.serviceStartTimestamp = serviceStartTimestamp;
+    /**
+     * Add listener of structural changes of statistic data.
+     *
+     * @param listener Listener
+     */
+    public void addListener(final HealthProcessStatisticDataListener listener) {
+        listenerList.addIfAbsent(listener);
     }
 
-    public int getErrorListMaxSize() {
-        return errorListMaxSize;
+    /**
+     * Remove listener of structural changes of statistic data.
+     *
+     * @param listener Listener
+     */
+    public void removeListener(final HealthProcessStatisticDataListener listener) {
+        listenerList.remove(listener);
     }
 
-    public void setErrorListMaxSize(final int errorListMaxSize) {
-        this.errorListMaxSize = errorListMaxSize;
+    /**
+     * Returns counter handle of statistic data key, adds statistic data key if not registered yet.
+     * The handle increments the counter without any key lookup and stays valid across {@link #reset()},
+     * its key is kept like a default key.
+     *
+     * @param statisticDataKey Statistic data key
+     * @return Counter handle
+     */
+    public HealthProcessStatisticCounter counter(final Enum<?> statisticDataKey) {
+        return counter(statisticDataKey.toString());
     }
 
-    public List<HealthErrorData> getErrorList() {
-        try {
-            errorListLock.lock();
-            return new ArrayList<>(errorList);
-        } finally {
-            errorListLock.unlock();
+    /**
+     * Returns counter handle of statistic data key, adds statistic data key if not registered yet.
+     * The handle increments the counter without any key lookup and stays valid across {@link #reset()},
+     * its key is kept like a default key.
+     *
+     * @param statisticDataKey Statistic data key
+     * @return Counter handle
+     */
+    public HealthProcessStatisticCounter counter(final String statisticDataKey) {
+        // entry is resolved without lock, so evictions and listeners run outside of it; the lock is only taken
+        // to pin the entry, which is repeated if the entry was evicted meanwhile
+        while (true) {
+            HealthProcessStatisticDataEntry entry = getStatisticDataEntry(statisticDataKey);
+            try {
+                statisticDataLock.lock();
+                if (statisticDataEntryMap.get(entry.getStatisticDataKey()) == entry) {
+                    entry.setPinned(true);
+                    return new HealthProcessStatisticCounter(this, entry);
+                }
+            } finally {
+                statisticDataLock.unlock();
+            }
         }
     }
 
-    public List<String> getDefaultStatisticDataKeyList() {
-        return new ArrayList<>(defaultStatisticDataKeyList);
+    /**
+     * Increment health process statistic data key value. Stores also timestamp of event.
+     *
+     * @param statisticDataKey of health process statistic data to increment
+     */
+    public void incrementCounter(final Enum<?> statisticDataKey) {
+        incrementCounter(statisticDataKey.toString());
     }
 
-    public void setDefaultStatisticDataKeyList(final List<String> defaultStatisticDataKeyList) {
-        setDefaultStatisticDataKeyList(new LinkedHashSet<>(defaultStatisticDataKeyList));
+    /**
+     * Increment health process statistic data key value. Stores also timestamp of event.
+     *
+     * @param statisticDataKey of health process statistic data to increment
+     */
+    public void incrementCounter(final String statisticDataKey) {
+        HealthProcessStatisticDataEntry entry = getStatisticDataEntry(statisticDataKey);
+        entry.increment(clock.millis());
+        markEvent(entry);
     }
 
-    public void setDefaultStatisticDataKeyList(final LinkedHashSet<String> defaultStatisticDataKeyList) {
-        try {
-            statisticDataLock.lock();
-            this.defaultStatisticDataKeyList = defaultStatisticDataKeyList;
-        } finally {
-            statisticDataLock.unlock();
+    /**
+     * Returns modification count of statistic data. The count increases with every change,
+     * e.g. increment of a counter, added error or reset, and never decreases.
+     * Cheap to read compared to {@link #getHealthProcessStatisticDataMap()}, so callers can detect
+     * whether statistic data changed since the last read.
+     *
+     * @return Modification count
+     */
+    public long getModificationCount() {
+        return modificationCountBase.get() + sumCounters() + sumDurationCounts();
+    }
+
+    /**
+     * Returns sum of all counters.
+     *
+     * @return Sum of all counters
+     */
+    private long sumCounters() {
+        long sum = 0L;
+        for (HealthProcessStatisticDataEntry entry : statisticDataEntryList) {
+            sum += entry.getCounter();
         }
+        return sum;
     }
 
-    protected List<String> getStatisticDataKeyList() {
-        try {
-            statisticDataLock.lock();
-            return new ArrayList<>(statisticDataKeyList);
-        } finally {
-            statisticDataLock.unlock();
+    /**
+     * Returns sum of numbers of recorded durations.
+     *
+     * @return Sum of numbers of recorded durations
+     */
+    private long sumDurationCounts() {
+        long sum = 0L;
+        for (HealthProcessStatisticHistogram histogram : durationHistogramMap.values()) {
+            sum += histogram.getTotalCount();
         }
+        return sum;
     }
 
-    public Long getStatisticDataCounter(Enum<?> statisticDataKey) {
-        return getStatisticDataCounter(statisticDataKey.toString());
+    /**
+     * Increment modification count of changes not reflected by the sum of counters.
+     *
+     * @param increment Increment
+     */
+    private void incrementModificationCountBase(final long increment) {
+        modificationCountBase.addAndGet(increment);
     }
 
-    public Long getStatisticDataCounter(String statisticDataKey) {
-        try {
-            statisticDataLock.lock();
-            return statisticDataCounterMap.get(statisticDataKey);
-        } finally {
-            statisticDataLock.unlock();
-        }
+    /**
+     * Returns number of events of statistic data key within the given sliding window up to now.
+     *
+     * @param statisticDataKey Statistic data key
+     * @param window           Length of window, limited to longest configured window, resolution is one second
+     * @return Number of events within window, 0 if statistic data key is not registered or rates are not enabled
+     */
+    public long getRate(final Enum<?> statisticDataKey, final Duration window) {
+        return getRate(statisticDataKey.toString(), window);
     }
 
-    public OffsetDateTime getStatisticDataTimestamp(Enum<?> statisticDataKey) {
-        return getStatisticDataTimestamp(statisticDataKey.toString());
+    /**
+     * Returns number of events of statistic data key within the given sliding window up to now.
+     *
+     * @param statisticDataKey Statistic data key
+     * @param window           Length of window, limited to longest configured window, resolution is one second
+     * @return Number of events within window, 0 if statistic data key is not registered or rates are not enabled
+     */
+    public long getRate(final String statisticDataKey, final Duration window) {
+        HealthProcessStatisticDataEntry entry = statisticDataEntryMap.get(statisticDataKey);
+        return (entry != null ? entry.getRate(clock.millis(), window.getSeconds()) : 0L);
     }
 
-    public OffsetDateTime getStatisticDataTimestamp(String statisticDataKey) {
-        try {
-            statisticDataLock.lock();
-            return statisticDataTimestampMap.get(statisticDataKey);
-        } finally {
-            statisticDataLock.unlock();
+    /**
+     * Create sliding window for longest configured window.
+     *
+     * @return Sliding window, null if rates are not enabled
+     */
+    private HealthProcessStatisticRateWindow createRateWindow() {
+        Duration[] windows = rateWindows;
+        if (windows.length == 0) {
+            return null;
+        }
+        return new HealthProcessStatisticRateWindow((int) windows[windows.length - 1].getSeconds());
+    }
+
+    /**
+     * Returns statistic data sub key of sliding window, e.g. "Rate1m", "Rate30s" or "Rate1h".
+     *
+     * @param window Length of window
+     * @return Statistic data sub key
+     */
+    private static String toRateWindowSubKey(final Duration window) {
+        long seconds = window.getSeconds();
+        if (seconds % 3600L == 0L) {
+            return HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_RATE + (seconds / 3600L) + "h";
+        }
+        if (seconds % 60L == 0L) {
+            return HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_RATE + (seconds / 60L) + "m";
         }
+        return HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_RATE + seconds + "s";
+    }
+
+    /**
+     * Returns current time of clock in milliseconds since epoch.
+     *
+     * @return Current time in milliseconds
+     */
+    long currentTimeMillis() {
+        return clock.millis();
+    }
+
+    /**
+     * Convert timestamp of entry to date time with time zone of clock.
+     *
+     * @param entry Entry of statistic data key
+     * @return Timestamp of last event, null if no event occurred yet
+     */
+    private OffsetDateTime toOffsetDateTime(final HealthProcessStatisticDataEntry entry) {
+        long timestamp = entry.getTimestamp();
+        if (timestamp == HealthProcessStatisticDataEntry.NO_TIMESTAMP) {
+            return null;
+        }
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(timestamp), clock.getZone());
+    }
+
+    /**
+     * Release resources like the thread of a coarse-grained clock and of the error queue.
+     */
+    public void close() {
+        setClock(Clock.system(clock.getZone()));
+        setErrorQueueCapacity(0);
+    }
+
+    /**
+     * Serialize statistic data, queued error events are processed before.
+     * Of the clock only zone and granularity are written, listeners are not written.
+     */
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        flushErrors();
+        out.defaultWriteObject();
+        Clock currentClock = clock;
+        out.writeObject(currentClock.getZone());
+        out.writeLong(currentClock instanceof HealthProcessStatisticCoarseClock
+                ? ((HealthProcessStatisticCoarseClock) currentClock).getGranularityMillis() : 0L);
+    }
+
+    /**
+     * Deserialize statistic data, the error queue and a coarse-grained clock are created again,
+     * other clocks are replaced by the system clock. Listeners must be added again.
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        ZoneId zone = (ZoneId) in.readObject();
+        long clockGranularity = in.readLong();
+        clock = (clockGranularity > 0L ? new HealthProcessStatisticCoarseClock(clockGranularity, zone) : Clock.system(zone));
+        listenerList = new CopyOnWriteArrayList<>();
+        errorQueue = createErrorQueue();
+    }
+
+    /**
+     * Record duration of a process function, e.g. "myFunction". Percentiles 50, 90, 99 and max
+     * are shown in details as "myFunctionDurationP50" etc. in milliseconds.
+     *
+     * @param durationKey Duration statistic key
+     * @param nanos       Duration in nanoseconds
+     */
+    public void recordDuration(final Enum<?> durationKey, final long nanos) {
+        recordDuration(durationKey.toString(), nanos);
+    }
+
+    /**
+     * Record duration of a process function, e.g. "myFunction". Percentiles 50, 90, 99 and max
+     * are shown in details as "myFunctionDurationP50" etc. in milliseconds.
+     *
+     * @param durationKey Duration statistic key
+     * @param nanos       Duration in nanoseconds
+     */
+    public void recordDuration(final String durationKey, final long nanos) {
+        getDurationHistogram(durationKey).record(nanos);
+    }
+
+    /**
+     * Returns duration histogram of duration statistic key, adds it if not registered yet.
+     *
+     * @param durationKey Duration statistic key
+     * @return Duration histogram
+     */
+    private HealthProcessStatisticHistogram getDurationHistogram(final String durationKey) {
+        HealthProcessStatisticHistogram histogram = durationHistogramMap.get(durationKey);
+        if (histogram != null) {
+            return histogram;
+        }
+
+        try {
+            statisticDataLock.lock();
+            histogram = durationHistogramMap.get(durationKey);
+            if (histogram == null) {
+                histogram = new HealthProcessStatisticHistogram();
+                durationKeyList.add(durationKey);
+                durationHistogramMap.put(durationKey, histogram);
+                incrementModificationCountBase(1L);
+            }
+            return histogram;
+        } finally {
+            statisticDataLock.unlock();
+        }
+    }
+
+    /**
+     * Returns duration of duration statistic key at percentile.
+     *
+     * @param durationKey Duration statistic key
+     * @param percentile  Percentile between 0 and 100
+     * @return Duration in nanoseconds, null if no duration was recorded
+     */
+    public Long getDurationAtPercentile(final String durationKey, final double percentile) {
+        HealthProcessStatisticHistogram histogram = durationHistogramMap.get(durationKey);
+        return (histogram != null ? histogram.getValueAtPercentile(percentile) : null);
+    }
+
+    /**
+     * Returns histogram of duration statistic key without creating it.
+     *
+     * @param durationKey Duration statistic key
+     * @return Histogram, null if no duration was recorded
+     */
+    public HealthProcessStatisticHistogram findDurationHistogram(final String durationKey) {
+        return durationHistogramMap.get(durationKey);
+    }
+
+    /**
+     * Returns all statistic data attributes as map, from one snapshot.
+     *
+     * @return Map of all statistic data attributes
+     */
+    public LinkedHashMap<String, Object> getHealthProcessStatisticDataMap() {
+        return getSnapshot().getHealthProcessStatisticDataMap();
+    }
+
+    /**
+     * Returns statistic data attributes starting with prefix as map, e.g. "myFunction" for all attributes
+     * of keys "myFunctionRequest", "myFunctionSuccess", etc. Only keys matching the prefix are read.
+     *
+     * @param prefix Prefix of statistic data attributes, null for all attributes
+     * @return Map of statistic data attributes
+     */
+    public LinkedHashMap<String, Object> getHealthProcessStatisticDataMap(final String prefix) {
+        if (prefix == null) {
+            return getHealthProcessStatisticDataMap();
+        }
+        return getSnapshot(prefix).getHealthProcessStatisticDataMap(prefix);
+    }
+
+    /**
+     * Returns statistic data attributes of given names as map, from one snapshot.
+     * Unknown attributes and attributes without value are not included.
+     *
+     * @param keys Names of statistic data attributes, e.g. "errorCounter", "myFunctionSuccessTimestamp"
+     * @return Map of statistic data attributes
+     */
+    public LinkedHashMap<String, Object> getHealthProcessStatisticDataMap(final Collection<String> keys) {
+        return getSnapshot().getHealthProcessStatisticDataMap(keys);
+    }
+
+    /**
+     * Returns snapshot of all statistic data.
+     *
+     * @return Immutable snapshot
+     */
+    public HealthProcessStatisticSnapshot getSnapshot() {
+        return getSnapshot(statisticDataKey -> true);
+    }
+
+    /**
+     * Returns snapshot of statistic data keys and duration keys matching prefix, e.g. "myFunction".
+     *
+     * @param prefix Prefix of statistic data attributes
+     * @return Immutable snapshot
+     */
+    public HealthProcessStatisticSnapshot getSnapshot(final String prefix) {
+        return getSnapshot(key -> key.startsWith(prefix) || prefix.startsWith(key));
+    }
+
+    /**
+     * Returns snapshot of given statistic data keys and duration keys, e.g. to evaluate health rules.
+     *
+     * @param statisticDataKeys Statistic data keys
+     * @return Immutable snapshot
+     */
+    public HealthProcessStatisticSnapshot getSnapshot(final Collection<String> statisticDataKeys) {
+        Set<String> keySet = new HashSet<>(statisticDataKeys);
+        return getSnapshot(keySet::contains);
+    }
+
+    /**
+     * Returns statistic data changed since the given change version, e.g. for clients polling frequently.
+     * Contains "version", to be passed as since version of the next call, and "full". If the since version is 0,
+     * unknown or a structural change (reset, eviction, change of rate windows) occurred since then, all statistic data
+     * is returned and "full" is true. Otherwise only statistic data keys with an event, error events added and
+     * all durations are returned. A change may be returned twice, but is never missed.
+     *
+     * @param sinceVersion Version returned by the previous call, 0 for all statistic data
+     * @return Map of changed statistic data attributes
+     */
+    public LinkedHashMap<String, Object> getHealthProcessStatisticDataDelta(final long sinceVersion) {
+        long version = changeVersion.getAndIncrement();
+        boolean full = sinceVersion <= 0L || sinceVersion > version || structureChangeVersion > sinceVersion;
+
+        HealthProcessStatisticSnapshot snapshot = getSnapshot(key -> {
+            if (full || durationHistogramMap.containsKey(key)) {
+                return true;
+            }
+            HealthProcessStatisticDataEntry entry = statisticDataEntryMap.get(key);
+            return entry != null && entry.getChangeVersion() > sinceVersion;
+        });
+
+        LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+        map.put("version", version);
+        map.put("full", full);
+        map.putAll(snapshot.getHealthProcessStatisticDataMap());
+        if (!full) {
+            map.put("errorList", errorList.toList(sinceVersion));
+        }
+        return map;
+    }
+
+    /**
+     * Returns current change version, see {@link #getHealthProcessStatisticDataDelta(long)}.
+     *
+     * @return Change version
+     */
+    public long getChangeVersion() {
+        return changeVersion.get();
+    }
+
+    /**
+     * Read snapshot optimistically without lock: if a structural change ran meanwhile, the read is repeated.
+     * Only after repeated conflicts the statistic data lock is taken. Writers incrementing counters are never blocked.
+     *
+     * @param keyFilter Filter of statistic data keys and duration keys
+     * @return Immutable snapshot
+     */
+    private HealthProcessStatisticSnapshot getSnapshot(final Predicate<String> keyFilter) {
+        evictIdleKeysIfDue();
+
+        for (int attempt = 0; attempt < SNAPSHOT_MAX_ATTEMPTS; attempt++) {
+            long version = structureVersion.get();
+            if ((version & 1L) == 0L) {
+                HealthProcessStatisticSnapshot snapshot = createSnapshot(keyFilter);
+                if (structureVersion.get() == version) {
+                    return snapshot;
+                }
+            }
+            Thread.yield();
+        }
+
+        try {
+            statisticDataLock.lock();
+            return createSnapshot(keyFilter);
+        } finally {
+            statisticDataLock.unlock();
+        }
+    }
+
+    private HealthProcessStatisticSnapshot createSnapshot(final Predicate<String> keyFilter) {
+        long modificationCount = getModificationCount();
+        Clock currentClock = clock;
+        long now = currentClock.millis();
+        Duration[] windows = rateWindows;
+        String[] subKeys = rateWindowSubKeys;
+        if (subKeys.length != windows.length) {
+            subKeys = Arrays.copyOf(subKeys, windows.length);
+        }
+
+        HealthProcessStatisticDataEntry[] entries = statisticDataEntryList.toArray(new HealthProcessStatisticDataEntry[0]);
+        String[] keys = new String[entries.length];
+        long[] counters = new long[entries.length];
+        long[] timestamps = new long[entries.length];
+        long[] eventSequences = new long[entries.length];
+        long[] rates = new long[entries.length * windows.length];
+        int size = 0;
+        for (HealthProcessStatisticDataEntry entry : entries) {
+            if (!keyFilter.test(entry.getStatisticDataKey())) {
+                continue;
+            }
+            keys[size] = entry.getStatisticDataKey();
+            counters[size] = entry.getCounter();
+            timestamps[size] = entry.getTimestamp();
+            eventSequences[size] = entry.getEventSequence();
+            for (int w = 0; w < windows.length; w++) {
+                rates[size * windows.length + w] = entry.getRate(now, windows[w].getSeconds());
+            }
+            size++;
+        }
+
+        String[] durationKeys = new String[durationKeyList.size()];
+        double[] durations = new double[durationKeys.length * 4];
+        int durationSize = 0;
+        for (String durationKey : durationKeyList) {
+            HealthProcessStatisticHistogram histogram = durationHistogramMap.get(durationKey);
+            if (durationSize == durationKeys.length || histogram == null || !keyFilter.test(durationKey)) {
+                continue;
+            }
+            durationKeys[durationSize] = durationKey;
+            durations[durationSize * 4] = histogram.getValueAtPercentile(50.0d) / NANOS_PER_MILLI;
+            durations[durationSize * 4 + 1] = histogram.getValueAtPercentile(90.0d) / NANOS_PER_MILLI;
+            durations[durationSize * 4 + 2] = histogram.getValueAtPercentile(99.0d) / NANOS_PER_MILLI;
+            durations[durationSize * 4 + 3] = histogram.getMax() / NANOS_PER_MILLI;
+            durationSize++;
+        }
+
+        List<HealthErrorAggregate> aggregates = getErrorAggregateList();
+        for (int i = 0; i < aggregates.size(); i++) {
+            aggregates.set(i, aggregates.get(i).copy());
+        }
+
+        return new HealthProcessStatisticSnapshot(modificationCount, now, currentClock.getZone(),
+                serviceStartTimestamp, errorListDetails, errorList.toList(), aggregates,
+                isErrorQueueEnabled(), errorDroppedCounter.sum(), getErrorSuppressedCounterMap(),
+                windows, subKeys,
+                Arrays.copyOf(keys, size), Arrays.copyOf(counters, size), Arrays.copyOf(timestamps, size),
+                Arrays.copyOf(eventSequences, size),
+                Arrays.copyOf(rates, size * windows.length),
+                isKeyGuardEnabled(), keyRejectedCounter.sum(), keyEvictedCounter.sum(),
+                Arrays.copyOf(durationKeys, durationSize), Arrays.copyOf(durations, durationSize * 4));
+    }
+
+    /**
+     * Returns value of one statistic data attribute, resolved directly without building the map,
+     * e.g. "errorCounter", "errorTimestamp", "errorRate1m" or "myFunctionDurationP99".
+     *
+     * @param key Name of statistic data attribute
+     * @return Value of attribute as in {@link #getHealthProcessStatisticDataMap()}, null if unknown or without value
+     */
+    public Object getHealthProcessStatisticDataValue(final String key) {
+        return getHealthProcessStatisticDataValue(key, clock.millis());
+    }
+
+    private Object getHealthProcessStatisticDataValue(final String key, final long now) {
+        switch (key) {
+            case "serviceStartTimestamp":
+                return serviceStartTimestamp;
+            case "errorList":
+                return (errorListDetails != ErrorListDetails.AGGREGATE ? errorList.toList() : null);
+            case "errorAggregateList":
+                return (errorListDetails != ErrorListDetails.LIST ? getErrorAggregateList() : null);
+            case "errorDroppedCounter":
+                return (isErrorQueueEnabled() ? errorDroppedCounter.sum() : null);
+            case "errorSuppressedCounter":
+                return getErrorSuppressedCounterMap();
+            case "statisticDataKeyRejectedCounter":
+                return (isKeyGuardEnabled() ? keyRejectedCounter.sum() : null);
+            case "statisticDataKeyEvictedCounter":
+                return (isKeyGuardEnabled() ? keyEvictedCounter.sum() : null);
+            default:
+                break;
+        }
+
+        HealthProcessStatisticHistogram histogram;
+        if ((histogram = findDurationHistogram(key, HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P50)) != null) {
+            return histogram.getValueAtPercentile(50.0d) / NANOS_PER_MILLI;
+        }
+        if ((histogram = findDurationHistogram(key, HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P90)) != null) {
+            return histogram.getValueAtPercentile(90.0d) / NANOS_PER_MILLI;
+        }
+        if ((histogram = findDurationHistogram(key, HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P99)) != null) {
+            return histogram.getValueAtPercentile(99.0d) / NANOS_PER_MILLI;
+        }
+        if ((histogram = findDurationHistogram(key, HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_MAX)) != null) {
+            return histogram.getMax() / NANOS_PER_MILLI;
+        }
+
+        HealthProcessStatisticDataEntry entry;
+        if ((entry = findStatisticDataEntry(key, HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_COUNTER)) != null) {
+            return entry.getCounter();
+        }
+        if ((entry = findStatisticDataEntry(key, HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_TIMESTAMP)) != null) {
+            return toOffsetDateTime(entry);
+        }
+        Duration[] windows = rateWindows;
+        String[] subKeys = rateWindowSubKeys;
+        for (int i = 0; i < windows.length && i < subKeys.length; i++) {
+            if ((entry = findStatisticDataEntry(key, subKeys[i])) != null) {
+                return entry.getRate(now, windows[i].getSeconds());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns entry of statistic data attribute name consisting of statistic data key and sub key.
+     *
+     * @param key    Name of statistic data attribute, e.g. "errorCounter"
+     * @param subKey Statistic data sub key, e.g. "Counter"
+     * @return Entry of statistic data key, null if name does not end with sub key or key is not registered
+     */
+    private HealthProcessStatisticDataEntry findStatisticDataEntry(final String key, final String subKey) {
+        if (key.length() <= subKey.length() || !key.endsWith(subKey)) {
+            return null;
+        }
+        return statisticDataEntryMap.get(key.substring(0, key.length() - subKey.length()));
+    }
+
+    private HealthProcessStatisticHistogram findDurationHistogram(final String key, final String subKey) {
+        if (key.length() <= subKey.length() || !key.endsWith(subKey)) {
+            return null;
+        }
+        return durationHistogramMap.get(key.substring(0, key.length() - subKey.length()));
+    }
+
+    /**
+     * Check key limit or idle eviction is enabled, so the rejected and evicted counters are shown in details.
+     *
+     * @return true if key max size or key idle timeout is set
+     */
+    public boolean isKeyGuardEnabled() {
+        return keyMaxSize > 0 || !keyIdleTimeout.isZero();
+    }
+
+
+
+    /**
+     * Add error event.
+     *
+     * @param function         Function where error event occurred
+     * @param returnCode       Return code of error event
+     * @param messageText      Message text of error event
+     * @param instructionText  Instruction text for error event
+     * @param referenceId      Reference IDs of error event
+     */
+    public void addError(final String function,
+            final String returnCode,
+            final String messageText,
+            final String instructionText,
+            final String referenceId) {
+        addError(new HealthErrorData(function,
+                returnCode,
+                messageText,
+                instructionText,
+                referenceId));
+    }
+
+    /**
+     * Add error event.
+     *
+     * @param function         Function where error event occurred
+     * @param returnCode       Return code of error event
+     * @param messageText      Message text of error event
+     */
+    public void addError(final String function,
+            final String returnCode,
+            final String messageText) {
+        addError(new HealthErrorData(function,
+                returnCode,
+                messageText));
+    }
+
+    /**
+     * Add error event.
+     *
+     * @param healthErrorData health error data
+     */
+    public void addError(final HealthErrorData healthErrorData) {
+
+        if (healthErrorData.getTimestamp() == null) {
+            healthErrorData.setTimestamp(OffsetDateTime.now(clock));
+        }
+
+        // counted on the calling thread, so the order of error and success timestamps is kept
+        incrementCounter(HealthProcessStatisticDataKey.error.toString());
+
+        HealthErrorQueue queue = errorQueue;
+        if (queue != null) {
+            queue.offer(healthErrorData);
+        } else {
+            addErrorEvent(healthErrorData);
+        }
+    }
+
+    /**
+     * Add error event to error list, unless suppressed by sampling, and to aggregates and notify listeners.
+     *
+     * @param healthErrorData Error event
+     */
+    private void addErrorEvent(final HealthErrorData healthErrorData) {
+
+        // sampled per function: suppressed error events are counted in the next added error event,
+        // which is a copy, so the error event of the caller is not changed by this thread
+        HealthErrorData errorEvent = healthErrorData;
+        HealthErrorSampler sampler = errorSampler;
+        long suppressedCounter = (sampler != null
+                ? sampler.sample(healthErrorData, healthErrorData.getTimestamp().toInstant().toEpochMilli()) : 0L);
+        if (suppressedCounter >= 0L) {
+            if (suppressedCounter > 0L) {
+                errorEvent = healthErrorData.copy();
+                errorEvent.setSuppressedCounter(suppressedCounter);
+            }
+            // max list size reached: ring buffer overwrites the oldest entry
+            errorList.add(errorEvent, changeVersion::get);
+        }
+
+        if (errorAggregateMaxSize > 0) {
+            getErrorAggregate(errorEvent).add(errorEvent);
+        }
+
+        for (HealthProcessStatisticDataListener listener : listenerList) {
+            listener.errorAdded(errorEvent);
+        }
+    }
+
+    /**
+     * Add batch of error events drained from the error queue.
+     *
+     * @param batch Error events
+     */
+    private void addErrorEvents(final List<HealthErrorData> batch) {
+        for (HealthErrorData healthErrorData : batch) {
+            addErrorEvent(healthErrorData);
+        }
+        incrementModificationCountBase(batch.size());
+    }
+
+    /**
+     * Process all queued error events on the calling thread, e.g. before reading the error list in tests.
+     * Does nothing if error events are processed synchronously.
+     */
+    public void flushErrors() {
+        HealthErrorQueue queue = errorQueue;
+        if (queue != null) {
+            queue.flush();
+        }
+    }
+
+    /**
+     * Returns aggregate of function and return code of error event, adds it if not registered yet.
+     * Beyond max numbers of aggregates the overflow aggregate is returned, once it exists without taking the lock.
+     *
+     * @param healthErrorData Error event
+     * @return Error aggregate
+     */
+    private HealthErrorAggregate getErrorAggregate(final HealthErrorData healthErrorData) {
+        String function = Objects.toString(healthErrorData.getFunction(), "");
+        String returnCode = Objects.toString(healthErrorData.getReturnCode(), "");
+
+        ConcurrentHashMap<String, HealthErrorAggregate> returnCodeMap = errorAggregateMap.get(function);
+        HealthErrorAggregate errorAggregate = (returnCodeMap != null ? returnCodeMap.get(returnCode) : null);
+        if (errorAggregate != null) {
+            return errorAggregate;
+        }
+
+        // max numbers of aggregates reached: overflow aggregate without lock, so an error storm does not serialize callers
+        HealthErrorAggregate overflow = errorAggregateOverflow;
+        if (overflow != null && errorAggregateList.size() >= errorAggregateMaxSize) {
+            return overflow;
+        }
+
+        try {
+            statisticDataLock.lock();
+            returnCodeMap = errorAggregateMap.get(function);
+            errorAggregate = (returnCodeMap != null ? returnCodeMap.get(returnCode) : null);
+            if (errorAggregate != null) {
+                return errorAggregate;
+            }
+
+            if (errorAggregateList.size() >= errorAggregateMaxSize) {
+                if (errorAggregateOverflow == null) {
+                    errorAggregateOverflow = new HealthErrorAggregate(ERROR_AGGREGATE_OVERFLOW, ERROR_AGGREGATE_OVERFLOW,
+                            healthErrorData);
+                }
+                return errorAggregateOverflow;
+            }
+
+            errorAggregate = new HealthErrorAggregate(function, returnCode, healthErrorData);
+            errorAggregateMap.computeIfAbsent(function, key -> new ConcurrentHashMap<>(4)).put(returnCode, errorAggregate);
+            errorAggregateList.add(errorAggregate);
+            return errorAggregate;
+        } finally {
+            statisticDataLock.unlock();
+        }
+    }
+
+    /**
+     * Returns error aggregates in order of first error event, the overflow aggregate last.
+     *
+     * @return List of error aggregates
+     */
+    public List<HealthErrorAggregate> getErrorAggregateList() {
+        HealthErrorAggregate overflow = errorAggregateOverflow;
+        List<HealthErrorAggregate> list = new ArrayList<>(errorAggregateList.size() + 1);
+        list.addAll(errorAggregateList);
+        if (overflow != null) {
+            list.add(overflow);
+        }
+        return list;
+    }
+
+    // Getter + setter
+
+    public OffsetDateTime getServiceStartTimestamp() {
+        return serviceStartTimestamp;
+    }
+
+    public void setServiceStartTimestamp(final OffsetDateTime serviceStartTimestamp) {
+        this.serviceStartTimestamp = serviceStartTimestamp;
+        incrementModificationCountBase(1L);
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Set clock used for timestamps of events. A previous coarse-grained clock is closed.
+     *
+     * @param clock Clock
+     */
+    public void setClock(final Clock clock) {
+        Clock previousClock = this.clock;
+        this.clock = clock;
+        if (previousClock != clock && previousClock instanceof HealthProcessStatisticCoarseClock) {
+            ((HealthProcessStatisticCoarseClock) previousClock).close();
+        }
+    }
+
+    /**
+     * Set granularity of clock. Granularity greater zero uses a coarse-grained clock updated by a
+     * background thread, so incrementing a counter only reads a volatile field instead of the system time.
+     * Events within one tick get equal timestamps, error and success are then compared by the sequence of events.
+     *
+     * @param clockGranularity Granularity of clock in milliseconds, 0 uses the system clock
+     */
+    @Value("${management.health.processStatistic.clock.granularity:0}")
+    public void setClockGranularity(final long clockGranularity) {
+        if (clockGranularity > 0L) {
+            setClock(new HealthProcessStatisticCoarseClock(clockGranularity, clock.getZone()));
+        } else {
+            setClock(Clock.system(clock.getZone()));
+        }
+    }
+
+    public List<Duration> getRateWindows() {
+        return Arrays.asList(rateWindows.clone());
+    }
+
+    /**
+     * Returns statistic data sub keys of sliding windows in order of {@link #getRateWindows()}, e.g. "Rate1m".
+     *
+     * @return Statistic data sub keys of sliding windows
+     */
+    public List<String> getRateWindowSubKeys() {
+        return Collections.unmodifiableList(Arrays.asList(rateWindowSubKeys));
+    }
+
+    /**
+     * Set sliding windows of event counts, maintained for every statistic data key and shown in details
+     * as e.g. "errorRate1m". Windows are rounded down to full seconds. Counts of existing windows are lost.
+     *
+     * @param rateWindows Sliding windows, empty list disables rates
+     */
+    public void setRateWindows(final List<Duration> rateWindows) {
+        TreeSet<Duration> windows = new TreeSet<>();
+        for (Duration window : rateWindows) {
+            if (window.getSeconds() <= 0L) {
+                throw new IllegalArgumentException("Rate window must be at least one second: " + window);
+            }
+            windows.add(Duration.ofSeconds(window.getSeconds()));
+        }
+
+        String[] subKeys = new String[windows.size()];
+        int i = 0;
+        for (Duration window : windows) {
+            subKeys[i++] = toRateWindowSubKey(window);
+        }
+
+        try {
+            lockStructure();
+            this.rateWindows = windows.toArray(new Duration[0]);
+            this.rateWindowSubKeys = subKeys;
+            for (HealthProcessStatisticDataEntry entry : statisticDataEntryList) {
+                entry.setRateWindow(createRateWindow());
+            }
+            incrementModificationCountBase(1L);
+            markStructureChanged();
+        } finally {
+            unlockStructure();
+        }
+    }
+
+    /**
+     * Set sliding windows of event counts.
+     *
+     * @param rateWindows Comma separated list of windows, e.g. "1m,5m,15m", empty disables rates
+     */
+    @Value("${management.health.processStatistic.rate.windows:}")
+    public void setRateWindows(final String rateWindows) {
+        List<Duration> windows = new ArrayList<>();
+        for (String window : StringUtils.commaDelimitedListToStringArray(rateWindows)) {
+            if (StringUtils.hasText(window)) {
+                windows.add(DurationStyle.detectAndParse(window.trim()));
+            }
+        }
+        setRateWindows(windows);
+    }
+
+    public int getErrorListMaxSize() {
+        return errorListMaxSize;
+    }
+
+    /**
+     * Set max numbers of entries in error list. The newest entries of the current list are kept.
+     * Errors added concurrently while resizing may be lost.
+     *
+     * @param errorListMaxSize Max numbers of entries in error list
+     */
+    @Value("${management.health.processStatistic.errorlist.maxsize:" + ERROR_LIST_DEFAULT_MAX_SIZE + "}")
+    public void setErrorListMaxSize(final int errorListMaxSize) {
+        HealthErrorRingBuffer resizedErrorList = new HealthErrorRingBuffer(errorListMaxSize);
+        for (HealthErrorData healthErrorData : errorList.toList()) {
+            resizedErrorList.add(healthErrorData);
+        }
+        this.errorListMaxSize = errorListMaxSize;
+        this.errorList = resizedErrorList;
+        incrementModificationCountBase(1L);
+    }
+
+    public int getKeyMaxSize() {
+        return keyMaxSize;
+    }
+
+    /**
+     * Set max numbers of statistic data keys. Events of further keys are counted by the overflow key "overflow".
+     * Existing keys are kept.
+     *
+     * @param keyMaxSize Max numbers of statistic data keys, 0 if not limited
+     */
+    @Value("${management.health.processStatistic.keys.maxsize:0}")
+    public void setKeyMaxSize(final int keyMaxSize) {
+        this.keyMaxSize = keyMaxSize;
+        this.keyOverflowEntry = null;  // checked again on next new key
+    }
+
+    public Duration getKeyIdleTimeout() {
+        return keyIdleTimeout;
+    }
+
+    /**
+     * Set idle timeout of statistic data keys. Keys without event for this duration are evicted,
+     * except default keys and keys with a counter handle.
+     *
+     * @param keyIdleTimeout Idle timeout, zero if keys are never evicted
+     */
+    @Value("${management.health.processStatistic.keys.idle-timeout:0}")
+    public void setKeyIdleTimeout(final Duration keyIdleTimeout) {
+        this.keyIdleTimeout = keyIdleTimeout;
+        this.nextKeyEvictionTimestamp = 0L;
+    }
+
+    public long getKeyRejectedCounter() {
+        return keyRejectedCounter.sum();
+    }
+
+    public long getKeyEvictedCounter() {
+        return keyEvictedCounter.sum();
+    }
+
+    public boolean isErrorQueueEnabled() {
+        return errorQueue != null;
+    }
+
+    public int getErrorQueueCapacity() {
+        HealthErrorQueue queue = errorQueue;
+        return (queue != null ? queue.getCapacity() : 0);
+    }
+
+    /**
+     * Set capacity of error queue. Capacity greater zero processes error events asynchronously:
+     * {@link #addError(HealthErrorData)} only counts the error and queues the error event, a background thread
+     * adds queued error events in batches to error list and aggregates and notifies listeners.
+     *
+     * @param errorQueueCapacity Max number of queued error events, rounded up to a power of two,
+     *                           0 processes error events on the calling thread
+     */
+    @Value("${management.health.processStatistic.errorlist.async.capacity:0}")
+    public void setErrorQueueCapacity(final int errorQueueCapacity) {
+        HealthErrorQueue previousQueue = errorQueue;
+        this.errorQueueCapacity = Math.max(0, errorQueueCapacity);
+        errorQueue = createErrorQueue();
+        if (previousQueue != null) {
+            previousQueue.close();
+        }
+        incrementModificationCountBase(1L);
+    }
+
+    private HealthErrorQueue createErrorQueue() {
+        return (errorQueueCapacity > 0 ? new HealthErrorQueue(errorQueueCapacity, errorQueueOverflowPolicy,
+                errorDroppedCounter, this::addErrorEvents) : null);
+    }
+
+    public HealthErrorQueue.OverflowPolicy getErrorQueueOverflowPolicy() {
+        return errorQueueOverflowPolicy;
+    }
+
+    public void setErrorQueueOverflowPolicy(final HealthErrorQueue.OverflowPolicy errorQueueOverflowPolicy) {
+        this.errorQueueOverflowPolicy = errorQueueOverflowPolicy;
+        HealthErrorQueue queue = errorQueue;
+        if (queue != null) {
+            queue.setOverflowPolicy(errorQueueOverflowPolicy);
+        }
+    }
+
+    /**
+     * Set handling of error events if the error queue is full.
+     *
+     * @param errorQueueOverflowPolicy "drop-newest" (default) or "drop-oldest"
+     */
+    @Value("${management.health.processStatistic.errorlist.async.overflow:drop-newest}")
+    public void setErrorQueueOverflowPolicy(final String errorQueueOverflowPolicy) {
+        setErrorQueueOverflowPolicy(HealthErrorQueue.OverflowPolicy.parse(errorQueueOverflowPolicy));
+    }
+
+    public long getErrorDroppedCounter() {
+        return errorDroppedCounter.sum();
+    }
+
+    /**
+     * Returns number of error events suppressed by sampling per function, not yet shown by a later added error event.
+     *
+     * @return Number of suppressed error events by function, null if error sampling is disabled
+     */
+    public LinkedHashMap<String, Long> getErrorSuppressedCounterMap() {
+        HealthErrorSampler sampler = errorSampler;
+        return (sampler != null ? sampler.getSuppressedCounterMap() : null);
+    }
+
+    public HealthErrorSampler getErrorSampler() {
+        return errorSampler;
+    }
+
+    /**
+     * Set error events per second and function added to the error list. Further error events of the function
+     * are counted as usual, but not added to the error list; the next added error event shows their number
+     * as "suppressedCounter".
+     *
+     * @param errorSamplingRate Error events per second and function, 0 (default) adds all error events
+     */
+    @Value("${management.health.processStatistic.errorlist.sampling.rate:0}")
+    public void setErrorSamplingRate(final double errorSamplingRate) {
+        this.errorSamplingRate = errorSamplingRate;
+        updateErrorSampler();
+    }
+
+    /**
+     * Set max number of error events per function added to the error list at once after a quiet period.
+     *
+     * @param errorSamplingBurst Burst size, at least 1
+     */
+    @Value("${management.health.processStatistic.errorlist.sampling.burst:" + ERROR_SAMPLING_DEFAULT_BURST + "}")
+    public void setErrorSamplingBurst(final int errorSamplingBurst) {
+        this.errorSamplingBurst = errorSamplingBurst;
+        updateErrorSampler();
+    }
+
+    /**
+     * Set error events per second added to the error list of single functions, overriding the sampling rate.
+     *
+     * @param errorSamplingFunctionRates Comma separated function=rate pairs, e.g. "myFunction=5, otherFunction=0",
+     *                                   rate 0 adds all error events of the function
+     */
+    @Value("${management.health.processStatistic.errorlist.sampling.functions:}")
+    public void setErrorSamplingFunctionRates(final String errorSamplingFunctionRates) {
+        this.errorSamplingFunctionRateMap = HealthErrorSampler.parseFunctionRates(errorSamplingFunctionRates);
+        updateErrorSampler();
+    }
+
+    private void updateErrorSampler() {
+        boolean enabled = errorSamplingRate > 0.0d || errorSamplingFunctionRateMap.values().stream().anyMatch(rate -> rate > 0.0d);
+        errorSampler = (enabled
+                ? new HealthErrorSampler(errorSamplingRate, errorSamplingBurst, errorSamplingFunctionRateMap) : null);
+    }
+
+    public int getErrorAggregateMaxSize() {
+        return errorAggregateMaxSize;
+    }
+
+    /**
+     * Set max numbers of error aggregates. Existing aggregates are kept, error events of further
+     * function and return code combinations are counted in one overflow aggregate.
+     *
+     * @param errorAggregateMaxSize Max numbers of error aggregates, 0 disables aggregation
+     */
+    @Value("${management.health.processStatistic.errorlist.aggregate.maxsize:" + ERROR_AGGREGATE_DEFAULT_MAX_SIZE + "}")
+    public void setErrorAggregateMaxSize(final int errorAggregateMaxSize) {
+        this.errorAggregateMaxSize = errorAggregateMaxSize;
+    }
+
+    public ErrorListDetails getErrorListDetails() {
+        return errorListDetails;
+    }
+
+    public void setErrorListDetails(final ErrorListDetails errorListDetails) {
+        this.errorListDetails = errorListDetails;
+        incrementModificationCountBase(1L);
+    }
+
+    /**
+     * Set error details shown in health details.
+     *
+     * @param errorListDetails "list" (default), "aggregate" or "both"
+     */
+    @Value("${management.health.processStatistic.errorlist.details:list}")
+    public void setErrorListDetails(final String errorListDetails) {
+        setErrorListDetails(ErrorListDetails.valueOf(errorListDetails.trim().toUpperCase(Locale.ROOT)));
+    }
+
+    public List<HealthErrorData> getErrorList() {
+        return errorList.toList();
+    }
+
+    public List<String> getDefaultStatisticDataKeyList() {
+        return new ArrayList<>(defaultStatisticDataKeyList);
+    }
+
+    public void setDefaultStatisticDataKeyList(final List<String> defaultStatisticDataKeyList) {
+        setDefaultStatisticDataKeyList(new LinkedHashSet<>(defaultStatisticDataKeyList));
+    }
+
+    public void setDefaultStatisticDataKeyList(final LinkedHashSet<String> defaultStatisticDataKeyList) {
+        try {
+            statisticDataLock.lock();
+            this.defaultStatisticDataKeyList = defaultStatisticDataKeyList;
+        } finally {
+            statisticDataLock.unlock();
+        }
+    }
+
+    /**
+     * Returns all registered statistic data keys in order of registration.
+     *
+     * @return List of statistic data keys
+     */
+    public List<String> getStatisticDataKeyList() {
+        List<String> statisticDataKeyList = new ArrayList<>(statisticDataEntryList.size());
+        for (HealthProcessStatisticDataEntry entry : statisticDataEntryList) {
+            statisticDataKeyList.add(entry.getStatisticDataKey());
+        }
+        return statisticDataKeyList;
+    }
+
+    /**
+     * Returns entries of all registered statistic data keys in order of registration, e.g. to write them
+     * without building the details map.
+     *
+     * @return Unmodifiable list of entries
+     */
+    public List<HealthProcessStatisticDataEntry> getStatisticDataEntryList() {
+        return Collections.unmodifiableList(statisticDataEntryList);
+    }
+
+    public int getErrorListSize() {
+        return errorList.size();
+    }
+
+    public Long getStatisticDataCounter(Enum<?> statisticDataKey) {
+        return getStatisticDataCounter(statisticDataKey.toString());
+    }
+
+    public Long getStatisticDataCounter(String statisticDataKey) {
+        HealthProcessStatisticDataEntry entry = statisticDataEntryMap.get(statisticDataKey);
+        return (entry != null ? entry.getCounter() : null);
+    }
+
+    /**
+     * Returns counter of statistic data key without boxing.
+     *
+     * @param statisticDataKey Statistic data key
+     * @return Counter, 0 if statistic data key is not registered
+     */
+    public long getStatisticDataCounterValue(String statisticDataKey) {
+        HealthProcessStatisticDataEntry entry = statisticDataEntryMap.get(statisticDataKey);
+        return (entry != null ? entry.getCounter() : 0L);
+    }
+
+    /**
+     * Returns timestamp of last event of statistic data key without creating a date time object.
+     *
+     * @param statisticDataKey Statistic data key
+     * @return Timestamp in milliseconds since epoch, {@link HealthProcessStatisticDataEntry#NO_TIMESTAMP}
+     *         if no event occurred yet or statistic data key is not registered
+     */
+    public long getStatisticDataTimestampMillis(String statisticDataKey) {
+        HealthProcessStatisticDataEntry entry = statisticDataEntryMap.get(statisticDataKey);
+        return (entry != null ? entry.getTimestamp() : HealthProcessStatisticDataEntry.NO_TIMESTAMP);
+    }
+
+    /**
+     * Returns event sequence of last event of statistic data key, orders events with equal timestamps.
+     *
+     * @param statisticDataKey Statistic data key
+     * @return Event sequence, 0 if unknown or statistic data key is not registered
+     */
+    public long getStatisticDataEventSequence(String statisticDataKey) {
+        HealthProcessStatisticDataEntry entry = statisticDataEntryMap.get(statisticDataKey);
+        return (entry != null ? entry.getEventSequence() : 0L);
+    }
+
+    public OffsetDateTime getStatisticDataTimestamp(Enum<?> statisticDataKey) {
+        return getStatisticDataTimestamp(statisticDataKey.toString());
+    }
+
+    public OffsetDateTime getStatisticDataTimestamp(String statisticDataKey) {
+        HealthProcessStatisticDataEntry entry = statisticDataEntryMap.get(statisticDataKey);
+        return (entry != null ? toOffsetDateTime(entry) : null);
+    }
+
+    /**
+     * Returns entry of statistic data key without registering it.
+     *
+     * @param statisticDataKey Statistic data key
+     * @return Entry, null if statistic data key is not registered
+     */
+    public HealthProcessStatisticDataEntry findStatisticDataEntry(String statisticDataKey) {
+        return statisticDataEntryMap.get(statisticDataKey);
+    }
+
+    public OffsetDateTime getStatisticDataTimestamp(HealthProcessStatisticDataEntry entry) {
+        return toOffsetDateTime(entry);
+    }
+
+    /**
+     * Returns all duration statistic keys in order of registration.
+     *
+     * @return Unmodifiable list of duration statistic keys
+     */
+    public List<String> getDurationKeyList() {
+        return Collections.unmodifiableList(durationKeyList);
     }
 }
@@ -0,0 +1,236 @@
+package com.iksgmbh.actuator.health.procstat.model;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * counter and timestamp of one statistic data key.
+ * Counter is striped ({@link LongAdder}), so concurrent increments of the same key
+ * do not serialize on a common lock or memory cell. Timestamp is kept as epoch milliseconds.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthProcessStatisticDataEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Constants
+    /** Timestamp value if no event occurred yet. */
+    public final static long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private static final AtomicLongFieldUpdater<HealthProcessStatisticDataEntry> TIMESTAMP_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(HealthProcessStatisticDataEntry.class, "timestamp");
+
+    private static final AtomicLongFieldUpdater<HealthProcessStatisticDataEntry> CHANGE_VERSION_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(HealthProcessStatisticDataEntry.class, "changeVersion");
+
+    /** Name of statistic data key. */
+    private final String statisticDataKey;
+
+    /** Counter of statistic data key. */
+    private final LongAdder counter = new LongAdder();
+
+    /** Timestamp of last event in milliseconds since epoch, {@link #NO_TIMESTAMP} if no event occurred yet. */
+    private volatile long timestamp = NO_TIMESTAMP;
+
+    /** Sequence of last event among all statistic data keys, orders events with equal timestamps, 0 if unknown. */
+    private volatile long eventSequence;
+
+    /** Change version of last event, see {@link HealthProcessStatisticData#getChangeVersion()}. */
+    private volatile long changeVersion;
+
+    /** Timestamp of registration of statistic data key in milliseconds since epoch, used for idle eviction. */
+    private volatile long registrationTimestamp = NO_TIMESTAMP;
+
+    /** Entry is referenced by a counter handle and must survive a reset. */
+    private volatile boolean pinned;
+
+    /** Sliding window of event counts, null if rates are not enabled. */
+    private volatile HealthProcessStatisticRateWindow rateWindow;
+
+
+    /**
+     * Constructor.
+     *
+     * @param statisticDataKey Name of statistic data key
+     */
+    public HealthProcessStatisticDataEntry(final String statisticDataKey) {
+        super();
+        this.statisticDataKey = statisticDataKey;
+    }
+
+    /**
+     * Increment counter and store timestamp of event.
+     * Timestamp is only moved forward, so concurrent increments never set an older timestamp.
+     *
+     * @param eventTimestamp Timestamp of event in milliseconds since epoch
+     */
+    public void increment(final long eventTimestamp) {
+        counter.increment();
+
+        HealthProcessStatisticRateWindow window = rateWindow;
+        if (window != null) {
+            window.increment(eventTimestamp);
+        }
+
+        long lastTimestamp;
+        while ((lastTimestamp = timestamp) < eventTimestamp) {
+            if (TIMESTAMP_UPDATER.compareAndSet(this, lastTimestamp, eventTimestamp)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Store next event sequence, if another statistic data key had an event since the last event of this key.
+     * A key with consecutive events only reads the common sequence.
+     *
+     * @param sequence Common event sequence of all statistic data keys
+     */
+    void markEventSequence(final AtomicLong sequence) {
+        if (eventSequence != sequence.get()) {
+            eventSequence = sequence.incrementAndGet();
+        }
+    }
+
+    /**
+     * Check event of this key occurred after or at the same time as the event of the other key.
+     * Events with equal timestamps, e.g. within one tick of a coarse-grained clock, are ordered by event sequence.
+     *
+     * @param timestamp          Timestamp of event in milliseconds since epoch
+     * @param eventSequence      Event sequence of event, 0 if unknown
+     * @param otherTimestamp     Timestamp of other event in milliseconds since epoch
+     * @param otherEventSequence Event sequence of other event, 0 if unknown
+     * @return true if event is not before the other event
+     */
+    public static boolean isNotBefore(final long timestamp, final long eventSequence,
+            final long otherTimestamp, final long otherEventSequence) {
+        return timestamp > otherTimestamp || (timestamp == otherTimestamp && eventSequence >= otherEventSequence);
+    }
+
+    /**
+     * Store change version of event. The change version is only moved forward and written only if it changed,
+     * so it costs one volatile read per event if the key changes often.
+     *
+     * @param version Current change version
+     */
+    void markChanged(final long version) {
+        long lastVersion;
+        while ((lastVersion = changeVersion) < version) {
+            if (CHANGE_VERSION_UPDATER.compareAndSet(this, lastVersion, version)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Reset counter and timestamp.
+     */
+    public void reset() {
+        counter.reset();
+        timestamp = NO_TIMESTAMP;
+        eventSequence = 0L;
+
+        HealthProcessStatisticRateWindow window = rateWindow;
+        if (window != null) {
+            window.reset();
+        }
+    }
+
+    /**
+     * Add restored counter and timestamp, e.g. of a previous run of the service.
+     *
+     * @param restoredCounter   Restored counter
+     * @param restoredTimestamp Restored timestamp in milliseconds since epoch or {@link #NO_TIMESTAMP}
+     */
+    void restore(final long restoredCounter, final long restoredTimestamp) {
+        counter.add(restoredCounter);
+
+        long lastTimestamp;
+        while ((lastTimestamp = timestamp) < restoredTimestamp) {
+            if (TIMESTAMP_UPDATER.compareAndSet(this, lastTimestamp, restoredTimestamp)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns number of events within window ending at given time.
+     *
+     * @param timestamp     End of window in milliseconds since epoch
+     * @param windowSeconds Length of window in seconds
+     * @return Number of events within window, 0 if rates are not enabled
+     */
+    public long getRate(final long timestamp, final long windowSeconds) {
+        HealthProcessStatisticRateWindow window = rateWindow;
+        return (window != null ? window.getCount(timestamp, windowSeconds) : 0L);
+    }
+
+    @Override
+    public String toString() {
+        return "HealthProcessStatisticDataEntry{" +
+               "statisticDataKey='" + statisticDataKey + "'" +
+               ", counter=" + counter.sum() +
+               ", timestamp=" + timestamp +
+               "}";
+    }
+
+    // Getter + setter
+
+    public String getStatisticDataKey() {
+        return statisticDataKey;
+    }
+
+    public long getCounter() {
+        return counter.sum();
+    }
+
+    public long getChangeVersion() {
+        return changeVersion;
+    }
+
+    public long getEventSequence() {
+        return eventSequence;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public boolean hasTimestamp() {
+        return timestamp != NO_TIMESTAMP;
+    }
+
+    /**
+     * Returns timestamp of last activity, i.e. last event or registration of statistic data key.
+     *
+     * @return Timestamp in milliseconds since epoch, {@link #NO_TIMESTAMP} if unknown
+     */
+    public long getLastActivityTimestamp() {
+        return Math.max(timestamp, registrationTimestamp);
+    }
+
+    void setRegistrationTimestamp(final long registrationTimestamp) {
+        this.registrationTimestamp = registrationTimestamp;
+    }
+
+    public boolean isPinned() {
+        return pinned;
+    }
+
+    void setPinned(final boolean pinned) {
+        this.pinned = pinned;
+    }
+
+    public HealthProcessStatisticRateWindow getRateWindow() {
+        return rateWindow;
+    }
+
+    void setRateWindow(final HealthProcessStatisticRateWindow rateWindow) {
+        this.rateWindow = rateWindow;
+    }
+}
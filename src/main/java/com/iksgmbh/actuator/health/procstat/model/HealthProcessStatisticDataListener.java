@@ -0,0 +1,44 @@
+package com.iksgmbh.actuator.health.procstat.model;
+
+import java.util.List;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * listener of structural changes of statistic data, e.g. to register metrics of new keys, and of errors.
+ * Listeners are called outside of the statistic data lock and must not block.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public interface HealthProcessStatisticDataListener {
+
+    /**
+     * Statistic data key was added.
+     *
+     * @param statisticDataKey Name of statistic data key
+     */
+    default void statisticDataKeyAdded(final String statisticDataKey) {
+    }
+
+    /**
+     * Statistic data keys were removed, e.g. evicted because they were idle.
+     *
+     * @param statisticDataKeys Names of removed statistic data keys
+     */
+    default void statisticDataKeysRemoved(final List<String> statisticDataKeys) {
+    }
+
+    /**
+     * Statistic data was reset, keys which are not default keys or pinned by a counter handle are removed.
+     */
+    default void statisticDataReset() {
+    }
+
+    /**
+     * Error event was added to error list.
+     *
+     * @param healthErrorData Error event
+     */
+    default void errorAdded(final HealthErrorData healthErrorData) {
+    }
+}
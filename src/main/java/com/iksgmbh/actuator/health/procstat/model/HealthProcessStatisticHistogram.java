@@ -0,0 +1,139 @@
+package com.iksgmbh.actuator.health.procstat.model;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * log-linear histogram of durations of one statistic data key.
+ * Values below 32 have their own bucket, above each power of two is split into 32 linear
+ * sub-buckets, so the relative error of a percentile is about 3% with fixed memory
+ * for all non-negative long values. Recording is lock-free.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthProcessStatisticHistogram implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Constants
+    private final static int SUB_BUCKET_BITS = 5;
+    private final static int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private final static int BUCKET_COUNT = SUB_BUCKET_COUNT + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    /** Counts of buckets. */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /** Number of recorded values. */
+    private final LongAdder totalCount = new LongAdder();
+
+    /** Max recorded value. */
+    private final AtomicLong max = new AtomicLong();
+
+
+    /**
+     * Constructor.
+     */
+    public HealthProcessStatisticHistogram() {
+        super();
+    }
+
+    /**
+     * Record value.
+     *
+     * @param value Value, e.g. duration in nanoseconds, negative values are recorded as 0
+     */
+    public void record(final long value) {
+        long v = Math.max(0L, value);
+        counts.incrementAndGet(bucketIndex(v));
+        totalCount.increment();
+
+        long currentMax;
+        while ((currentMax = max.get()) < v) {
+            if (max.compareAndSet(currentMax, v)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns value at percentile.
+     *
+     * @param percentile Percentile between 0 and 100
+     * @return Value at percentile (middle of its bucket or max value in last bucket), 0 if nothing recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        long total = totalCount.sum();
+        if (total == 0L) {
+            return 0L;
+        }
+
+        long target = Math.max(1L, (long) Math.ceil(Math.min(100.0d, percentile) / 100.0d * total));
+        long count = 0L;
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            count += counts.get(index);
+            if (count >= total) {
+                return max.get();  // bucket of max value
+            }
+            if (count >= target) {
+                return Math.min(bucketMiddle(index), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Reset all counts.
+     */
+    public void reset() {
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            counts.set(index, 0L);
+        }
+        totalCount.reset();
+        max.set(0L);
+    }
+
+    /**
+     * Returns index of bucket of value.
+     *
+     * @param value Non-negative value
+     * @return Index of bucket
+     */
+    static int bucketIndex(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Returns middle value of bucket.
+     *
+     * @param index Index of bucket
+     * @return Middle value of bucket
+     */
+    static long bucketMiddle(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        long lowerBound = (SUB_BUCKET_COUNT + subBucket) << shift;
+        return lowerBound + ((1L << shift) >>> 1);
+    }
+
+    // Getter
+
+    public long getTotalCount() {
+        return totalCount.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+}
@@ -0,0 +1,322 @@
+package com.iksgmbh.actuator.health.procstat.model;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData.*;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * snapshot of statistic data of one or more service instances, which can be transferred as JSON and merged.
+ * <p>
+ * Merging sums counters and rates, takes the latest timestamp of each key and the earliest service start,
+ * and merges the error lists by timestamp, keeping the newest error events. Duration percentiles cannot be
+ * merged exactly, the merged value is the highest value of all instances, i.e. an upper bound.
+ * Error aggregates are not included.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthProcessStatisticMergeableSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Time of snapshot in milliseconds since epoch, the latest one of merged snapshots. */
+    private long timestampMillis;
+
+    /** Service start, the earliest one of merged snapshots. */
+    private OffsetDateTime serviceStartTimestamp;
+
+    /** Number of service instances included. */
+    private int instanceCount = 1;
+
+    private List<HealthErrorData> errorList = new ArrayList<>();
+
+    private LinkedHashMap<String, Entry> statisticData = new LinkedHashMap<>();
+
+    private LinkedHashMap<String, DurationEntry> durations = new LinkedHashMap<>();
+
+
+    /**
+     * Constructor.
+     */
+    public HealthProcessStatisticMergeableSnapshot() {
+        super();
+    }
+
+    /**
+     * Create mergeable snapshot of statistic data of this service instance.
+     *
+     * @param snapshot Snapshot of statistic data
+     * @return Mergeable snapshot
+     */
+    public static HealthProcessStatisticMergeableSnapshot of(final HealthProcessStatisticSnapshot snapshot) {
+        HealthProcessStatisticMergeableSnapshot mergeableSnapshot = new HealthProcessStatisticMergeableSnapshot();
+        mergeableSnapshot.timestampMillis = snapshot.getTimestampMillis();
+        mergeableSnapshot.serviceStartTimestamp = snapshot.getServiceStartTimestamp();
+        mergeableSnapshot.errorList.addAll(snapshot.getErrorList());
+
+        for (int i = 0; i < snapshot.getStatisticDataKeyCount(); i++) {
+            Entry entry = new Entry();
+            entry.counter = snapshot.getCounter(i);
+            long timestamp = snapshot.getTimestampMillis(i);
+            entry.timestamp = (timestamp != HealthProcessStatisticDataEntry.NO_TIMESTAMP ? timestamp : null);
+            for (int w = 0; w < snapshot.getRateWindowCount(); w++) {
+                entry.rates.put(snapshot.getRateWindowSubKey(w), snapshot.getRate(i, w));
+            }
+            mergeableSnapshot.statisticData.put(snapshot.getStatisticDataKey(i), entry);
+        }
+
+        for (int i = 0; i < snapshot.getDurationKeyCount(); i++) {
+            DurationEntry durationEntry = new DurationEntry();
+            durationEntry.p50 = snapshot.getDuration(i, 0);
+            durationEntry.p90 = snapshot.getDuration(i, 1);
+            durationEntry.p99 = snapshot.getDuration(i, 2);
+            durationEntry.max = snapshot.getDuration(i, 3);
+            mergeableSnapshot.durations.put(snapshot.getDurationKey(i), durationEntry);
+        }
+        return mergeableSnapshot;
+    }
+
+    /**
+     * Merge snapshots of several service instances.
+     *
+     * @param snapshots        Snapshots to merge, not modified
+     * @param errorListMaxSize Max numbers of error events in merged error list
+     * @return Merged snapshot, with instance count 0 if no snapshot is given
+     */
+    public static HealthProcessStatisticMergeableSnapshot merge(
+            final Collection<HealthProcessStatisticMergeableSnapshot> snapshots, final int errorListMaxSize) {
+        HealthProcessStatisticMergeableSnapshot merged = new HealthProcessStatisticMergeableSnapshot();
+        merged.instanceCount = 0;
+
+        for (HealthProcessStatisticMergeableSnapshot snapshot : snapshots) {
+            merged.timestampMillis = Math.max(merged.timestampMillis, snapshot.timestampMillis);
+            if (merged.serviceStartTimestamp == null || (snapshot.serviceStartTimestamp != null &&
+                    snapshot.serviceStartTimestamp.isBefore(merged.serviceStartTimestamp))) {
+                merged.serviceStartTimestamp = snapshot.serviceStartTimestamp;
+            }
+            merged.instanceCount += snapshot.instanceCount;
+            merged.errorList.addAll(snapshot.errorList);
+
+            for (Map.Entry<String, Entry> mapEntry : snapshot.statisticData.entrySet()) {
+                merged.statisticData.computeIfAbsent(mapEntry.getKey(), key -> new Entry()).merge(mapEntry.getValue());
+            }
+            for (Map.Entry<String, DurationEntry> mapEntry : snapshot.durations.entrySet()) {
+                merged.durations.computeIfAbsent(mapEntry.getKey(), key -> new DurationEntry()).merge(mapEntry.getValue());
+            }
+        }
+
+        // oldest first like the error list of one instance, error events without timestamp first
+        merged.errorList.sort(Comparator.comparing(HealthErrorData::getTimestamp,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        if (merged.errorList.size() > errorListMaxSize) {
+            merged.errorList = new ArrayList<>(merged.errorList.subList(
+                    merged.errorList.size() - errorListMaxSize, merged.errorList.size()));
+        }
+        return merged;
+    }
+
+    /**
+     * Returns statistic data attributes as map, named like in {@link HealthProcessStatisticData#getHealthProcessStatisticDataMap()}.
+     *
+     * @param zone Time zone of timestamps
+     * @return Map of statistic data attributes
+     */
+    public LinkedHashMap<String, Object> getHealthProcessStatisticDataMap(final ZoneId zone) {
+        LinkedHashMap<String, Object> map = new LinkedHashMap<>(statisticData.size() * 4 + durations.size() * 4 + 4);
+        map.put("serviceStartTimestamp", serviceStartTimestamp);
+        map.put("instanceCount", instanceCount);
+        map.put("errorList", errorList);
+
+        for (Map.Entry<String, Entry> mapEntry : statisticData.entrySet()) {
+            String statisticDataKey = mapEntry.getKey();
+            Entry entry = mapEntry.getValue();
+            map.put(statisticDataKey + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_COUNTER, entry.counter);
+            map.put(statisticDataKey + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_TIMESTAMP, entry.timestamp != null
+                    ? OffsetDateTime.ofInstant(Instant.ofEpochMilli(entry.timestamp), zone) : null);
+            for (Map.Entry<String, Long> rate : entry.rates.entrySet()) {
+                map.put(statisticDataKey + rate.getKey(), rate.getValue());
+            }
+        }
+
+        for (Map.Entry<String, DurationEntry> mapEntry : durations.entrySet()) {
+            String durationKey = mapEntry.getKey();
+            DurationEntry durationEntry = mapEntry.getValue();
+            map.put(durationKey + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P50, durationEntry.p50);
+            map.put(durationKey + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P90, durationEntry.p90);
+            map.put(durationKey + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P99, durationEntry.p99);
+            map.put(durationKey + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_MAX, durationEntry.max);
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "HealthProcessStatisticMergeableSnapshot{" +
+               "timestampMillis=" + timestampMillis +
+               ", instanceCount=" + instanceCount +
+               ", statisticData=" + statisticData.keySet() +
+               "}";
+    }
+
+    // Getter + setter
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public void setTimestampMillis(final long timestampMillis) {
+        this.timestampMillis = timestampMillis;
+    }
+
+    public OffsetDateTime getServiceStartTimestamp() {
+        return serviceStartTimestamp;
+    }
+
+    public void setServiceStartTimestamp(final OffsetDateTime serviceStartTimestamp) {
+        this.serviceStartTimestamp = serviceStartTimestamp;
+    }
+
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+
+    public void setInstanceCount(final int instanceCount) {
+        this.instanceCount = instanceCount;
+    }
+
+    public List<HealthErrorData> getErrorList() {
+        return errorList;
+    }
+
+    public void setErrorList(final List<HealthErrorData> errorList) {
+        this.errorList = errorList;
+    }
+
+    public LinkedHashMap<String, Entry> getStatisticData() {
+        return statisticData;
+    }
+
+    public void setStatisticData(final LinkedHashMap<String, Entry> statisticData) {
+        this.statisticData = statisticData;
+    }
+
+    public LinkedHashMap<String, DurationEntry> getDurations() {
+        return durations;
+    }
+
+    public void setDurations(final LinkedHashMap<String, DurationEntry> durations) {
+        this.durations = durations;
+    }
+
+    /**
+     * Counter, timestamp and rates of one statistic data key.
+     */
+    public static class Entry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private long counter;
+
+        /** Timestamp of last event in milliseconds since epoch, null if no event occurred. */
+        private Long timestamp;
+
+        /** Number of events per rate window, e.g. "Rate1m". */
+        private LinkedHashMap<String, Long> rates = new LinkedHashMap<>();
+
+        private void merge(final Entry other) {
+            counter += other.counter;
+            if (timestamp == null || (other.timestamp != null && other.timestamp > timestamp)) {
+                timestamp = other.timestamp;
+            }
+            for (Map.Entry<String, Long> rate : other.rates.entrySet()) {
+                rates.merge(rate.getKey(), rate.getValue(), Long::sum);
+            }
+        }
+
+        public long getCounter() {
+            return counter;
+        }
+
+        public void setCounter(final long counter) {
+            this.counter = counter;
+        }
+
+        public Long getTimestamp() {
+            return timestamp;
+        }
+
+        public void setTimestamp(final Long timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        public LinkedHashMap<String, Long> getRates() {
+            return rates;
+        }
+
+        public void setRates(final LinkedHashMap<String, Long> rates) {
+            this.rates = rates;
+        }
+    }
+
+    /**
+     * Duration percentiles of one duration key in milliseconds.
+     */
+    public static class DurationEntry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private double p50;
+        private double p90;
+        private double p99;
+        private double max;
+
+        private void merge(final DurationEntry other) {
+            p50 = Math.max(p50, other.p50);
+            p90 = Math.max(p90, other.p90);
+            p99 = Math.max(p99, other.p99);
+            max = Math.max(max, other.max);
+        }
+
+        public double getP50() {
+            return p50;
+        }
+
+        public void setP50(final double p50) {
+            this.p50 = p50;
+        }
+
+        public double getP90() {
+            return p90;
+        }
+
+        public void setP90(final double p90) {
+            this.p90 = p90;
+        }
+
+        public double getP99() {
+            return p99;
+        }
+
+        public void setP99(final double p99) {
+            this.p99 = p99;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        public void setMax(final double max) {
+            this.max = max;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.iksgmbh.actuator.health.procstat.model;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * sliding window of event counts of one statistic data key.
+ * Ring of per-second buckets, each bucket packs the second it belongs to (tag) and its count
+ * into one long, so an increment is a single compare-and-set and outdated buckets are
+ * reused without a separate clean-up.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthProcessStatisticRateWindow implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Constants
+    private final static int COUNT_BITS = 44;
+    private final static long COUNT_MASK = (1L << COUNT_BITS) - 1L;
+    private final static long TAG_MASK = (1L << (Long.SIZE - COUNT_BITS)) - 1L;
+
+    /** Buckets of ring, one per second. */
+    private final AtomicLongArray buckets;
+
+    /** Number of buckets, equals longest window in seconds. */
+    private final int size;
+
+
+    /**
+     * Constructor.
+     *
+     * @param size Number of buckets, equals longest window in seconds
+     */
+    public HealthProcessStatisticRateWindow(final int size) {
+        super();
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be greater than zero: " + size);
+        }
+        this.size = size;
+        this.buckets = new AtomicLongArray(size);
+    }
+
+    /**
+     * Count event in bucket of its second.
+     *
+     * @param timestamp Timestamp of event in milliseconds since epoch
+     */
+    public void increment(final long timestamp) {
+        long second = Math.floorDiv(timestamp, 1000L);
+        int index = (int) Math.floorMod(second, (long) size);
+        long tag = second & TAG_MASK;
+
+        while (true) {
+            long bucket = buckets.get(index);
+            long bucketTag = bucket >>> COUNT_BITS;
+            long next;
+            if (bucketTag == tag) {
+                next = bucket + 1L;
+            } else if (bucket != 0L && ((bucketTag - tag) & TAG_MASK) <= size) {
+                return;  // event is one ring older than bucket, already outside of all windows
+            } else {
+                next = (tag << COUNT_BITS) | 1L;  // bucket belongs to an older second, reuse it
+            }
+            if (buckets.compareAndSet(index, bucket, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns number of events within window ending at given time.
+     *
+     * @param timestamp     End of window in milliseconds since epoch
+     * @param windowSeconds Length of window in seconds, limited to number of buckets
+     * @return Number of events within window
+     */
+    public long getCount(final long timestamp, final long windowSeconds) {
+        long now = Math.floorDiv(timestamp, 1000L);
+        long seconds = Math.min(windowSeconds, size);
+
+        long count = 0L;
+        for (long second = now - seconds + 1L; second <= now; second++) {
+            long bucket = buckets.get((int) Math.floorMod(second, (long) size));
+            if ((bucket >>> COUNT_BITS) == (second & TAG_MASK)) {
+                count += bucket & COUNT_MASK;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reset all buckets.
+     */
+    public void reset() {
+        for (int i = 0; i < size; i++) {
+            buckets.set(i, 0L);
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,512 @@
+package com.iksgmbh.actuator.health.procstat.model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData.*;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * immutable snapshot of statistic data.
+ * <p>
+ * Created by {@link HealthProcessStatisticData#getSnapshot()} in one read, which is not interleaved with a
+ * reset, an eviction of keys or a change of rate windows. Status and details determined from the same snapshot
+ * therefore never contradict each other. Counters and timestamps are read without blocking writers, events
+ * occurring while the snapshot is created may or may not be included.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthProcessStatisticSnapshot {
+
+    // Constants
+    private final static int DURATION_VALUE_COUNT = 4;
+
+    private final long modificationCount;
+
+    /** Time of snapshot in milliseconds since epoch. */
+    private final long timestampMillis;
+
+    private final ZoneId zone;
+
+    private final OffsetDateTime serviceStartTimestamp;
+
+    private final ErrorListDetails errorListDetails;
+
+    private final List<HealthErrorData> errorList;
+
+    private final List<HealthErrorAggregate> errorAggregateList;
+
+    private final boolean errorQueueEnabled;
+
+    private final long errorDroppedCounter;
+
+    /** Pending number of suppressed error events by function, null if error sampling is disabled. */
+    private final Map<String, Long> errorSuppressedCounterMap;
+
+    private final Duration[] rateWindows;
+
+    private final String[] rateWindowSubKeys;
+
+    private final String[] statisticDataKeys;
+
+    private final long[] counters;
+
+    private final long[] timestamps;
+
+    /** Event sequences of last events per statistic data key, order events with equal timestamps. */
+    private final long[] eventSequences;
+
+    /** Rates per statistic data key and rate window, row by row. */
+    private final long[] rates;
+
+    private final boolean keyGuardEnabled;
+
+    private final long keyRejectedCounter;
+
+    private final long keyEvictedCounter;
+
+    private final String[] durationKeys;
+
+    /** P50, P90, P99 and max in milliseconds per duration key, row by row. */
+    private final double[] durations;
+
+    /** Index of statistic data keys, created on first lookup. */
+    private volatile Map<String, Integer> statisticDataKeyIndexMap;
+
+    /** Index of duration keys, created on first lookup. */
+    private volatile Map<String, Integer> durationKeyIndexMap;
+
+
+    HealthProcessStatisticSnapshot(final long modificationCount,
+            final long timestampMillis,
+            final ZoneId zone,
+            final OffsetDateTime serviceStartTimestamp,
+            final ErrorListDetails errorListDetails,
+            final List<HealthErrorData> errorList,
+            final List<HealthErrorAggregate> errorAggregateList,
+            final boolean errorQueueEnabled,
+            final long errorDroppedCounter,
+            final Map<String, Long> errorSuppressedCounterMap,
+            final Duration[] rateWindows,
+            final String[] rateWindowSubKeys,
+            final String[] statisticDataKeys,
+            final long[] counters,
+            final long[] timestamps,
+            final long[] eventSequences,
+            final long[] rates,
+            final boolean keyGuardEnabled,
+            final long keyRejectedCounter,
+            final long keyEvictedCounter,
+            final String[] durationKeys,
+            final double[] durations) {
+        this.modificationCount = modificationCount;
+        this.timestampMillis = timestampMillis;
+        this.zone = zone;
+        this.serviceStartTimestamp = serviceStartTimestamp;
+        this.errorListDetails = errorListDetails;
+        this.errorList = Collections.unmodifiableList(errorList);
+        this.errorAggregateList = Collections.unmodifiableList(errorAggregateList);
+        this.errorQueueEnabled = errorQueueEnabled;
+        this.errorDroppedCounter = errorDroppedCounter;
+        this.errorSuppressedCounterMap = (errorSuppressedCounterMap != null
+                ? Collections.unmodifiableMap(errorSuppressedCounterMap) : null);
+        this.rateWindows = rateWindows;
+        this.rateWindowSubKeys = rateWindowSubKeys;
+        this.statisticDataKeys = statisticDataKeys;
+        this.counters = counters;
+        this.timestamps = timestamps;
+        this.eventSequences = eventSequences;
+        this.rates = rates;
+        this.keyGuardEnabled = keyGuardEnabled;
+        this.keyRejectedCounter = keyRejectedCounter;
+        this.keyEvictedCounter = keyEvictedCounter;
+        this.durationKeys = durationKeys;
+        this.durations = durations;
+    }
+
+    /**
+     * Returns all statistic data attributes of snapshot as map, like {@link HealthProcessStatisticData#getHealthProcessStatisticDataMap()}.
+     *
+     * @return Map of all statistic data attributes
+     */
+    public LinkedHashMap<String, Object> getHealthProcessStatisticDataMap() {
+        return getHealthProcessStatisticDataMap((String) null);
+    }
+
+    /**
+     * Returns statistic data attributes of snapshot starting with prefix as map.
+     *
+     * @param prefix Prefix of statistic data attributes, null for all attributes
+     * @return Map of statistic data attributes
+     */
+    public LinkedHashMap<String, Object> getHealthProcessStatisticDataMap(final String prefix) {
+        int windowCount = rateWindows.length;
+        LinkedHashMap<String, Object> map = new LinkedHashMap<>(prefix != null ? 16
+                : statisticDataKeys.length * (2 + windowCount) + durationKeys.length * DURATION_VALUE_COUNT + 4);
+
+        put(map, prefix, "serviceStartTimestamp", serviceStartTimestamp);
+        if (errorListDetails != ErrorListDetails.AGGREGATE) {
+            put(map, prefix, "errorList", errorList);
+        }
+        if (errorListDetails != ErrorListDetails.LIST) {
+            put(map, prefix, "errorAggregateList", errorAggregateList);
+        }
+        if (errorQueueEnabled) {
+            put(map, prefix, "errorDroppedCounter", errorDroppedCounter);
+        }
+        if (errorSuppressedCounterMap != null) {
+            put(map, prefix, "errorSuppressedCounter", errorSuppressedCounterMap);
+        }
+
+        for (int i = 0; i < statisticDataKeys.length; i++) {
+            String statisticDataKey = statisticDataKeys[i];
+            if (prefix != null && !statisticDataKey.startsWith(prefix) && !prefix.startsWith(statisticDataKey)) {
+                continue;
+            }
+            put(map, prefix, statisticDataKey + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_COUNTER, counters[i]);
+            put(map, prefix, statisticDataKey + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_TIMESTAMP, getTimestamp(i));
+            for (int w = 0; w < windowCount; w++) {
+                put(map, prefix, statisticDataKey + rateWindowSubKeys[w], rates[i * windowCount + w]);
+            }
+        }
+
+        if (keyGuardEnabled) {
+            put(map, prefix, "statisticDataKeyRejectedCounter", keyRejectedCounter);
+            put(map, prefix, "statisticDataKeyEvictedCounter", keyEvictedCounter);
+        }
+
+        for (int i = 0; i < durationKeys.length; i++) {
+            String durationKey = durationKeys[i];
+            if (prefix != null && !durationKey.startsWith(prefix) && !prefix.startsWith(durationKey)) {
+                continue;
+            }
+            put(map, prefix, durationKey + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P50, getDuration(i, 0));
+            put(map, prefix, durationKey + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P90, getDuration(i, 1));
+            put(map, prefix, durationKey + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P99, getDuration(i, 2));
+            put(map, prefix, durationKey + HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_MAX, getDuration(i, 3));
+        }
+
+        return map;
+    }
+
+    /**
+     * Returns statistic data attributes of given names as map. Unknown attributes and attributes without value
+     * are not included.
+     *
+     * @param keys Names of statistic data attributes, e.g. "errorCounter", "myFunctionSuccessTimestamp"
+     * @return Map of statistic data attributes
+     */
+    public LinkedHashMap<String, Object> getHealthProcessStatisticDataMap(final Collection<String> keys) {
+        LinkedHashMap<String, Object> map = new LinkedHashMap<>(keys.size() * 2);
+        for (String key : keys) {
+            Object value = getHealthProcessStatisticDataValue(key);
+            if (value != null) {
+                map.put(key, value);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Returns value of one statistic data attribute of snapshot, e.g. "errorCounter" or "myFunctionDurationP99".
+     *
+     * @param key Name of statistic data attribute
+     * @return Value of attribute as in {@link #getHealthProcessStatisticDataMap()}, null if unknown or without value
+     */
+    public Object getHealthProcessStatisticDataValue(final String key) {
+        switch (key) {
+            case "serviceStartTimestamp":
+                return serviceStartTimestamp;
+            case "errorList":
+                return (errorListDetails != ErrorListDetails.AGGREGATE ? errorList : null);
+            case "errorAggregateList":
+                return (errorListDetails != ErrorListDetails.LIST ? errorAggregateList : null);
+            case "errorDroppedCounter":
+                return (errorQueueEnabled ? errorDroppedCounter : null);
+            case "errorSuppressedCounter":
+                return errorSuppressedCounterMap;
+            case "statisticDataKeyRejectedCounter":
+                return (keyGuardEnabled ? keyRejectedCounter : null);
+            case "statisticDataKeyEvictedCounter":
+                return (keyGuardEnabled ? keyEvictedCounter : null);
+            default:
+                break;
+        }
+
+        int index;
+        if ((index = findDurationIndex(key, HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P50)) >= 0) {
+            return getDuration(index, 0);
+        }
+        if ((index = findDurationIndex(key, HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P90)) >= 0) {
+            return getDuration(index, 1);
+        }
+        if ((index = findDurationIndex(key, HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P99)) >= 0) {
+            return getDuration(index, 2);
+        }
+        if ((index = findDurationIndex(key, HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_MAX)) >= 0) {
+            return getDuration(index, 3);
+        }
+
+        if ((index = findStatisticDataIndex(key, HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_COUNTER)) >= 0) {
+            return counters[index];
+        }
+        if ((index = findStatisticDataIndex(key, HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_TIMESTAMP)) >= 0) {
+            return getTimestamp(index);
+        }
+        for (int w = 0; w < rateWindows.length; w++) {
+            if ((index = findStatisticDataIndex(key, rateWindowSubKeys[w])) >= 0) {
+                return getRate(index, w);
+            }
+        }
+        return null;
+    }
+
+    private int findStatisticDataIndex(final String key, final String subKey) {
+        if (key.length() <= subKey.length() || !key.endsWith(subKey)) {
+            return -1;
+        }
+        return indexOf(key.substring(0, key.length() - subKey.length()));
+    }
+
+    private int findDurationIndex(final String key, final String subKey) {
+        if (key.length() <= subKey.length() || !key.endsWith(subKey)) {
+            return -1;
+        }
+        Map<String, Integer> indexMap = durationKeyIndexMap;
+        if (indexMap == null) {
+            durationKeyIndexMap = indexMap = createIndexMap(durationKeys);
+        }
+        Integer index = indexMap.get(key.substring(0, key.length() - subKey.length()));
+        return (index != null ? index : -1);
+    }
+
+    /**
+     * Returns index of statistic data key.
+     *
+     * @param statisticDataKey Statistic data key
+     * @return Index, -1 if statistic data key is not contained in snapshot
+     */
+    public int indexOf(final String statisticDataKey) {
+        Map<String, Integer> indexMap = statisticDataKeyIndexMap;
+        if (indexMap == null) {
+            statisticDataKeyIndexMap = indexMap = createIndexMap(statisticDataKeys);
+        }
+        Integer index = indexMap.get(statisticDataKey);
+        return (index != null ? index : -1);
+    }
+
+    private static Map<String, Integer> createIndexMap(final String[] keys) {
+        Map<String, Integer> indexMap = new HashMap<>(keys.length * 2);
+        for (int i = 0; i < keys.length; i++) {
+            indexMap.put(keys[i], i);
+        }
+        return indexMap;
+    }
+
+    private static void put(final Map<String, Object> map, final String prefix, final String key, final Object value) {
+        if (prefix == null || key.startsWith(prefix)) {
+            map.put(key, value);
+        }
+    }
+
+    /**
+     * Returns counter of statistic data key.
+     *
+     * @param statisticDataKey Statistic data key
+     * @return Counter, 0 if statistic data key is not contained in snapshot
+     */
+    public long getCounterValue(final String statisticDataKey) {
+        int index = indexOf(statisticDataKey);
+        return (index >= 0 ? counters[index] : 0L);
+    }
+
+    /**
+     * Returns timestamp of last event of statistic data key.
+     *
+     * @param statisticDataKey Statistic data key
+     * @return Timestamp in milliseconds since epoch, {@link HealthProcessStatisticDataEntry#NO_TIMESTAMP}
+     *         if no event occurred or statistic data key is not contained in snapshot
+     */
+    public long getTimestampMillis(final String statisticDataKey) {
+        int index = indexOf(statisticDataKey);
+        return (index >= 0 ? timestamps[index] : HealthProcessStatisticDataEntry.NO_TIMESTAMP);
+    }
+
+    /**
+     * Returns event sequence of last event of statistic data key, orders events with equal timestamps.
+     *
+     * @param statisticDataKey Statistic data key
+     * @return Event sequence, 0 if unknown or statistic data key is not contained
+     */
+    public long getEventSequence(final String statisticDataKey) {
+        int index = indexOf(statisticDataKey);
+        return (index >= 0 ? eventSequences[index] : 0L);
+    }
+
+    /**
+     * Check rate of sliding window is contained in snapshot.
+     *
+     * @param window Length of window
+     * @return true if window is configured
+     */
+    public boolean hasRateWindow(final Duration window) {
+        return rateWindowIndexOf(window) >= 0;
+    }
+
+    /**
+     * Returns number of events of statistic data key within configured sliding window.
+     *
+     * @param statisticDataKey Statistic data key
+     * @param window           Length of window, must be configured
+     * @return Number of events within window, 0 if statistic data key is not contained or window is not configured
+     */
+    public long getRate(final String statisticDataKey, final Duration window) {
+        int index = indexOf(statisticDataKey);
+        int windowIndex = rateWindowIndexOf(window);
+        return (index >= 0 && windowIndex >= 0 ? getRate(index, windowIndex) : 0L);
+    }
+
+    private int rateWindowIndexOf(final Duration window) {
+        long seconds = window.getSeconds();
+        for (int w = 0; w < rateWindows.length; w++) {
+            if (rateWindows[w].getSeconds() == seconds) {
+                return w;
+            }
+        }
+        return -1;
+    }
+
+    // Access by index
+
+    public int getStatisticDataKeyCount() {
+        return statisticDataKeys.length;
+    }
+
+    public String getStatisticDataKey(final int index) {
+        return statisticDataKeys[index];
+    }
+
+    public long getCounter(final int index) {
+        return counters[index];
+    }
+
+    public long getTimestampMillis(final int index) {
+        return timestamps[index];
+    }
+
+    public long getEventSequence(final int index) {
+        return eventSequences[index];
+    }
+
+    /**
+     * Returns timestamp of last event of statistic data key at index with time zone of clock.
+     *
+     * @param index Index of statistic data key
+     * @return Timestamp, null if no event occurred
+     */
+    public OffsetDateTime getTimestamp(final int index) {
+        long timestamp = timestamps[index];
+        if (timestamp == HealthProcessStatisticDataEntry.NO_TIMESTAMP) {
+            return null;
+        }
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(timestamp), zone);
+    }
+
+    public long getRate(final int index, final int windowIndex) {
+        return rates[index * rateWindows.length + windowIndex];
+    }
+
+    public int getDurationKeyCount() {
+        return durationKeys.length;
+    }
+
+    public String getDurationKey(final int index) {
+        return durationKeys[index];
+    }
+
+    /**
+     * Returns duration value of duration key at index.
+     *
+     * @param index      Index of duration key
+     * @param valueIndex 0 = P50, 1 = P90, 2 = P99, 3 = max
+     * @return Duration in milliseconds
+     */
+    public double getDuration(final int index, final int valueIndex) {
+        return durations[index * DURATION_VALUE_COUNT + valueIndex];
+    }
+
+    // Getter
+
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public OffsetDateTime getServiceStartTimestamp() {
+        return serviceStartTimestamp;
+    }
+
+    public ErrorListDetails getErrorListDetails() {
+        return errorListDetails;
+    }
+
+    public List<HealthErrorData> getErrorList() {
+        return errorList;
+    }
+
+    public List<HealthErrorAggregate> getErrorAggregateList() {
+        return errorAggregateList;
+    }
+
+    public int getRateWindowCount() {
+        return rateWindows.length;
+    }
+
+    public Duration getRateWindow(final int windowIndex) {
+        return rateWindows[windowIndex];
+    }
+
+    public String getRateWindowSubKey(final int windowIndex) {
+        return rateWindowSubKeys[windowIndex];
+    }
+
+    public boolean isErrorQueueEnabled() {
+        return errorQueueEnabled;
+    }
+
+    public long getErrorDroppedCounter() {
+        return errorDroppedCounter;
+    }
+
+    public Map<String, Long> getErrorSuppressedCounterMap() {
+        return errorSuppressedCounterMap;
+    }
+
+    public boolean isKeyGuardEnabled() {
+        return keyGuardEnabled;
+    }
+
+    public long getKeyRejectedCounter() {
+        return keyRejectedCounter;
+    }
+
+    public long getKeyEvictedCounter() {
+        return keyEvictedCounter;
+    }
+}
@@ -0,0 +1,256 @@
+package com.iksgmbh.actuator.health.procstat.peer;
+
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticMergeableSnapshot;
+import com.iksgmbh.actuator.health.procstat.persistence.HealthProcessStatisticSnapshotCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.HttpMessageConverterExtractor;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * aggregator of statistic data of several service instances.
+ * <p>
+ * Fetches the mergeable snapshots of all peers in parallel, each within the timeout, and merges them with the
+ * snapshot of this service instance. Snapshots are transferred binary encoded by {@link HealthProcessStatisticSnapshotCodec},
+ * or as JSON if a peer does not support it. The merged result is cached for the cache duration; while it is refreshed,
+ * concurrent callers wait for the one refresh instead of fetching again. Peers not answering in time are listed
+ * as failed and left out.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthProcessStatisticPeerAggregator implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthProcessStatisticPeerAggregator.class);
+
+    // Constants
+    private final static int THREAD_MAX_SIZE = 16;
+    private final static MediaType BINARY_MEDIA_TYPE = MediaType.parseMediaType(HealthProcessStatisticSnapshotCodec.CONTENT_TYPE);
+    private final static String ACCEPT = HealthProcessStatisticSnapshotCodec.CONTENT_TYPE + ", " + MediaType.APPLICATION_JSON_VALUE;
+
+    private final HealthProcessStatisticData healthProcessStatisticData;
+
+    /** URLs of snapshot endpoints of peers. */
+    private final List<String> peerUrlList;
+
+    /** Max time to wait for all peers. */
+    private final Duration timeout;
+
+    /** Max age of cached merged result. */
+    private final Duration cacheDuration;
+
+    private final RestTemplate restTemplate;
+
+    private final ExecutorService executorService;
+
+    /** Serializes refresh of merged result. */
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile Aggregate cachedAggregate;
+
+
+    /**
+     * Constructor.
+     *
+     * @param healthProcessStatisticData Health process statistic data bean of this service instance
+     * @param peerUrlList                URLs of snapshot endpoints of peers,
+     *                                   e.g. "http://host2:8080/myapp/actuator/healthProcessStatistic/snapshot"
+     * @param timeout                    Max time to wait for all peers
+     * @param cacheDuration              Max age of cached merged result, zero to fetch on every call
+     */
+    public HealthProcessStatisticPeerAggregator(final HealthProcessStatisticData healthProcessStatisticData,
+            final List<String> peerUrlList,
+            final Duration timeout,
+            final Duration cacheDuration) {
+        super();
+        if (timeout.isNegative() || timeout.isZero() || cacheDuration.isNegative()) {
+            throw new IllegalArgumentException("Timeout must be greater than zero and cache duration must not be negative.");
+        }
+        this.healthProcessStatisticData = healthProcessStatisticData;
+        this.peerUrlList = Collections.unmodifiableList(new ArrayList<>(peerUrlList));
+        this.timeout = timeout;
+        this.cacheDuration = cacheDuration;
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) timeout.toMillis());
+        requestFactory.setReadTimeout((int) timeout.toMillis());
+        this.restTemplate = new RestTemplate(requestFactory);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executorService = Executors.newFixedThreadPool(Math.max(1, Math.min(peerUrlList.size(), THREAD_MAX_SIZE)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "health-process-statistic-peer-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Returns merged statistic data of this service instance and all peers, cached for the cache duration.
+     *
+     * @return Merged statistic data
+     */
+    public Aggregate getAggregate() {
+        Aggregate aggregate = cachedAggregate;
+        if (isFresh(aggregate)) {
+            return aggregate;
+        }
+
+        try {
+            refreshLock.lock();
+            aggregate = cachedAggregate;
+            if (isFresh(aggregate)) {
+                return aggregate;
+            }
+            aggregate = fetchAggregate();
+            cachedAggregate = aggregate;
+            return aggregate;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private boolean isFresh(final Aggregate aggregate) {
+        return aggregate != null && System.nanoTime() - aggregate.createdNanos < cacheDuration.toNanos();
+    }
+
+    /**
+     * Fetch snapshots of all peers in parallel and merge them with the snapshot of this service instance.
+     *
+     * @return Merged statistic data
+     */
+    private Aggregate fetchAggregate() {
+        List<CompletableFuture<HealthProcessStatisticMergeableSnapshot>> futureList = new ArrayList<>(peerUrlList.size());
+        for (String peerUrl : peerUrlList) {
+            futureList.add(CompletableFuture.supplyAsync(() -> fetchSnapshot(peerUrl), executorService));
+        }
+
+        List<HealthProcessStatisticMergeableSnapshot> snapshotList = new ArrayList<>(peerUrlList.size() + 1);
+        snapshotList.add(HealthProcessStatisticMergeableSnapshot.of(healthProcessStatisticData.getSnapshot()));
+        List<String> failedPeerUrlList = new ArrayList<>();
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (int i = 0; i < futureList.size(); i++) {
+            CompletableFuture<HealthProcessStatisticMergeableSnapshot> future = futureList.get(i);
+            try {
+                HealthProcessStatisticMergeableSnapshot snapshot = future.get(
+                        Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (snapshot != null) {
+                    snapshotList.add(snapshot);
+                } else {
+                    failedPeerUrlList.add(peerUrlList.get(i));
+                }
+            } catch (ExecutionException | TimeoutException e) {
+                future.cancel(true);
+                failedPeerUrlList.add(peerUrlList.get(i));
+                log.warn("Health process statistic data of peer {} could not be fetched: {}", peerUrlList.get(i),
+                        (e.getCause() != null ? e.getCause() : e).toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failedPeerUrlList.add(peerUrlList.get(i));
+            }
+        }
+
+        return new Aggregate(HealthProcessStatisticMergeableSnapshot.merge(snapshotList,
+                healthProcessStatisticData.getErrorListMaxSize()), failedPeerUrlList, System.nanoTime());
+    }
+
+    /**
+     * Fetch snapshot of peer, binary encoded if supported by the peer, JSON otherwise.
+     *
+     * @param peerUrl URL of snapshot endpoint of peer
+     * @return Snapshot of peer
+     */
+    private HealthProcessStatisticMergeableSnapshot fetchSnapshot(final String peerUrl) {
+        HttpMessageConverterExtractor<HealthProcessStatisticMergeableSnapshot> jsonExtractor =
+                new HttpMessageConverterExtractor<>(HealthProcessStatisticMergeableSnapshot.class, restTemplate.getMessageConverters());
+        return restTemplate.execute(peerUrl, HttpMethod.GET,
+                request -> request.getHeaders().set(HttpHeaders.ACCEPT, ACCEPT),
+                response -> {
+                    MediaType contentType = response.getHeaders().getContentType();
+                    if (contentType != null && contentType.isCompatibleWith(BINARY_MEDIA_TYPE)) {
+                        return HealthProcessStatisticSnapshotCodec.decode(response.getBody());
+                    }
+                    return jsonExtractor.extractData(response);
+                });
+    }
+
+    /**
+     * Returns merged statistic data attributes as map, like the health details of one service instance,
+     * with "instanceCount" and "peerFailedList" added.
+     *
+     * @return Map of merged statistic data attributes
+     */
+    public LinkedHashMap<String, Object> getHealthProcessStatisticDataMap() {
+        Aggregate aggregate = getAggregate();
+        LinkedHashMap<String, Object> map = aggregate.getSnapshot().getHealthProcessStatisticDataMap(
+                healthProcessStatisticData.getClock().getZone());
+        map.put("peerFailedList", aggregate.getFailedPeerUrlList());
+        return map;
+    }
+
+    /**
+     * Stop threads fetching peers.
+     */
+    @Override
+    public void close() {
+        executorService.shutdownNow();
+    }
+
+    public List<String> getPeerUrlList() {
+        return peerUrlList;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public Duration getCacheDuration() {
+        return cacheDuration;
+    }
+
+    /**
+     * Merged statistic data together with the peers that could not be fetched.
+     */
+    public static class Aggregate {
+
+        private final HealthProcessStatisticMergeableSnapshot snapshot;
+        private final List<String> failedPeerUrlList;
+        private final long createdNanos;
+
+        private Aggregate(final HealthProcessStatisticMergeableSnapshot snapshot, final List<String> failedPeerUrlList,
+                final long createdNanos) {
+            this.snapshot = snapshot;
+            this.failedPeerUrlList = Collections.unmodifiableList(failedPeerUrlList);
+            this.createdNanos = createdNanos;
+        }
+
+        public HealthProcessStatisticMergeableSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        public List<String> getFailedPeerUrlList() {
+            return failedPeerUrlList;
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.iksgmbh.actuator.health.procstat.persistence;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.iksgmbh.actuator.health.procstat.model.HealthErrorData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticDataListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * append-only journal of error events on disk.
+ * <p>
+ * {@link HealthProcessStatisticData#addError(HealthErrorData)} only offers the error event to a bounded queue,
+ * a background thread writes the queued events in batches as JSON lines into segment files.
+ * A segment is rotated when it reaches its max size or age, the oldest segments are deleted
+ * beyond the max number of segments, so disk usage is bounded. If the queue is full, error events are
+ * not journaled and counted as dropped.
+ * <p>
+ * Pages are read without blocking the writer: segments are read backwards with a bounded buffer,
+ * closed segments outside of the page are skipped by their cached number of lines without reading them.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthErrorJournal implements HealthProcessStatisticDataListener, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthErrorJournal.class);
+
+    // Constants
+    private final static String SEGMENT_PREFIX = "errors-";
+    private final static String SEGMENT_SUFFIX = ".jsonl";
+    private final static int BATCH_MAX_SIZE = 1000;
+    private final static long POLL_TIMEOUT_MILLIS = 500L;
+    private final static int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final HealthProcessStatisticData healthProcessStatisticData;
+
+    private final Path directory;
+
+    private final long segmentMaxSize;
+
+    private final Duration segmentMaxAge;
+
+    private final int maxSegments;
+
+    private final ObjectMapper objectMapper;
+
+    /** Error events not written yet. */
+    private final BlockingQueue<HealthErrorData> queue;
+
+    /** Number of error events not journaled because queue was full. */
+    private final LongAdder droppedCounter = new LongAdder();
+
+    /** Segment files from oldest to newest, guarded by this. */
+    private final ArrayDeque<Path> segmentList = new ArrayDeque<>();
+
+    /** Channel of current segment, null if not opened yet, guarded by this. */
+    private FileChannel segmentChannel;
+
+    /** Size of current segment in bytes, guarded by this. */
+    private long segmentSize;
+
+    /** Number of lines of current segment, guarded by this. */
+    private long segmentLineCount;
+
+    /** Number of lines of closed segments, counted on first read. */
+    private final ConcurrentHashMap<Path, Long> closedSegmentLineCountMap = new ConcurrentHashMap<>();
+
+    /** Creation time of current segment (System.nanoTime), guarded by this. */
+    private long segmentCreationTime;
+
+    /** Number of next segment, guarded by this. */
+    private long nextSegmentNumber;
+
+    private volatile boolean running;
+
+    private Thread writerThread;
+
+
+    /**
+     * Constructor. Existing segments of directory are kept.
+     *
+     * @param healthProcessStatisticData Health process statistic data bean
+     * @param directory                  Directory of segment files
+     * @param segmentMaxSize             Max size of a segment in bytes
+     * @param segmentMaxAge              Max age of a segment
+     * @param maxSegments                Max number of segments
+     * @param queueSize                  Max number of error events waiting to be written
+     * @throws IOException Directory cannot be created or read
+     */
+    public HealthErrorJournal(final HealthProcessStatisticData healthProcessStatisticData,
+            final Path directory,
+            final long segmentMaxSize,
+            final Duration segmentMaxAge,
+            final int maxSegments,
+            final int queueSize) throws IOException {
+        if (segmentMaxSize <= 0L || maxSegments <= 0 || queueSize <= 0) {
+            throw new IllegalArgumentException("Segment size, max segments and queue size must be greater than zero.");
+        }
+        this.healthProcessStatisticData = healthProcessStatisticData;
+        this.directory = directory;
+        this.segmentMaxSize = segmentMaxSize;
+        this.segmentMaxAge = segmentMaxAge;
+        this.maxSegments = maxSegments;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        Files.createDirectories(directory);
+        TreeMap<Long, Path> segmentMap = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    segmentMap.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())), path);
+                } catch (NumberFormatException e) {
+                    log.debug("File {} is not a segment of error journal.", path);
+                }
+            }
+        }
+        segmentList.addAll(segmentMap.values());
+        nextSegmentNumber = (segmentMap.isEmpty() ? 0L : segmentMap.lastKey() + 1L);
+    }
+
+    /**
+     * Register at statistic data bean and start writer thread.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::writeLoop, "health-process-statistic-error-journal");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        healthProcessStatisticData.addListener(this);
+    }
+
+    /**
+     * Error event was added: offer it to queue, never blocks the caller.
+     *
+     * @param healthErrorData Error event
+     */
+    @Override
+    public void errorAdded(final HealthErrorData healthErrorData) {
+        if (!queue.offer(healthErrorData)) {
+            droppedCounter.increment();
+        }
+    }
+
+    /**
+     * Write queued error events in batches until stopped and queue is empty.
+     */
+    private void writeLoop() {
+        List<HealthErrorData> batch = new ArrayList<>(BATCH_MAX_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                batch.clear();
+                HealthErrorData healthErrorData = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (healthErrorData != null) {
+                    batch.add(healthErrorData);
+                    queue.drainTo(batch, BATCH_MAX_SIZE - 1);
+                }
+                synchronized (this) {
+                    if (!batch.isEmpty()) {
+                        rotateIfNeeded();
+                        writeBatch(batch);
+                    } else if (isSegmentExpired()) {
+                        closeSegment();  // idle segment, next error event opens a new one
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Writing health process statistic error journal failed, {} error events lost.", batch.size(), e);
+            }
+        }
+    }
+
+    /**
+     * Write batch of error events as JSON lines into current segment.
+     *
+     * @param batch Error events
+     * @throws IOException Writing failed
+     */
+    private void writeBatch(final List<HealthErrorData> batch) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(batch.size() * 256);
+        for (HealthErrorData healthErrorData : batch) {
+            objectMapper.writeValue(outputStream, healthErrorData);
+            outputStream.write('\n');
+        }
+
+        ByteBuffer byteBuffer = ByteBuffer.wrap(outputStream.toByteArray());
+        while (byteBuffer.hasRemaining()) {
+            segmentChannel.write(byteBuffer);
+        }
+        segmentSize += byteBuffer.limit();
+        segmentLineCount += batch.size();
+    }
+
+    /**
+     * Open new segment if there is none yet or current segment reached its max size or age,
+     * delete oldest segments beyond max number of segments.
+     *
+     * @throws IOException Segment cannot be opened or deleted
+     */
+    private void rotateIfNeeded() throws IOException {
+        if (segmentChannel != null) {
+            if (segmentSize < segmentMaxSize && !isSegmentExpired()) {
+                return;
+            }
+            closeSegment();
+        }
+
+        Path path = directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, nextSegmentNumber++, SEGMENT_SUFFIX));
+        segmentChannel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentSize = 0L;
+        segmentLineCount = 0L;
+        segmentCreationTime = System.nanoTime();
+        segmentList.addLast(path);
+
+        while (segmentList.size() > maxSegments) {
+            Path oldestPath = segmentList.removeFirst();
+            closedSegmentLineCountMap.remove(oldestPath);
+            Files.deleteIfExists(oldestPath);
+        }
+    }
+
+    private boolean isSegmentExpired() {
+        return segmentChannel != null && !segmentMaxAge.isZero()
+                && System.nanoTime() - segmentCreationTime >= segmentMaxAge.toNanos();
+    }
+
+    private void closeSegment() throws IOException {
+        if (segmentChannel != null) {
+            segmentChannel.force(false);
+            segmentChannel.close();
+            segmentChannel = null;
+        }
+    }
+
+    /**
+     * Read page of journaled error events, newest first. Error events still queued are not included.
+     * Only the segment list is copied under the lock, so reading never blocks the writer thread.
+     *
+     * @param page Number of page, starting with 0
+     * @param size Number of error events per page
+     * @return Error events of page, empty if page is beyond journal
+     * @throws IOException Segment cannot be read
+     */
+    public List<HealthErrorData> readPage(final int page, final int size) throws IOException {
+        List<Path> segments;
+        Path currentSegment;
+        long currentSegmentSize;
+        long currentSegmentLineCount;
+        synchronized (this) {
+            segments = new ArrayList<>(segmentList);
+            currentSegment = (segmentChannel != null ? segmentList.peekLast() : null);
+            currentSegmentSize = segmentSize;
+            currentSegmentLineCount = segmentLineCount;
+        }
+
+        long skip = (long) page * size;
+        List<HealthErrorData> result = new ArrayList<>(Math.min(size, 1024));
+        for (int i = segments.size() - 1; i >= 0 && result.size() < size; i--) {
+            Path path = segments.get(i);
+            boolean current = path.equals(currentSegment);
+            try {
+                long lineCount = (current ? currentSegmentLineCount : getClosedSegmentLineCount(path));
+                if (skip >= lineCount) {
+                    skip -= lineCount;
+                    continue;
+                }
+                // current segment only up to the last complete batch
+                readSegmentBackwards(path, (current ? currentSegmentSize : Long.MAX_VALUE), skip, size, result);
+                skip = 0L;
+            } catch (NoSuchFileException e) {
+                log.debug("Segment {} of error journal was deleted meanwhile.", path);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns number of lines of closed segment, counted once and cached, as segments are never written again.
+     *
+     * @param path Segment file
+     * @return Number of non empty lines
+     * @throws IOException Segment cannot be read
+     */
+    private long getClosedSegmentLineCount(final Path path) throws IOException {
+        Long lineCount = closedSegmentLineCountMap.get(path);
+        if (lineCount == null) {
+            lineCount = countLines(path);
+            closedSegmentLineCountMap.put(path, lineCount);
+        }
+        return lineCount;
+    }
+
+    private static long countLines(final Path path) throws IOException {
+        long lineCount = 0L;
+        boolean lineHasBytes = false;
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    if (buffer.get() == '\n') {
+                        lineCount += (lineHasBytes ? 1L : 0L);
+                        lineHasBytes = false;
+                    } else {
+                        lineHasBytes = true;
+                    }
+                }
+                buffer.clear();
+            }
+        }
+        return lineCount + (lineHasBytes ? 1L : 0L);
+    }
+
+    /**
+     * Read lines of segment from its end with a bounded buffer and add the parsed error events to result.
+     * Skipped lines are only counted, not kept.
+     *
+     * @param path   Segment file
+     * @param length Number of bytes of segment to read
+     * @param skip   Number of newest lines to skip
+     * @param size   Max size of result
+     * @param result Error events read so far, newest first
+     * @throws IOException Segment cannot be read
+     */
+    private void readSegmentBackwards(final Path path, final long length, final long skip, final int size,
+            final List<HealthErrorData> result) throws IOException {
+        long skipRemaining = skip;
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);  // bytes of current line in reverse order
+        boolean lineHasBytes = false;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = Math.min(length, channel.size());
+            while (position > 0L && result.size() < size) {
+                int count = (int) Math.min(buffer.capacity(), position);
+                position -= count;
+                buffer.clear();
+                buffer.limit(count);
+                while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+                    // read until buffer is filled
+                }
+
+                for (int i = count - 1; i >= 0 && result.size() < size; i--) {
+                    byte b = buffer.get(i);
+                    if (b != '\n') {
+                        lineHasBytes = true;
+                        if (skipRemaining == 0L) {
+                            line.write(b);
+                        }
+                    } else if (lineHasBytes) {
+                        if (skipRemaining > 0L) {
+                            skipRemaining--;
+                        } else {
+                            addLine(path, line, result);
+                        }
+                        lineHasBytes = false;
+                    }
+                }
+            }
+            if (lineHasBytes && skipRemaining == 0L && result.size() < size) {
+                addLine(path, line, result);  // first line of segment
+            }
+        }
+    }
+
+    private void addLine(final Path path, final ByteArrayOutputStream line, final List<HealthErrorData> result) {
+        byte[] bytes = line.toByteArray();
+        line.reset();
+        for (int i = 0, j = bytes.length - 1; i < j; i++, j--) {
+            byte b = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = b;
+        }
+        try {
+            result.add(objectMapper.readValue(bytes, HealthErrorData.class));
+        } catch (IOException e) {
+            log.debug("Invalid line in error journal {} skipped.", path);
+        }
+    }
+
+    /**
+     * Stop writer thread after writing queued error events and close current segment.
+     */
+    @Override
+    public void close() throws IOException {
+        Thread thread;
+        synchronized (this) {
+            healthProcessStatisticData.removeListener(this);
+            running = false;
+            thread = writerThread;
+            writerThread = null;
+        }
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized (this) {
+            closeSegment();
+        }
+    }
+
+    public long getDroppedCounter() {
+        return droppedCounter.sum();
+    }
+
+    public synchronized int getSegmentCount() {
+        return segmentList.size();
+    }
+}
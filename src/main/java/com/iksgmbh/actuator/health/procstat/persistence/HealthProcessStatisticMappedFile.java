@@ -0,0 +1,309 @@
+package com.iksgmbh.actuator.health.procstat.persistence;
+
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticDataEntry;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticDataListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * memory-mapped file mirroring counters and timestamps, so they survive a restart of the service.
+ * <p>
+ * The file has a header and a fixed slot per statistic data key (key, counter, timestamp).
+ * A background thread writes counters and timestamps in place into the slots of their keys, incrementing a
+ * counter does not touch the file. On start the file is restored into the statistic data bean,
+ * a reset of the statistic data clears the file. Slots of evicted keys are cleared and reused by new keys.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthProcessStatisticMappedFile implements HealthProcessStatisticDataListener, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthProcessStatisticMappedFile.class);
+
+    // Constants
+    private final static int MAGIC = 0x49505331;  // "IPS1"
+    private final static int VERSION = 1;
+    private final static int HEADER_SIZE = 16;
+    private final static int SLOT_SIZE = 128;
+    private final static int SLOT_KEY_LENGTH_OFFSET = 0;
+    private final static int SLOT_COUNTER_OFFSET = 4;
+    private final static int SLOT_TIMESTAMP_OFFSET = 12;
+    private final static int SLOT_KEY_OFFSET = 20;
+    private final static int SLOT_KEY_MAX_LENGTH = SLOT_SIZE - SLOT_KEY_OFFSET;
+
+    private final HealthProcessStatisticData healthProcessStatisticData;
+
+    private final FileChannel fileChannel;
+
+    private final MappedByteBuffer buffer;
+
+    private final int maxKeys;
+
+    /** Slot index by statistic data key, guarded by this. */
+    private final Map<String, Integer> slotIndexMap = new HashMap<>();
+
+    /** Executor of periodic mirroring, null if not started. */
+    private ScheduledExecutorService mirrorExecutor;
+
+    /** Index of first slot never used since the file was cleared, all slots from it on are free, guarded by this. */
+    private int nextSlotIndex;
+
+    /** Free slots below next slot index, e.g. of evicted keys or invalid on restore, guarded by this. */
+    private final Deque<Integer> freeSlotList = new ArrayDeque<>();
+
+    /** A warning about a full file was already logged, logged again once a slot was freed. */
+    private boolean slotWarningLogged;
+
+    /** A warning about a key too long for a slot was already logged. */
+    private boolean keyLengthWarningLogged;
+
+
+    /**
+     * Constructor. Opens or creates the file, a file with a different layout is cleared.
+     *
+     * @param healthProcessStatisticData Health process statistic data bean
+     * @param path                       Path of file
+     * @param maxKeys                    Max numbers of statistic data keys in file
+     * @throws IOException File cannot be opened or mapped
+     */
+    public HealthProcessStatisticMappedFile(final HealthProcessStatisticData healthProcessStatisticData,
+            final Path path, final int maxKeys) throws IOException {
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("Max keys must be greater than zero: " + maxKeys);
+        }
+        this.healthProcessStatisticData = healthProcessStatisticData;
+        this.maxKeys = maxKeys;
+
+        if (path.getParent() != null) {
+            path.getParent().toFile().mkdirs();
+        }
+        this.fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) maxKeys * SLOT_SIZE);
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != maxKeys) {
+            if (buffer.getInt(0) != 0) {
+                log.warn("Health process statistic file {} has a different layout and is cleared.", path);
+            }
+            clearSlots();
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, maxKeys);
+        }
+    }
+
+    /**
+     * Restore counters and timestamps of file into statistic data bean and register listener for reset.
+     *
+     * @return Number of restored statistic data keys
+     */
+    public synchronized int restore() {
+        int restored = 0;
+        Deque<Integer> invalidSlotList = new ArrayDeque<>();
+        for (int slotIndex = 0; slotIndex < maxKeys; slotIndex++) {
+            int offset = HEADER_SIZE + slotIndex * SLOT_SIZE;
+            int keyLength = buffer.getInt(offset + SLOT_KEY_LENGTH_OFFSET);
+            if (keyLength <= 0 || keyLength > SLOT_KEY_MAX_LENGTH) {
+                invalidSlotList.add(slotIndex);
+                continue;
+            }
+            byte[] key = new byte[keyLength];
+            for (int i = 0; i < keyLength; i++) {
+                key[i] = buffer.get(offset + SLOT_KEY_OFFSET + i);
+            }
+            String statisticDataKey = new String(key, StandardCharsets.UTF_8);
+            if (slotIndexMap.containsKey(statisticDataKey)) {
+                invalidSlotList.add(slotIndex);  // corrupt duplicate, counted once
+                continue;
+            }
+            slotIndexMap.put(statisticDataKey, slotIndex);
+            nextSlotIndex = slotIndex + 1;
+            healthProcessStatisticData.restoreStatisticData(statisticDataKey,
+                    buffer.getLong(offset + SLOT_COUNTER_OFFSET), buffer.getLong(offset + SLOT_TIMESTAMP_OFFSET));
+            restored++;
+        }
+
+        // invalid slots between used slots are reused, the ones behind are free anyway
+        for (Integer slotIndex : invalidSlotList) {
+            if (slotIndex < nextSlotIndex) {
+                clearSlot(slotIndex);
+                freeSlotList.add(slotIndex);
+            }
+        }
+        healthProcessStatisticData.addListener(this);
+        return restored;
+    }
+
+    /**
+     * Start periodic mirroring of statistic data into file.
+     *
+     * @param interval Interval of mirroring
+     */
+    public synchronized void start(final Duration interval) {
+        if (mirrorExecutor != null) {
+            return;
+        }
+        mirrorExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "health-process-statistic-mirror");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = Math.max(1L, interval.toMillis());
+        mirrorExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                mirror();
+            } catch (RuntimeException e) {
+                log.warn("Mirroring of health process statistic data failed.", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write counters and timestamps of all statistic data keys into their slots.
+     * Keys without events get no slot.
+     */
+    public synchronized void mirror() {
+        for (HealthProcessStatisticDataEntry entry : healthProcessStatisticData.getStatisticDataEntryList()) {
+            long counter = entry.getCounter();
+            long timestamp = entry.getTimestamp();
+            Integer slotIndex = slotIndexMap.get(entry.getStatisticDataKey());
+            if (slotIndex == null) {
+                if (counter == 0L && timestamp == HealthProcessStatisticDataEntry.NO_TIMESTAMP) {
+                    continue;
+                }
+                slotIndex = allocateSlot(entry.getStatisticDataKey());
+                if (slotIndex == null) {
+                    continue;
+                }
+            }
+            int offset = HEADER_SIZE + slotIndex * SLOT_SIZE;
+            buffer.putLong(offset + SLOT_COUNTER_OFFSET, counter);
+            buffer.putLong(offset + SLOT_TIMESTAMP_OFFSET, timestamp);
+        }
+    }
+
+    /**
+     * Allocate free slot for statistic data key and write key into it. Freed slots are reused first.
+     *
+     * @param statisticDataKey Statistic data key
+     * @return Slot index, null if key is too long or file is full
+     */
+    private Integer allocateSlot(final String statisticDataKey) {
+        byte[] key = statisticDataKey.getBytes(StandardCharsets.UTF_8);
+        if (key.length > SLOT_KEY_MAX_LENGTH) {
+            if (!keyLengthWarningLogged) {
+                keyLengthWarningLogged = true;
+                log.warn("Health process statistic key {} is not persisted: key longer than {} bytes.",
+                        statisticDataKey, SLOT_KEY_MAX_LENGTH);
+            }
+            return null;
+        }
+        Integer slotIndex = freeSlotList.poll();
+        if (slotIndex == null) {
+            if (nextSlotIndex >= maxKeys) {
+                if (!slotWarningLogged) {
+                    slotWarningLogged = true;
+                    log.warn("Health process statistic file is full, max keys {} reached: key {} and further keys are not persisted.",
+                            maxKeys, statisticDataKey);
+                }
+                return null;
+            }
+            slotIndex = nextSlotIndex++;
+        }
+
+        int offset = HEADER_SIZE + slotIndex * SLOT_SIZE;
+        for (int i = 0; i < key.length; i++) {
+            buffer.put(offset + SLOT_KEY_OFFSET + i, key[i]);
+        }
+        buffer.putInt(offset + SLOT_KEY_LENGTH_OFFSET, key.length);  // slot is used once key length is set
+        slotIndexMap.put(statisticDataKey, slotIndex);
+        return slotIndex;
+    }
+
+    /**
+     * Statistic data keys were removed, e.g. evicted: clear and free their slots.
+     *
+     * @param statisticDataKeys Names of removed statistic data keys
+     */
+    @Override
+    public synchronized void statisticDataKeysRemoved(final List<String> statisticDataKeys) {
+        for (String statisticDataKey : statisticDataKeys) {
+            Integer slotIndex = slotIndexMap.remove(statisticDataKey);
+            if (slotIndex != null) {
+                clearSlot(slotIndex);
+                freeSlotList.add(slotIndex);
+                slotWarningLogged = false;
+            }
+        }
+    }
+
+    /**
+     * Statistic data was reset: clear all slots.
+     */
+    @Override
+    public synchronized void statisticDataReset() {
+        clearSlots();
+        slotIndexMap.clear();
+        freeSlotList.clear();
+        nextSlotIndex = 0;
+        slotWarningLogged = false;
+    }
+
+    private void clearSlot(final int slotIndex) {
+        int offset = HEADER_SIZE + slotIndex * SLOT_SIZE;
+        buffer.putInt(offset + SLOT_KEY_LENGTH_OFFSET, 0);  // slot is free once key length is cleared
+        for (int i = SLOT_COUNTER_OFFSET; i < SLOT_SIZE; i += 4) {
+            buffer.putInt(offset + i, 0);
+        }
+    }
+
+    private void clearSlots() {
+        int end = HEADER_SIZE + maxKeys * SLOT_SIZE;
+        for (int offset = HEADER_SIZE; offset < end; offset += 8) {
+            buffer.putLong(offset, 0L);
+        }
+    }
+
+    /**
+     * Stop mirroring, write current statistic data and close file.
+     */
+    @Override
+    public void close() throws IOException {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = mirrorExecutor;
+            mirrorExecutor = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        healthProcessStatisticData.removeListener(this);
+
+        synchronized (this) {
+            mirror();
+            buffer.force();
+            fileChannel.close();
+        }
+    }
+
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+}
@@ -0,0 +1,358 @@
+package com.iksgmbh.actuator.health.procstat.persistence;
+
+import com.iksgmbh.actuator.health.procstat.model.HealthErrorData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticMergeableSnapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * compact binary encoding of {@link HealthProcessStatisticMergeableSnapshot}.
+ * <p>
+ * Layout of version 1, all integers as variable length (LEB128, signed values zigzag encoded):
+ * <pre>
+ * magic "HPS", version byte
+ * snapshot timestamp (epoch millis), instance count, service start
+ * string table: count, UTF-8 strings; keys, rate windows and error texts refer to it by index + 1, 0 is null
+ * statistic data: count, per key: key, counter, timestamp as distance to snapshot timestamp, rates
+ * durations: count, per key: key, P50, P90, P99, max as IEEE 754 doubles
+ * error list: count, per error event: timestamp as delta to the previous one, texts, suppressed counter
+ * </pre>
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthProcessStatisticSnapshotCodec {
+
+    // Constants
+    public final static String CONTENT_TYPE = "application/vnd.health-process-statistic.snapshot";
+    private final static byte[] MAGIC = {'H', 'P', 'S'};
+    private final static int VERSION = 1;
+    private final static int STRING_MAX_LENGTH = 1 << 20;
+    private final static int INITIAL_CAPACITY_MAX = 1024;
+
+
+    private HealthProcessStatisticSnapshotCodec() {
+        super();
+    }
+
+    /**
+     * Encode snapshot.
+     *
+     * @param snapshot Snapshot of statistic data
+     * @return Encoded snapshot
+     */
+    public static byte[] encode(final HealthProcessStatisticMergeableSnapshot snapshot) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(256);
+        try {
+            encode(snapshot, outputStream);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);  // not thrown by ByteArrayOutputStream
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Encode snapshot into stream.
+     *
+     * @param snapshot     Snapshot of statistic data
+     * @param outputStream Target stream, not closed
+     * @throws IOException Writing failed
+     */
+    public static void encode(final HealthProcessStatisticMergeableSnapshot snapshot, final OutputStream outputStream)
+            throws IOException {
+        StringTable stringTable = new StringTable();
+        for (Map.Entry<String, HealthProcessStatisticMergeableSnapshot.Entry> mapEntry : snapshot.getStatisticData().entrySet()) {
+            stringTable.add(mapEntry.getKey());
+            mapEntry.getValue().getRates().keySet().forEach(stringTable::add);
+        }
+        snapshot.getDurations().keySet().forEach(stringTable::add);
+        for (HealthErrorData healthErrorData : snapshot.getErrorList()) {
+            stringTable.add(healthErrorData.getFunction());
+            stringTable.add(healthErrorData.getReturnCode());
+            stringTable.add(healthErrorData.getMessageText());
+            stringTable.add(healthErrorData.getInstructionText());
+            stringTable.add(healthErrorData.getReferenceId());
+        }
+
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        long base = snapshot.getTimestampMillis();
+        writeVarLong(out, base);
+        writeVarLong(out, snapshot.getInstanceCount());
+        writeTimestamp(out, snapshot.getServiceStartTimestamp(), base);
+
+        writeVarLong(out, stringTable.list.size());
+        for (String string : stringTable.list) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, bytes.length);
+            out.write(bytes);
+        }
+
+        writeVarLong(out, snapshot.getStatisticData().size());
+        for (Map.Entry<String, HealthProcessStatisticMergeableSnapshot.Entry> mapEntry : snapshot.getStatisticData().entrySet()) {
+            HealthProcessStatisticMergeableSnapshot.Entry entry = mapEntry.getValue();
+            writeVarLong(out, stringTable.ref(mapEntry.getKey()));
+            writeVarLong(out, entry.getCounter());
+            writeVarLong(out, entry.getTimestamp() != null ? zigzag(base - entry.getTimestamp()) + 1L : 0L);
+            writeVarLong(out, entry.getRates().size());
+            for (Map.Entry<String, Long> rate : entry.getRates().entrySet()) {
+                writeVarLong(out, stringTable.ref(rate.getKey()));
+                writeVarLong(out, rate.getValue());
+            }
+        }
+
+        writeVarLong(out, snapshot.getDurations().size());
+        for (Map.Entry<String, HealthProcessStatisticMergeableSnapshot.DurationEntry> mapEntry : snapshot.getDurations().entrySet()) {
+            HealthProcessStatisticMergeableSnapshot.DurationEntry durationEntry = mapEntry.getValue();
+            writeVarLong(out, stringTable.ref(mapEntry.getKey()));
+            out.writeDouble(durationEntry.getP50());
+            out.writeDouble(durationEntry.getP90());
+            out.writeDouble(durationEntry.getP99());
+            out.writeDouble(durationEntry.getMax());
+        }
+
+        writeVarLong(out, snapshot.getErrorList().size());
+        long previous = base;
+        for (HealthErrorData healthErrorData : snapshot.getErrorList()) {
+            writeTimestamp(out, healthErrorData.getTimestamp(), previous);
+            if (healthErrorData.getTimestamp() != null) {
+                previous = healthErrorData.getTimestamp().toInstant().toEpochMilli();
+            }
+            writeVarLong(out, stringTable.ref(healthErrorData.getFunction()));
+            writeVarLong(out, stringTable.ref(healthErrorData.getReturnCode()));
+            writeVarLong(out, stringTable.ref(healthErrorData.getMessageText()));
+            writeVarLong(out, stringTable.ref(healthErrorData.getInstructionText()));
+            writeVarLong(out, stringTable.ref(healthErrorData.getReferenceId()));
+            writeVarLong(out, healthErrorData.getSuppressedCounter());
+        }
+        out.flush();
+    }
+
+    /**
+     * Decode snapshot.
+     *
+     * @param bytes Encoded snapshot
+     * @return Snapshot of statistic data
+     * @throws IOException Encoding is invalid, truncated or of an unsupported version
+     */
+    public static HealthProcessStatisticMergeableSnapshot decode(final byte[] bytes) throws IOException {
+        return decode(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * Decode snapshot from stream.
+     *
+     * @param inputStream Source stream, not closed
+     * @return Snapshot of statistic data
+     * @throws IOException Encoding is invalid, truncated or of an unsupported version
+     */
+    public static HealthProcessStatisticMergeableSnapshot decode(final InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new IOException("No health process statistic snapshot.");
+            }
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version of health process statistic snapshot: " + version);
+        }
+
+        HealthProcessStatisticMergeableSnapshot snapshot = new HealthProcessStatisticMergeableSnapshot();
+        long base = readVarLong(in);
+        snapshot.setTimestampMillis(base);
+        snapshot.setInstanceCount((int) readVarLong(in));
+        snapshot.setServiceStartTimestamp(readTimestamp(in, base));
+
+        int stringCount = readCount(in);
+        List<String> stringList = new ArrayList<>(initialCapacity(stringCount));
+        for (int i = 0; i < stringCount; i++) {
+            int length = (int) readVarLong(in);
+            if (length < 0 || length > STRING_MAX_LENGTH) {
+                throw new IOException("Invalid string length: " + length);
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            stringList.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        int entryCount = readCount(in);
+        LinkedHashMap<String, HealthProcessStatisticMergeableSnapshot.Entry> statisticData = new LinkedHashMap<>(initialCapacity(entryCount) * 2);
+        for (int i = 0; i < entryCount; i++) {
+            String key = readString(in, stringList);
+            HealthProcessStatisticMergeableSnapshot.Entry entry = new HealthProcessStatisticMergeableSnapshot.Entry();
+            entry.setCounter(readVarLong(in));
+            long timestamp = readVarLong(in);
+            entry.setTimestamp(timestamp != 0L ? base - unzigzag(timestamp - 1L) : null);
+            int rateCount = readCount(in);
+            for (int w = 0; w < rateCount; w++) {
+                entry.getRates().put(readString(in, stringList), readVarLong(in));
+            }
+            statisticData.put(key, entry);
+        }
+        snapshot.setStatisticData(statisticData);
+
+        int durationCount = readCount(in);
+        LinkedHashMap<String, HealthProcessStatisticMergeableSnapshot.DurationEntry> durations = new LinkedHashMap<>(initialCapacity(durationCount) * 2);
+        for (int i = 0; i < durationCount; i++) {
+            String key = readString(in, stringList);
+            HealthProcessStatisticMergeableSnapshot.DurationEntry durationEntry = new HealthProcessStatisticMergeableSnapshot.DurationEntry();
+            durationEntry.setP50(in.readDouble());
+            durationEntry.setP90(in.readDouble());
+            durationEntry.setP99(in.readDouble());
+            durationEntry.setMax(in.readDouble());
+            durations.put(key, durationEntry);
+        }
+        snapshot.setDurations(durations);
+
+        int errorCount = readCount(in);
+        List<HealthErrorData> errorList = new ArrayList<>(initialCapacity(errorCount));
+        long previous = base;
+        for (int i = 0; i < errorCount; i++) {
+            HealthErrorData healthErrorData = new HealthErrorData();
+            healthErrorData.setTimestamp(readTimestamp(in, previous));
+            if (healthErrorData.getTimestamp() != null) {
+                previous = healthErrorData.getTimestamp().toInstant().toEpochMilli();
+            }
+            healthErrorData.setFunction(readString(in, stringList));
+            healthErrorData.setReturnCode(readString(in, stringList));
+            healthErrorData.setMessageText(readString(in, stringList));
+            healthErrorData.setInstructionText(readString(in, stringList));
+            healthErrorData.setReferenceId(readString(in, stringList));
+            healthErrorData.setSuppressedCounter(readVarLong(in));
+            errorList.add(healthErrorData);
+        }
+        snapshot.setErrorList(errorList);
+        return snapshot;
+    }
+
+    /**
+     * Write timestamp as flag, zigzag delta of epoch millis to reference, nanos within milli and offset seconds.
+     */
+    private static void writeTimestamp(final DataOutputStream out, final OffsetDateTime timestamp, final long reference)
+            throws IOException {
+        if (timestamp == null) {
+            out.writeByte(0);
+            return;
+        }
+        out.writeByte(1);
+        Instant instant = timestamp.toInstant();
+        writeVarLong(out, zigzag(instant.toEpochMilli() - reference));
+        writeVarLong(out, instant.getNano() % 1000000);
+        writeVarLong(out, zigzag(timestamp.getOffset().getTotalSeconds()));
+    }
+
+    private static OffsetDateTime readTimestamp(final DataInputStream in, final long reference) throws IOException {
+        if (in.readUnsignedByte() == 0) {
+            return null;
+        }
+        long epochMillis = reference + unzigzag(readVarLong(in));
+        long nanos = readVarLong(in);
+        int offsetSeconds = (int) unzigzag(readVarLong(in));
+        try {
+            return OffsetDateTime.ofInstant(Instant.ofEpochMilli(epochMillis).plusNanos(nanos),
+                    ZoneOffset.ofTotalSeconds(offsetSeconds));
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid timestamp.", e);
+        }
+    }
+
+    private static String readString(final DataInputStream in, final List<String> stringList) throws IOException {
+        long ref = readVarLong(in);
+        if (ref == 0L) {
+            return null;
+        }
+        if (ref < 0L || ref > stringList.size()) {
+            throw new IOException("Invalid string reference: " + ref);
+        }
+        return stringList.get((int) ref - 1);
+    }
+
+    private static int readCount(final DataInputStream in) throws IOException {
+        long count = readVarLong(in);
+        if (count < 0L || count > Integer.MAX_VALUE / 2) {
+            throw new IOException("Invalid count: " + count);
+        }
+        return (int) count;
+    }
+
+    /**
+     * Initial capacity of collection for count read from the payload: a corrupt or truncated payload
+     * must end with an IOException, not with an OutOfMemoryError, so collections grow while reading.
+     */
+    private static int initialCapacity(final int count) {
+        return Math.min(count, INITIAL_CAPACITY_MAX);
+    }
+
+    private static void writeVarLong(final DataOutputStream out, final long value) throws IOException {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0L) {
+            out.writeByte((int) ((remaining & 0x7FL) | 0x80L));
+            remaining >>>= 7;
+        }
+        out.writeByte((int) remaining);
+    }
+
+    private static long readVarLong(final DataInputStream in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated health process statistic snapshot.");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid variable length integer.");
+    }
+
+    private static long zigzag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(final long value) {
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    /**
+     * Distinct strings in order of first use.
+     */
+    private static class StringTable {
+
+        private final List<String> list = new ArrayList<>();
+        private final Map<String, Integer> indexMap = new HashMap<>();
+
+        private void add(final String string) {
+            if (string != null && !indexMap.containsKey(string)) {
+                indexMap.put(string, list.size());
+                list.add(string);
+            }
+        }
+
+        private long ref(final String string) {
+            return (string != null ? indexMap.get(string) + 1L : 0L);
+        }
+    }
+}
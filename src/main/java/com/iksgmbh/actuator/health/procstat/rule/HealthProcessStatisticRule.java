@@ -0,0 +1,161 @@
+package com.iksgmbh.actuator.health.procstat.rule;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * health rule as configured by management.health.processStatistic.rules[n].*
+ * <p>
+ * Keys may contain the placeholder {@link #FUNCTION_PLACEHOLDER}, the rule is then applied to every
+ * function of {@link #getFunctions()}, e.g. error "{function}Failed" and success "{function}Success".
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthProcessStatisticRule {
+
+    // Constants
+    public final static String FUNCTION_PLACEHOLDER = "{function}";
+
+    /**
+     * Type of rule.
+     */
+    public enum Type {
+        /** Last event of error key is not older than last event of success key. */
+        ERROR_AFTER_SUCCESS,
+        /** Counter of key is greater than threshold. */
+        COUNTER,
+        /** Number of events of key within window is greater than threshold. */
+        RATE,
+        /** Last event of key, or service start if there was none, is older than max age. */
+        STALE
+    }
+
+    private Type type;
+
+    /** Statistic data key of counter, rate and stale rules. */
+    private String key;
+
+    /** Statistic data key of errors of error-after-success rules. */
+    private String error;
+
+    /** Statistic data key of successes of error-after-success rules. */
+    private String success;
+
+    /** Functions replacing the placeholder in keys. */
+    private List<String> functions = new ArrayList<>();
+
+    /** Threshold of counter and rate rules. */
+    private long threshold = 0L;
+
+    /** Sliding window of rate rules, must be configured in management.health.processStatistic.rate.windows. */
+    private Duration window;
+
+    /** Max age of stale rules. */
+    private Duration maxAge;
+
+    /** Resulting health status, if rule matches. */
+    private String status = "DOWN";
+
+
+    public HealthProcessStatisticRule() {
+        super();
+    }
+
+    public HealthProcessStatisticRule(final Type type, final String status) {
+        super();
+        this.type = type;
+        this.status = status;
+    }
+
+    @Override
+    public String toString() {
+        return "HealthProcessStatisticRule{" +
+               "type=" + type +
+               ", key='" + key + "'" +
+               ", error='" + error + "'" +
+               ", success='" + success + "'" +
+               ", functions=" + functions +
+               ", threshold=" + threshold +
+               ", window=" + window +
+               ", maxAge=" + maxAge +
+               ", status='" + status + "'" +
+               "}";
+    }
+
+    // Getter + setter
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(final Type type) {
+        this.type = type;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(final String key) {
+        this.key = key;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(final String error) {
+        this.error = error;
+    }
+
+    public String getSuccess() {
+        return success;
+    }
+
+    public void setSuccess(final String success) {
+        this.success = success;
+    }
+
+    public List<String> getFunctions() {
+        return functions;
+    }
+
+    public void setFunctions(final List<String> functions) {
+        this.functions = functions;
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(final long threshold) {
+        this.threshold = threshold;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public void setWindow(final Duration window) {
+        this.window = window;
+    }
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(final Duration maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(final String status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,262 @@
+package com.iksgmbh.actuator.health.procstat.rule;
+
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticDataEntry;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticSnapshot;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * evaluation plan of health rules, compiled once from the configured rules.
+ * <p>
+ * Compiling expands the function placeholders, validates the rules, resolves every statistic data key
+ * to an index of a distinct key list and sorts the rules by severity of their status (DOWN first).
+ * Evaluating checks the rules against one {@link HealthProcessStatisticSnapshot} of the distinct keys,
+ * the first matching rule determines the status.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthProcessStatisticRulePlan {
+
+    // Constants
+    private final static List<String> STATUS_SEVERITY_ORDER = Arrays.asList(
+            Status.DOWN.getCode(), Status.OUT_OF_SERVICE.getCode(), "WARNING");
+
+    /** Distinct statistic data keys of all rules. */
+    private final String[] keys;
+
+    /** Compiled rules, most severe status first. */
+    private final CompiledRule[] rules;
+
+
+    private HealthProcessStatisticRulePlan(final String[] keys, final CompiledRule[] rules) {
+        this.keys = keys;
+        this.rules = rules;
+    }
+
+    /**
+     * Compile configured rules into an evaluation plan.
+     *
+     * @param ruleList    Configured rules
+     * @param rateWindows Configured sliding windows of statistic data, required by rate rules
+     * @return Evaluation plan
+     * @throws IllegalArgumentException Rule is incomplete or invalid
+     */
+    public static HealthProcessStatisticRulePlan compile(final List<HealthProcessStatisticRule> ruleList,
+            final List<Duration> rateWindows) {
+        Map<String, Integer> keyIndexMap = new LinkedHashMap<>();
+        List<CompiledRule> compiledRuleList = new ArrayList<>();
+
+        for (HealthProcessStatisticRule rule : ruleList) {
+            validate(rule, rateWindows);
+            Status status = new Status(rule.getStatus().trim().toUpperCase(Locale.ROOT));
+            List<String> functions = rule.getFunctions().isEmpty()
+                    ? Collections.singletonList(null) : rule.getFunctions();
+            for (String function : functions) {
+                CompiledRule compiledRule = new CompiledRule(rule.getType(), status, rule.getThreshold());
+                if (rule.getType() == HealthProcessStatisticRule.Type.ERROR_AFTER_SUCCESS) {
+                    compiledRule.keyIndex = indexOf(keyIndexMap, resolve(rule.getError(), function));
+                    compiledRule.successKeyIndex = indexOf(keyIndexMap, resolve(rule.getSuccess(), function));
+                } else {
+                    compiledRule.keyIndex = indexOf(keyIndexMap, resolve(rule.getKey(), function));
+                }
+                if (rule.getWindow() != null) {
+                    compiledRule.windowSeconds = rule.getWindow().getSeconds();
+                }
+                if (rule.getMaxAge() != null) {
+                    compiledRule.maxAgeMillis = rule.getMaxAge().toMillis();
+                }
+                compiledRuleList.add(compiledRule);
+            }
+        }
+
+        // stable sort, rules with same status keep configured order
+        compiledRuleList.sort((rule1, rule2) -> Integer.compare(severity(rule1.status), severity(rule2.status)));
+        return new HealthProcessStatisticRulePlan(keyIndexMap.keySet().toArray(new String[0]),
+                compiledRuleList.toArray(new CompiledRule[0]));
+    }
+
+    private static void validate(final HealthProcessStatisticRule rule, final List<Duration> rateWindows) {
+        if (rule.getType() == null || !StringUtils.hasText(rule.getStatus())) {
+            throw new IllegalArgumentException("Type and status of health rule are required: " + rule);
+        }
+        if (rule.getThreshold() < 0L) {
+            throw new IllegalArgumentException("Threshold of health rule must not be negative: " + rule);
+        }
+        switch (rule.getType()) {
+            case ERROR_AFTER_SUCCESS:
+                if (!StringUtils.hasText(rule.getError()) || !StringUtils.hasText(rule.getSuccess())) {
+                    throw new IllegalArgumentException("Error and success key of health rule are required: " + rule);
+                }
+                break;
+            case RATE:
+                if (rule.getWindow() == null || !rateWindows.contains(Duration.ofSeconds(rule.getWindow().getSeconds()))) {
+                    throw new IllegalArgumentException("Window of health rule must be configured in "
+                            + "management.health.processStatistic.rate.windows: " + rule);
+                }
+                break;
+            case STALE:
+                if (rule.getMaxAge() == null || rule.getMaxAge().isNegative() || rule.getMaxAge().isZero()) {
+                    throw new IllegalArgumentException("Max age of health rule must be greater than zero: " + rule);
+                }
+                break;
+            default:
+                break;
+        }
+        if (rule.getType() != HealthProcessStatisticRule.Type.ERROR_AFTER_SUCCESS && !StringUtils.hasText(rule.getKey())) {
+            throw new IllegalArgumentException("Key of health rule is required: " + rule);
+        }
+    }
+
+    private static String resolve(final String key, final String function) {
+        if (function == null) {
+            if (key.contains(HealthProcessStatisticRule.FUNCTION_PLACEHOLDER)) {
+                throw new IllegalArgumentException("Key " + key + " of health rule requires functions.");
+            }
+            return key.trim();
+        }
+        return key.trim().replace(HealthProcessStatisticRule.FUNCTION_PLACEHOLDER, function.trim());
+    }
+
+    private static int indexOf(final Map<String, Integer> keyIndexMap, final String key) {
+        return keyIndexMap.computeIfAbsent(key, k -> keyIndexMap.size());
+    }
+
+    private static int severity(final Status status) {
+        int index = STATUS_SEVERITY_ORDER.indexOf(status.getCode());
+        if (index >= 0) {
+            return index;
+        }
+        if (Status.UP.equals(status) || Status.UNKNOWN.equals(status)) {
+            return STATUS_SEVERITY_ORDER.size() + 1;
+        }
+        return STATUS_SEVERITY_ORDER.size();
+    }
+
+    /**
+     * Evaluate rules against a snapshot of the keys of the rules.
+     *
+     * @param healthProcessStatisticData Health process statistic data bean
+     * @return Status of first matching rule, null if no rule matches
+     */
+    public Status evaluate(final HealthProcessStatisticData healthProcessStatisticData) {
+        return evaluate(healthProcessStatisticData.getSnapshot(Arrays.asList(keys)));
+    }
+
+    /**
+     * Evaluate rules against a snapshot of the statistic data.
+     *
+     * @param snapshot Snapshot of statistic data
+     * @return Status of first matching rule, null if no rule matches
+     */
+    public Status evaluate(final HealthProcessStatisticSnapshot snapshot) {
+        long serviceStart = snapshot.getServiceStartTimestamp().toInstant().toEpochMilli();
+        int[] snapshotIndexes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            snapshotIndexes[i] = snapshot.indexOf(keys[i]);
+        }
+
+        for (CompiledRule rule : rules) {
+            if (rule.matches(snapshot, snapshotIndexes, serviceStart)) {
+                return rule.status;
+            }
+        }
+        return null;
+    }
+
+    public List<String> getKeyList() {
+        return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    public int getRuleCount() {
+        return rules.length;
+    }
+
+    public boolean isEmpty() {
+        return rules.length == 0;
+    }
+
+    /**
+     * Check whether the result may change without any event, i.e. the plan contains stale or rate rules.
+     *
+     * @return true if the result depends on the current time
+     */
+    public boolean isTimeDependent() {
+        for (CompiledRule rule : rules) {
+            if (rule.type == HealthProcessStatisticRule.Type.STALE || rule.type == HealthProcessStatisticRule.Type.RATE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rule with statistic data keys resolved to indexes of the snapshot.
+     */
+    private static class CompiledRule {
+
+        private final HealthProcessStatisticRule.Type type;
+        private final Status status;
+        private final long threshold;
+        private int keyIndex;
+        private int successKeyIndex;
+        private long windowSeconds;
+        private long maxAgeMillis;
+
+        private CompiledRule(final HealthProcessStatisticRule.Type type, final Status status, final long threshold) {
+            this.type = type;
+            this.status = status;
+            this.threshold = threshold;
+        }
+
+        private boolean matches(final HealthProcessStatisticSnapshot snapshot, final int[] snapshotIndexes,
+                final long serviceStart) {
+            int index = snapshotIndexes[keyIndex];
+            switch (type) {
+                case ERROR_AFTER_SUCCESS:
+                    int successIndex = snapshotIndexes[successKeyIndex];
+                    long errorTimestamp = timestampOf(snapshot, index);
+                    long successTimestamp = timestampOf(snapshot, successIndex);
+                    return errorTimestamp != HealthProcessStatisticDataEntry.NO_TIMESTAMP &&
+                           (successTimestamp == HealthProcessStatisticDataEntry.NO_TIMESTAMP ||
+                            HealthProcessStatisticDataEntry.isNotBefore(errorTimestamp, snapshot.getEventSequence(index),
+                                    successTimestamp, snapshot.getEventSequence(successIndex)));
+                case COUNTER:
+                    return index >= 0 && snapshot.getCounter(index) > threshold;
+                case RATE:
+                    int windowIndex = windowIndex(snapshot);
+                    return index >= 0 && windowIndex >= 0 && snapshot.getRate(index, windowIndex) > threshold;
+                case STALE:
+                    long timestamp = timestampOf(snapshot, index);
+                    long lastEvent = (timestamp != HealthProcessStatisticDataEntry.NO_TIMESTAMP ? timestamp : serviceStart);
+                    return snapshot.getTimestampMillis() - lastEvent > maxAgeMillis;
+                default:
+                    return false;
+            }
+        }
+
+        private static long timestampOf(final HealthProcessStatisticSnapshot snapshot, final int index) {
+            return (index >= 0 ? snapshot.getTimestampMillis(index) : HealthProcessStatisticDataEntry.NO_TIMESTAMP);
+        }
+
+        private int windowIndex(final HealthProcessStatisticSnapshot snapshot) {
+            for (int w = 0; w < snapshot.getRateWindowCount(); w++) {
+                if (snapshot.getRateWindow(w).getSeconds() == windowSeconds) {
+                    return w;
+                }
+            }
+            return -1;
+        }
+    }
+}
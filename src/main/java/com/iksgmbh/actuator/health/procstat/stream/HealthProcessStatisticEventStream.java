@@ -0,0 +1,366 @@
+package com.iksgmbh.actuator.health.procstat.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Health process statistic endpoint for in memory process statistic data -
+ * shared producer of Server-Sent Events with coalesced statistic updates.
+ * <p>
+ * One producer thread reads the statistic data at most once per interval and only if it changed: one delta
+ * (see {@link HealthProcessStatisticData#getHealthProcessStatisticDataDelta(long)}) serialized once is sent to all
+ * subscribers, so the cost does not grow with the number of subscribers. New subscribers first get a full frame,
+ * computed once per interval for all of them. The health status is added to a frame if it changed.
+ * <p>
+ * Frames are written by send threads, never by the producer or by threads recording statistic data. Each subscriber
+ * has at most one frame in progress and the send threads are created on demand, so a blocked subscriber never holds
+ * the send thread of another one. A subscriber still busy with its previous frame when the next frame is due is
+ * evicted and completed once its write returns, so a slow subscriber costs neither memory nor time of other subscribers.
+ *
+ * @author H. Jägle / IKS GmbH
+ * @version 1.6 2023-10-02
+ */
+public class HealthProcessStatisticEventStream implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthProcessStatisticEventStream.class);
+
+    // Constants
+    public final static String EVENT_FULL = "full";
+    public final static String EVENT_DELTA = "delta";
+    private final static long SEND_THREAD_KEEP_ALIVE_SECONDS = 60L;
+
+    private final HealthProcessStatisticData healthProcessStatisticData;
+
+    /** Supplier of current health status, null if status is not streamed. */
+    private final Supplier<Status> statusSupplier;
+
+    /** Min time between two frames. */
+    private final Duration interval;
+
+    /** Timeout of subscriptions, zero for no timeout. */
+    private final Duration timeout;
+
+    /** Max number of concurrent subscribers. */
+    private final int subscriberMaxSize;
+
+    private final ObjectMapper objectMapper;
+
+    private final CopyOnWriteArrayList<Subscriber> subscriberList = new CopyOnWriteArrayList<>();
+
+    /** Producer thread, started with the first subscriber. */
+    private ScheduledExecutorService producerExecutorService;
+
+    /**
+     * Threads writing frames to subscribers, started with the first subscriber. Created on demand, at most two per
+     * subscriber, so threads still blocked by evicted subscribers leave enough threads for the current ones.
+     */
+    private ExecutorService sendExecutorService;
+
+    private boolean closed;
+
+    // State of producer thread only
+
+    /** Version of last delta, 0 if none was read yet. */
+    private long version;
+
+    /** Modification count at last delta. */
+    private long modificationCount = -1L;
+
+    /** Health status of last frame. */
+    private String status;
+
+
+    /**
+     * Constructor.
+     *
+     * @param healthProcessStatisticData Health process statistic data bean
+     * @param statusSupplier             Supplier of current health status, null if status is not streamed
+     * @param interval                   Min time between two frames
+     * @param timeout                    Timeout of subscriptions, zero for no timeout
+     * @param subscriberMaxSize          Max number of concurrent subscribers
+     */
+    public HealthProcessStatisticEventStream(final HealthProcessStatisticData healthProcessStatisticData,
+            final Supplier<Status> statusSupplier,
+            final Duration interval,
+            final Duration timeout,
+            final int subscriberMaxSize) {
+        super();
+        if (interval.isNegative() || interval.isZero() || timeout.isNegative() || subscriberMaxSize < 1) {
+            throw new IllegalArgumentException("Interval must be greater than zero, timeout must not be negative " +
+                    "and max number of subscribers must be at least 1.");
+        }
+        this.healthProcessStatisticData = healthProcessStatisticData;
+        this.statusSupplier = statusSupplier;
+        this.interval = interval;
+        this.timeout = timeout;
+        this.subscriberMaxSize = subscriberMaxSize;
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    /**
+     * Subscribe to statistic updates.
+     *
+     * @return Emitter of subscription, null if max number of subscribers is reached
+     */
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(timeout.toMillis()));
+    }
+
+    /**
+     * Subscribe emitter to statistic updates.
+     *
+     * @param emitter Emitter of subscription
+     * @return Emitter, null if max number of subscribers is reached
+     */
+    public synchronized SseEmitter subscribe(final SseEmitter emitter) {
+        if (closed || subscriberList.size() >= subscriberMaxSize) {
+            return null;
+        }
+        start();
+
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscriberList.remove(subscriber));
+        emitter.onTimeout(() -> subscriberList.remove(subscriber));
+        emitter.onError(e -> subscriberList.remove(subscriber));
+        subscriberList.add(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Start producer and send threads.
+     */
+    private void start() {
+        if (producerExecutorService != null) {
+            return;
+        }
+        sendExecutorService = new ThreadPoolExecutor(0, subscriberMaxSize * 2,
+                SEND_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                daemonThreadFactory("health-process-statistic-stream-send-"));
+        producerExecutorService = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("health-process-statistic-stream-"));
+        producerExecutorService.scheduleWithFixedDelay(() -> {
+            try {
+                produce();
+            } catch (RuntimeException e) {
+                log.warn("Health process statistic stream frame could not be produced.", e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static ThreadFactory daemonThreadFactory(final String namePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Produce frames of one interval: a delta for subscribers up to date, if statistic data or status changed,
+     * and a full frame for new subscribers. Called by the producer thread only.
+     */
+    void produce() {
+        if (subscriberList.isEmpty()) {
+            version = 0L;  // nobody is up to date, next subscribers get a full frame anyway
+            return;
+        }
+
+        String currentStatus = (statusSupplier != null ? statusSupplier.get().getCode() : null);
+        boolean statusChanged = (currentStatus != null && !currentStatus.equals(status));
+        status = currentStatus;
+
+        // delta before full frame, so changes between both are in the full frame and again in the next delta
+        String delta = null;
+        String full = null;
+        long currentModificationCount = healthProcessStatisticData.getModificationCount();
+        if (version == 0L || currentModificationCount != modificationCount || statusChanged) {
+            modificationCount = currentModificationCount;
+            LinkedHashMap<String, Object> deltaMap = healthProcessStatisticData.getHealthProcessStatisticDataDelta(version);
+            version = (Long) deltaMap.get("version");
+            boolean deltaFull = Boolean.TRUE.equals(deltaMap.get("full"));
+            if (currentStatus != null && (statusChanged || deltaFull)) {
+                deltaMap.put("status", currentStatus);
+            }
+            delta = toJson(deltaMap);
+            full = (deltaFull ? delta : null);  // e.g. after reset, all subscribers get the same full frame
+        }
+
+        for (Subscriber subscriber : subscriberList) {
+            if (full == null && subscriber.needsFull) {
+                LinkedHashMap<String, Object> fullMap = healthProcessStatisticData.getHealthProcessStatisticDataDelta(0L);
+                if (currentStatus != null) {
+                    fullMap.put("status", currentStatus);
+                }
+                full = toJson(fullMap);
+                break;
+            }
+        }
+
+        for (Subscriber subscriber : subscriberList) {
+            if (subscriber.needsFull) {
+                if (full != null) {
+                    send(subscriber, EVENT_FULL, full);
+                }
+            } else if (delta != null) {
+                send(subscriber, EVENT_DELTA, delta);
+            }
+        }
+    }
+
+    /**
+     * Hand frame over to a send thread, unless the subscriber is still busy with its previous frame:
+     * then the subscriber is evicted, its emitter is completed by the send thread once the write returns.
+     */
+    private void send(final Subscriber subscriber, final String eventName, final String frame) {
+        if (!subscriber.sending.compareAndSet(false, true)) {
+            evict(subscriber);
+            return;
+        }
+        subscriber.needsFull = false;
+        try {
+            sendExecutorService.execute(() -> {
+                try {
+                    subscriber.emitter.send(SseEmitter.event().name(eventName).data(frame, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException e) {
+                    subscriberList.remove(subscriber);
+                    subscriber.emitter.completeWithError(e);
+                } finally {
+                    subscriber.sending.set(false);
+                    completeIfEvicted(subscriber);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            subscriber.sending.set(false);
+            evict(subscriber);
+        }
+    }
+
+    /**
+     * Remove subscriber, which does not take its frames in time. Its emitter is completed only if no write
+     * is in progress, otherwise by the send thread once the write returns: completing waits for the write
+     * and would block the producer.
+     */
+    private void evict(final Subscriber subscriber) {
+        subscriber.evicted = true;
+        if (subscriberList.remove(subscriber)) {
+            log.debug("Health process statistic stream subscriber evicted, previous frame still not written.");
+        }
+        completeIfEvicted(subscriber);
+    }
+
+    private static void completeIfEvicted(final Subscriber subscriber) {
+        if (subscriber.evicted && !subscriber.sending.get() && subscriber.completed.compareAndSet(false, true)) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    private String toJson(final LinkedHashMap<String, Object> map) {
+        try {
+            return objectMapper.writeValueAsString(map);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Health process statistic stream frame could not be serialized.", e);
+        }
+    }
+
+    /**
+     * Complete all subscriptions and stop producer and send threads.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (producerExecutorService != null) {
+            producerExecutorService.shutdownNow();
+            sendExecutorService.shutdownNow();
+        }
+        for (Subscriber subscriber : subscriberList) {
+            subscriber.emitter.complete();
+        }
+        subscriberList.clear();
+    }
+
+    /**
+     * Returns number of current subscribers.
+     *
+     * @return Number of subscribers
+     */
+    public int getSubscriberCount() {
+        return subscriberList.size();
+    }
+
+    /**
+     * Returns number of subscribers a frame is being written to.
+     *
+     * @return Number of subscribers busy with a frame
+     */
+    int getSendingCount() {
+        int count = 0;
+        for (Subscriber subscriber : subscriberList) {
+            if (subscriber.sending.get()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public int getSubscriberMaxSize() {
+        return subscriberMaxSize;
+    }
+
+    /**
+     * Subscriber with its send state.
+     */
+    private static class Subscriber {
+
+        private final SseEmitter emitter;
+
+        /** Frame is being written. */
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        /** Subscriber is new and gets a full frame next. */
+        private volatile boolean needsFull = true;
+
+        /** Subscriber was evicted, its emitter is completed after the write in progress. */
+        private volatile boolean evicted;
+
+        /** Emitter of evicted subscriber was completed. */
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Subscriber(final SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
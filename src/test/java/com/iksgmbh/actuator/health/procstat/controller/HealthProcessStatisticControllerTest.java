@@ -2,6 +2,7 @@ package com.iksgmbh.actuator.health.procstat.controller;
 
 import com.iksgmbh.actuator.health.procstat.config.HealthProcessStatisticConfig;
 import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.persistence.HealthProcessStatisticSnapshotCodec;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -10,6 +11,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @WebMvcTest(HealthProcessStatisticController.class)
@@ -61,6 +63,21 @@ public class HealthProcessStatisticControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isOk());
     }
 
+    @Test
+    void healthProcessStatisticGet_duration_test() throws Exception {
+
+        // given
+        healthProcessStatisticData.reset();
+        healthProcessStatisticData.recordDuration("myFunction", 3000000L);
+
+        // when
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/healthProcessStatistic/get/myFunctionDurationMax"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string("3.0"));
+    }
+
     @Test
     void healthProcessStatisticReset_true_test() throws Exception {
 
@@ -92,4 +109,127 @@ public class HealthProcessStatisticControllerTest {
 
         assertEquals(1, healthProcessStatisticData.getErrorList().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void healthProcessStatisticMetrics_prometheus_test() throws Exception {
+
+        // given
+        healthProcessStatisticData.reset();
+        healthProcessStatisticData.addError("function", "returncode", "messagetext", null, "referenceId");
+
+        // when
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/healthProcessStatistic/metrics"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith("text/plain"))
+                .andExpect(MockMvcResultMatchers.content().string(
+                        containsString("health_process_statistic_count_total{key=\"error\"} 1\n")))
+                .andExpect(MockMvcResultMatchers.content().string(
+                        containsString("health_process_statistic_error_list_size 1\n")));
+    }
+
+    @Test
+    void healthProcessStatisticGetBatch_keys_test() throws Exception {
+
+        // given
+        healthProcessStatisticData.reset();
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+        healthProcessStatisticData.addError("function", "returncode", "messagetext", null, "referenceId");
+
+        // when
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/healthProcessStatistic/get")
+                        .param("keys", "errorCounter,myFunctionSuccessCounter,unknownCounter"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errorCounter").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.myFunctionSuccessCounter").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.unknownCounter").doesNotExist());
+    }
+
+    @Test
+    void healthProcessStatisticGetBatch_prefix_test() throws Exception {
+
+        // given
+        healthProcessStatisticData.reset();
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+        healthProcessStatisticData.incrementCounter("myFunctionFailed");
+
+        // when
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/healthProcessStatistic/get")
+                        .param("prefix", "myFunction"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.myFunctionSuccessCounter").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.myFunctionFailedCounter").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errorCounter").doesNotExist());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/healthProcessStatistic/get"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    void healthProcessStatisticSnapshot_test() throws Exception {
+
+        // given
+        healthProcessStatisticData.reset();
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+
+        // when
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/healthProcessStatistic/snapshot"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.instanceCount").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.statisticData.myFunctionSuccess.counter").value(1));
+    }
+
+    @Test
+    void healthProcessStatisticSnapshot_binary_test() throws Exception {
+
+        // given
+        healthProcessStatisticData.reset();
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+
+        // when
+        byte[] result = mockMvc.perform(MockMvcRequestBuilders.get("/actuator/healthProcessStatistic/snapshot")
+                        .header("Accept", HealthProcessStatisticSnapshotCodec.CONTENT_TYPE))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(HealthProcessStatisticSnapshotCodec.CONTENT_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // then
+        assertEquals(1L, HealthProcessStatisticSnapshotCodec.decode(result).getStatisticData().get("myFunctionSuccess").getCounter());
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/healthProcessStatistic/snapshot?format=binary"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("Content-Disposition", containsString("processStatistic.hps")));
+    }
+
+    @Test
+    void healthProcessStatisticDelta_test() throws Exception {
+
+        // given
+        healthProcessStatisticData.reset();
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+        long version = ((Number) healthProcessStatisticData.getHealthProcessStatisticDataDelta(0L).get("version")).longValue();
+        healthProcessStatisticData.incrementCounter("myFunctionFailed");
+
+        // when
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/healthProcessStatistic/delta")
+                        .param("since", String.valueOf(version)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.full").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.version").value(version + 1L))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.myFunctionFailedCounter").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.myFunctionSuccessCounter").doesNotExist());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/healthProcessStatistic/delta"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.full").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.myFunctionSuccessCounter").value(1));
+    }
+}
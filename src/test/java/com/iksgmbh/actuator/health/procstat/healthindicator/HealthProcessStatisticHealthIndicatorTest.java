@@ -3,13 +3,20 @@ package com.iksgmbh.actuator.health.procstat.healthindicator;
 import com.iksgmbh.actuator.health.procstat.config.HealthProcessStatisticConfig;
 import com.iksgmbh.actuator.health.procstat.model.HealthErrorData;
 import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.rule.HealthProcessStatisticRule;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ContextConfiguration;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 @ContextConfiguration(classes = {
@@ -25,6 +32,9 @@ public class HealthProcessStatisticHealthIndicatorTest {
     @Autowired
     private HealthProcessStatisticHealthIndicator healthProcessStatisticHealthIndicator;
 
+    @Autowired
+    private HealthProcessStatisticStatusDecider healthProcessStatisticStatusDecider;
+
 
     @Test
     void health_UP_test() {
@@ -67,4 +77,145 @@ public class HealthProcessStatisticHealthIndicatorTest {
         // then
         assertEquals("UP", result.getStatus().toString());  // "WARNING"
     }
+
+    @Test
+    void health_cacheOnChange_test() {
+
+        // given
+        healthProcessStatisticData.reset();
+        HealthProcessStatisticHealthIndicator cachingHealthIndicator =
+                new HealthProcessStatisticHealthIndicator(healthProcessStatisticStatusDecider);
+        cachingHealthIndicator.setCacheOnChange(true);
+
+        // when
+        Health result1 = cachingHealthIndicator.health();
+        Health result2 = cachingHealthIndicator.health();
+        healthProcessStatisticData.addError("function", "returncode", "messagetext");
+        Health result3 = cachingHealthIndicator.health();
+
+        // then
+        assertSame(result1, result2);
+        assertNotSame(result2, result3);
+        assertEquals("UP", result2.getStatus().toString());
+        assertEquals("DOWN", result3.getStatus().toString());
+    }
+
+    @Test
+    void health_cacheOnChangeStaleRule_test() {
+
+        // given
+        HealthProcessStatisticData staleData = new HealthProcessStatisticData();
+        staleData.setClock(Clock.fixed(Instant.ofEpochMilli(1700000000000L), ZoneId.systemDefault()));
+        staleData.incrementCounter("myFunctionSuccess");
+        HealthProcessStatisticStatusDecider staleDecider = new HealthProcessStatisticStatusDecider(staleData);
+        HealthProcessStatisticRule rule = new HealthProcessStatisticRule(HealthProcessStatisticRule.Type.STALE, "DOWN");
+        rule.setKey("myFunctionSuccess");
+        rule.setMaxAge(Duration.ofMinutes(10));
+        staleDecider.setRules(Collections.singletonList(rule));
+        HealthProcessStatisticHealthIndicator cachingHealthIndicator = new HealthProcessStatisticHealthIndicator(staleDecider);
+        cachingHealthIndicator.setCacheOnChange(true);
+
+        // when
+        Health result1 = cachingHealthIndicator.health();
+        Health result2 = cachingHealthIndicator.health();
+        staleData.setClock(Clock.fixed(Instant.ofEpochMilli(1700000600001L), ZoneId.systemDefault()));
+        Health result3 = cachingHealthIndicator.health();
+
+        // then
+        assertTrue(staleDecider.isTimeDependent());
+        assertSame(result1, result2);
+        assertEquals("UP", result2.getStatus().toString());
+        assertEquals("DOWN", result3.getStatus().toString());
+    }
+
+    @Test
+    void health_cacheOnChangeRates_test() {
+
+        // given
+        HealthProcessStatisticData rateData = new HealthProcessStatisticData();
+        rateData.setClock(Clock.fixed(Instant.ofEpochMilli(1700000000000L), ZoneId.systemDefault()));
+        rateData.setRateWindows("1m");
+        rateData.incrementCounter("myFunctionSuccess");
+        HealthProcessStatisticHealthIndicator cachingHealthIndicator =
+                new HealthProcessStatisticHealthIndicator(new HealthProcessStatisticStatusDecider(rateData));
+        cachingHealthIndicator.setCacheOnChange(true);
+
+        // when
+        Health result1 = cachingHealthIndicator.health();
+        rateData.setClock(Clock.fixed(Instant.ofEpochMilli(1700000120000L), ZoneId.systemDefault()));
+        Health result2 = cachingHealthIndicator.health();
+
+        // then
+        assertEquals(1L, result1.getDetails().get("myFunctionSuccessRate1m"));
+        assertEquals(0L, result2.getDetails().get("myFunctionSuccessRate1m"));
+    }
+
+    @Test
+    void health_cacheTtl_test() throws InterruptedException {
+
+        // given
+        healthProcessStatisticData.reset();
+        HealthProcessStatisticHealthIndicator cachingHealthIndicator =
+                new HealthProcessStatisticHealthIndicator(healthProcessStatisticStatusDecider);
+        cachingHealthIndicator.setCacheTtl(Duration.ofMillis(50));
+
+        // when
+        Health result1 = cachingHealthIndicator.health();
+        healthProcessStatisticData.addError("function", "returncode", "messagetext");
+        Health result2 = cachingHealthIndicator.health();
+        Thread.sleep(60);
+        Health result3 = cachingHealthIndicator.health();
+
+        // then
+        assertSame(result1, result2);
+        assertEquals("UP", result2.getStatus().toString());
+        assertEquals("DOWN", result3.getStatus().toString());
+    }
+
+    @Test
+    void health_cacheBackgroundRefresh_test() throws InterruptedException {
+
+        // given
+        healthProcessStatisticData.reset();
+        HealthProcessStatisticHealthIndicator cachingHealthIndicator =
+                new HealthProcessStatisticHealthIndicator(healthProcessStatisticStatusDecider);
+        cachingHealthIndicator.setCacheOnChange(true);
+        cachingHealthIndicator.setCacheBackgroundRefresh(true);
+        cachingHealthIndicator.health();
+
+        // when
+        healthProcessStatisticData.addError("function", "returncode", "messagetext");
+        Health staleResult = cachingHealthIndicator.health();
+        Health result = staleResult;
+        for (int i = 0; i < 100 && "UP".equals(result.getStatus().toString()); i++) {
+            Thread.sleep(10);
+            result = cachingHealthIndicator.health();
+        }
+        cachingHealthIndicator.destroy();
+
+        // then
+        assertEquals("UP", staleResult.getStatus().toString());
+        assertEquals("DOWN", result.getStatus().toString());
+    }
+
+    @Test
+    void getHealth_detailsLazy_test() {
+
+        // given
+        healthProcessStatisticData.reset();
+        healthProcessStatisticData.addError("function", "returncode", "messagetext");
+        HealthProcessStatisticHealthIndicator lazyHealthIndicator =
+                new HealthProcessStatisticHealthIndicator(healthProcessStatisticStatusDecider);
+        lazyHealthIndicator.setDetailsLazy(true);
+
+        // when
+        Health resultWithoutDetails = lazyHealthIndicator.getHealth(false);
+        Health resultWithDetails = lazyHealthIndicator.getHealth(true);
+
+        // then
+        assertEquals("DOWN", resultWithoutDetails.getStatus().toString());
+        assertTrue(resultWithoutDetails.getDetails().isEmpty());
+        assertEquals("DOWN", resultWithDetails.getStatus().toString());
+        assertEquals(1L, resultWithDetails.getDetails().get("errorCounter"));
+    }
 }
@@ -2,12 +2,19 @@ package com.iksgmbh.actuator.health.procstat.healthindicator;
 
 import com.iksgmbh.actuator.health.procstat.config.HealthProcessStatisticConfig;
 import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticDataKey;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticSnapshot;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ContextConfiguration;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -96,6 +103,68 @@ public class HealthProcessStatisticStatusDeciderTest {
     }
 
 
+    @Test
+    void checkStatus_UP_test() {
+
+        // given
+        healthProcessStatisticData.reset();
+
+        // when
+        Status result = healthProcessStatisticStatusDecider.checkStatus();
+
+        // then
+        assertEquals(Status.UP, result);
+    }
+
+    @Test
+    void checkStatus_DOWN_test() {
+
+        // given
+        healthProcessStatisticData.reset();
+        healthProcessStatisticData.addError("function", "returncode", "messagetext", "instructiontext", "referenceid");
+
+        // when
+        Status result = healthProcessStatisticStatusDecider.checkStatus();
+
+        // then
+        assertEquals(Status.DOWN, result);
+    }
+
+    @Test
+    void checkStatus_WARNING_test() throws InterruptedException {
+
+        // given
+        healthProcessStatisticData.reset();
+        healthProcessStatisticData.addError("function", "returncode", "messagetext", "instructiontext", "referenceid");
+        Thread.sleep(1);
+        healthProcessStatisticData.incrementCounter(HealthProcessStatisticDataKey.request);
+
+        // when
+        Status result = healthProcessStatisticStatusDecider.checkStatus();
+
+        // then
+        assertEquals(HealthProcessStatisticStatusDecider.HEALTH_STATUS_WARNING, result);
+        assertEquals(result, healthProcessStatisticStatusDecider.checkHealth().getStatus());
+    }
+
+
+    @Test
+    void checkStatus_snapshot_test() {
+
+        // given
+        healthProcessStatisticData.reset();
+        healthProcessStatisticData.addError("function", "returncode", "messagetext", "instructiontext", "referenceid");
+        HealthProcessStatisticSnapshot snapshot = healthProcessStatisticData.getSnapshot();
+        healthProcessStatisticData.reset();
+
+        // when
+        Status result = healthProcessStatisticStatusDecider.checkStatus(snapshot);
+
+        // then
+        assertEquals(Status.DOWN, result);
+        assertEquals(Status.UP, healthProcessStatisticStatusDecider.checkStatus());
+    }
+
     @Test
     void isCounterGreaterZero1_test() {
 
@@ -178,6 +247,29 @@ public class HealthProcessStatisticStatusDeciderTest {
         assertFalse(result);
     }
 
+    @Test
+    void isErrorTimestampGreaterSuccessTimestamp_sameTimestamp_test() {
+
+        // given
+        String successKey = "success";
+        String errorKey = "error";
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setClock(Clock.fixed(Instant.ofEpochMilli(1000000L), ZoneOffset.UTC));  // one tick
+        HealthProcessStatisticStatusDecider healthProcessStatisticStatusDecider =
+                new HealthProcessStatisticStatusDecider(healthProcessStatisticData);
+        healthProcessStatisticData.incrementCounter(errorKey);
+        healthProcessStatisticData.incrementCounter(successKey);
+
+        // when
+        boolean successAfterError = healthProcessStatisticStatusDecider.isErrorTimestampGreaterSuccessTimestamp(errorKey, successKey);
+        healthProcessStatisticData.incrementCounter(errorKey);
+        boolean errorAfterSuccess = healthProcessStatisticStatusDecider.isErrorTimestampGreaterSuccessTimestamp(errorKey, successKey);
+
+        // then
+        assertFalse(successAfterError);
+        assertTrue(errorAfterSuccess);
+    }
+
     @Test
     void isErrorTimestampGreaterSuccessTimestamp_successOnly_test() {
 
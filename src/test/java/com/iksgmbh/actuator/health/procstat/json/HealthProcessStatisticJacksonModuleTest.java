@@ -0,0 +1,98 @@
+package com.iksgmbh.actuator.health.procstat.json;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HealthProcessStatisticJacksonModuleTest {
+
+    @Test
+    void serialize_sameAsDetailsMap_test() throws Exception {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = createHealthProcessStatisticData();
+        ObjectMapper objectMapper = createObjectMapper();
+
+        // when
+        String result = objectMapper.writeValueAsString(createStreamingHealth(healthProcessStatisticData));
+
+        // then
+        String expected = objectMapper.writeValueAsString(Health.status(new Status("WARNING", "Errors occurred"))
+                .withDetails(healthProcessStatisticData.getHealthProcessStatisticDataMap()).build());
+        assertEquals(expected, result);
+        assertTrue(result.contains("\"myFunctionRequestCounter\":2"));
+        assertTrue(result.contains("\"myFunctionFailedTimestamp\":null"));
+    }
+
+    @Test
+    void serialize_nonNullInclusion_test() throws Exception {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = createHealthProcessStatisticData();
+        ObjectMapper objectMapper = createObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+        // when
+        String result = objectMapper.writeValueAsString(createStreamingHealth(healthProcessStatisticData));
+
+        // then
+        String expected = objectMapper.writeValueAsString(Health.status(new Status("WARNING", "Errors occurred"))
+                .withDetails(healthProcessStatisticData.getHealthProcessStatisticDataMap()).build());
+        assertEquals(expected, result);
+        assertTrue(result.contains("\"myFunctionFailedTimestamp\":null"));
+    }
+
+    @Test
+    void serialize_otherHealth_test() throws Exception {
+
+        // given
+        ObjectMapper objectMapper = createObjectMapper();
+        Health health = Health.up().withDetail("total", 42L).build();
+
+        // when
+        String result = objectMapper.writeValueAsString(health);
+
+        // then
+        assertEquals("{\"status\":\"UP\",\"details\":{\"total\":42}}", result);
+    }
+
+    private static HealthProcessStatisticData createHealthProcessStatisticData() {
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setClock(Clock.fixed(Instant.ofEpochMilli(1700000000042L), ZoneId.of("Europe/Berlin")));
+        healthProcessStatisticData.setRateWindows(Arrays.asList(Duration.ofMinutes(1), Duration.ofMinutes(5)));
+        healthProcessStatisticData.setKeyMaxSize(100);
+        healthProcessStatisticData.setErrorListDetails(HealthProcessStatisticData.ErrorListDetails.BOTH);
+        healthProcessStatisticData.incrementCounter("myFunctionRequest");
+        healthProcessStatisticData.incrementCounter("myFunctionRequest");
+        healthProcessStatisticData.counter("myFunctionFailed");
+        healthProcessStatisticData.addError("myFunction", "E42", "Message \"text\"", "Instruction", "4711");
+        healthProcessStatisticData.recordDuration("myFunction", 1500000L);
+        return healthProcessStatisticData;
+    }
+
+    private static Health createStreamingHealth(final HealthProcessStatisticData healthProcessStatisticData) {
+        return Health.status(new Status("WARNING", "Errors occurred"))
+                .withDetail(HealthProcessStatisticDetails.DETAILS_KEY, new HealthProcessStatisticDetails(
+                        healthProcessStatisticData.getSnapshot(), new HealthProcessStatisticDetails.NameCache()))
+                .build();
+    }
+
+    private static ObjectMapper createObjectMapper() {
+        return new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .registerModule(new HealthProcessStatisticJacksonModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+}
@@ -0,0 +1,58 @@
+package com.iksgmbh.actuator.health.procstat.metrics;
+
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HealthProcessStatisticExpositionWriterTest {
+
+    @Test
+    void write_prometheus_test() throws Exception {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setClock(Clock.fixed(Instant.ofEpochMilli(1700000000042L), ZoneId.systemDefault()));
+        healthProcessStatisticData.incrementCounter("myFunction\"Request");
+        healthProcessStatisticData.incrementCounter("myFunction\"Request");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        new HealthProcessStatisticExpositionWriter(healthProcessStatisticData).write(outputStream, false);
+
+        // then
+        String result = new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(result.contains("# TYPE health_process_statistic_count_total counter\n"));
+        assertTrue(result.contains("health_process_statistic_count_total{key=\"error\"} 0\n"));
+        assertTrue(result.contains("health_process_statistic_count_total{key=\"myFunction\\\"Request\"} 2\n"));
+        assertTrue(result.contains("health_process_statistic_timestamp_seconds{key=\"myFunction\\\"Request\"} 1700000000.042\n"));
+        assertFalse(result.contains("health_process_statistic_timestamp_seconds{key=\"error\"}"));
+        assertTrue(result.endsWith("health_process_statistic_error_list_size 0\n"));
+    }
+
+    @Test
+    void write_openMetrics_test() throws Exception {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        for (int i = 0; i < 500; i++) {
+            healthProcessStatisticData.incrementCounter("myFunction" + i + "Request");
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        new HealthProcessStatisticExpositionWriter(healthProcessStatisticData).write(outputStream, true);
+
+        // then
+        String result = new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(result.contains("# TYPE health_process_statistic_count counter\n"));
+        assertTrue(result.contains("health_process_statistic_count_total{key=\"myFunction499Request\"} 1\n"));
+        assertTrue(result.endsWith("# EOF\n"));
+    }
+}
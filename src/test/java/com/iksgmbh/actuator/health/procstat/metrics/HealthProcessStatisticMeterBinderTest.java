@@ -0,0 +1,82 @@
+package com.iksgmbh.actuator.health.procstat.metrics;
+
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HealthProcessStatisticMeterBinderTest {
+
+    @Test
+    void bindTo_existingKeys_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setClock(Clock.fixed(Instant.ofEpochMilli(5000L), ZoneId.systemDefault()));
+        healthProcessStatisticData.incrementCounter("error");
+        healthProcessStatisticData.incrementCounter("error");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        // when
+        new HealthProcessStatisticMeterBinder(healthProcessStatisticData).bindTo(registry);
+
+        // then
+        FunctionCounter counter = registry.get(HealthProcessStatisticMeterBinder.METER_NAME_COUNT)
+                .tag(HealthProcessStatisticMeterBinder.TAG_KEY, "error").functionCounter();
+        TimeGauge timestamp = registry.get(HealthProcessStatisticMeterBinder.METER_NAME_TIMESTAMP)
+                .tag(HealthProcessStatisticMeterBinder.TAG_KEY, "error").timeGauge();
+        assertEquals(2.0d, counter.count());
+        assertEquals(5.0d, timestamp.value(TimeUnit.SECONDS));
+    }
+
+    @Test
+    void statisticDataKeyAdded_newKey_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new HealthProcessStatisticMeterBinder(healthProcessStatisticData).bindTo(registry);
+
+        // when
+        healthProcessStatisticData.incrementCounter("myFunctionRequest");
+        healthProcessStatisticData.incrementCounter("myFunctionRequest");
+        healthProcessStatisticData.incrementCounter("myFunctionRequest");
+
+        // then
+        FunctionCounter counter = registry.get(HealthProcessStatisticMeterBinder.METER_NAME_COUNT)
+                .tag(HealthProcessStatisticMeterBinder.TAG_KEY, "myFunctionRequest").functionCounter();
+        assertEquals(3.0d, counter.count());
+    }
+
+    @Test
+    void statisticDataReset_removedKey_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new HealthProcessStatisticMeterBinder(healthProcessStatisticData).bindTo(registry);
+        healthProcessStatisticData.incrementCounter("myFunctionRequest");
+        healthProcessStatisticData.incrementCounter("error");
+
+        // when
+        healthProcessStatisticData.reset();
+
+        // then
+        assertNull(registry.find(HealthProcessStatisticMeterBinder.METER_NAME_COUNT)
+                .tag(HealthProcessStatisticMeterBinder.TAG_KEY, "myFunctionRequest").functionCounter());
+        FunctionCounter counter = registry.get(HealthProcessStatisticMeterBinder.METER_NAME_COUNT)
+                .tag(HealthProcessStatisticMeterBinder.TAG_KEY, "error").functionCounter();
+        assertEquals(0.0d, counter.count());
+        TimeGauge timestamp = registry.get(HealthProcessStatisticMeterBinder.METER_NAME_TIMESTAMP)
+                .tag(HealthProcessStatisticMeterBinder.TAG_KEY, "error").timeGauge();
+        assertTrue(Double.isNaN(timestamp.value()));
+    }
+}
@@ -0,0 +1,137 @@
+package com.iksgmbh.actuator.health.procstat.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HealthErrorQueueTest {
+
+    @Test
+    void offer_flush_test() {
+
+        // given
+        List<String> processedList = Collections.synchronizedList(new ArrayList<>());
+        LongAdder droppedCounter = new LongAdder();
+        HealthErrorQueue healthErrorQueue = new HealthErrorQueue(8, HealthErrorQueue.OverflowPolicy.DROP_NEWEST,
+                droppedCounter, batch -> batch.forEach(error -> processedList.add(error.getFunction())));
+
+        // when
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(healthErrorQueue.offer(new HealthErrorData("function" + i, "returncode", "messagetext")));
+        }
+        healthErrorQueue.flush();
+
+        // then
+        assertEquals(5, processedList.size());
+        assertEquals("function1", processedList.get(0));
+        assertEquals("function5", processedList.get(4));
+        assertTrue(healthErrorQueue.isEmpty());
+        assertEquals(0L, droppedCounter.sum());
+        healthErrorQueue.close();
+    }
+
+    @Test
+    void offer_dropNewest_test() throws InterruptedException {
+
+        // when
+        List<String> processedList = offerWithBlockedWorker(HealthErrorQueue.OverflowPolicy.DROP_NEWEST);
+
+        // then
+        assertEquals(5, processedList.size());
+        assertEquals("function0", processedList.get(0));
+        assertEquals("function1", processedList.get(1));
+        assertEquals("function4", processedList.get(4));
+    }
+
+    @Test
+    void offer_dropOldest_test() throws InterruptedException {
+
+        // when
+        List<String> processedList = offerWithBlockedWorker(HealthErrorQueue.OverflowPolicy.DROP_OLDEST);
+
+        // then
+        assertEquals(5, processedList.size());
+        assertEquals("function0", processedList.get(0));
+        assertEquals("function3", processedList.get(1));
+        assertEquals("function6", processedList.get(4));
+    }
+
+    @Test
+    void offer_closed_test() {
+
+        // given
+        LongAdder droppedCounter = new LongAdder();
+        HealthErrorQueue healthErrorQueue = new HealthErrorQueue(4, HealthErrorQueue.OverflowPolicy.DROP_OLDEST,
+                droppedCounter, batch -> { });
+        healthErrorQueue.close();
+
+        // when
+        boolean result = healthErrorQueue.offer(new HealthErrorData("function", "returncode", "messagetext"));
+
+        // then
+        assertFalse(result);
+        assertEquals(1L, droppedCounter.sum());
+    }
+
+    @Test
+    void flush_consumerFails_test() {
+
+        // given
+        LongAdder droppedCounter = new LongAdder();
+        HealthErrorQueue healthErrorQueue = new HealthErrorQueue(8, HealthErrorQueue.OverflowPolicy.DROP_NEWEST,
+                droppedCounter, batch -> {
+                    throw new IllegalStateException("consumer failed");
+                });
+
+        // when
+        for (int i = 1; i <= 3; i++) {
+            healthErrorQueue.offer(new HealthErrorData("function" + i, "returncode", "messagetext"));
+        }
+        healthErrorQueue.flush();
+
+        // then
+        assertTrue(healthErrorQueue.isEmpty());
+        assertEquals(3L, droppedCounter.sum());
+        healthErrorQueue.close();
+    }
+
+    /**
+     * Offer "function0" and wait until the worker thread blocks processing it,
+     * then offer "function1" to "function6" into a queue of capacity 4, so two error events are dropped.
+     */
+    private static List<String> offerWithBlockedWorker(final HealthErrorQueue.OverflowPolicy overflowPolicy)
+            throws InterruptedException {
+        List<String> processedList = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch workerBlocked = new CountDownLatch(1);
+        CountDownLatch workerReleased = new CountDownLatch(1);
+        LongAdder droppedCounter = new LongAdder();
+        HealthErrorQueue healthErrorQueue = new HealthErrorQueue(3, overflowPolicy, droppedCounter, batch -> {
+            batch.forEach(error -> processedList.add(error.getFunction()));
+            workerBlocked.countDown();
+            try {
+                workerReleased.await(5L, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertEquals(4, healthErrorQueue.getCapacity());
+
+        healthErrorQueue.offer(new HealthErrorData("function0", "returncode", "messagetext"));
+        assertTrue(workerBlocked.await(5L, TimeUnit.SECONDS));
+        for (int i = 1; i <= 6; i++) {
+            healthErrorQueue.offer(new HealthErrorData("function" + i, "returncode", "messagetext"));
+        }
+        assertEquals(2L, droppedCounter.sum());
+
+        workerReleased.countDown();
+        healthErrorQueue.close();
+        return processedList;
+    }
+}
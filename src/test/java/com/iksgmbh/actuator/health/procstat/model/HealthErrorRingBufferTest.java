@@ -0,0 +1,96 @@
+package com.iksgmbh.actuator.health.procstat.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HealthErrorRingBufferTest {
+
+    @Test
+    void add_belowCapacity_test() {
+
+        // given
+        HealthErrorRingBuffer healthErrorRingBuffer = new HealthErrorRingBuffer(3);
+
+        // when
+        healthErrorRingBuffer.add(new HealthErrorData("function1", "returncode", "messagetext"));
+        healthErrorRingBuffer.add(new HealthErrorData("function2", "returncode", "messagetext"));
+
+        // then
+        List<HealthErrorData> resultErrorList = healthErrorRingBuffer.toList();
+        assertEquals(2, resultErrorList.size());
+        assertEquals(2, healthErrorRingBuffer.size());
+        assertEquals("function1", resultErrorList.get(0).getFunction());
+        assertEquals("function2", resultErrorList.get(1).getFunction());
+    }
+
+    @Test
+    void add_overCapacity_test() {
+
+        // given
+        HealthErrorRingBuffer healthErrorRingBuffer = new HealthErrorRingBuffer(3);
+
+        // when
+        for (int i = 1; i <= 7; i++) {
+            healthErrorRingBuffer.add(new HealthErrorData("function" + i, "returncode", "messagetext"));
+        }
+
+        // then
+        List<HealthErrorData> resultErrorList = healthErrorRingBuffer.toList();
+        assertEquals(3, resultErrorList.size());
+        assertEquals(3, healthErrorRingBuffer.size());
+        assertEquals("function5", resultErrorList.get(0).getFunction());
+        assertEquals("function6", resultErrorList.get(1).getFunction());
+        assertEquals("function7", resultErrorList.get(2).getFunction());
+    }
+
+    @Test
+    void add_zeroCapacity_test() {
+
+        // given
+        HealthErrorRingBuffer healthErrorRingBuffer = new HealthErrorRingBuffer(0);
+
+        // when
+        healthErrorRingBuffer.add(new HealthErrorData("function", "returncode", "messagetext"));
+
+        // then
+        assertEquals(0, healthErrorRingBuffer.toList().size());
+        assertEquals(0, healthErrorRingBuffer.size());
+    }
+
+    @Test
+    void add_concurrent_test() throws InterruptedException {
+
+        // given
+        int threadCount = 8;
+        int errorCount = 10000;
+        HealthErrorRingBuffer healthErrorRingBuffer = new HealthErrorRingBuffer(1000);
+
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            final String function = "function" + i;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < errorCount; j++) {
+                    healthErrorRingBuffer.add(new HealthErrorData(function, String.valueOf(j), "messagetext"));
+                }
+            });
+        }
+
+        // when
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // then
+        List<HealthErrorData> resultErrorList = healthErrorRingBuffer.toList();
+        assertEquals(1000, resultErrorList.size());
+        for (HealthErrorData resultError : resultErrorList) {
+            assertNotNull(resultError.getFunction());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.iksgmbh.actuator.health.procstat.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HealthErrorSamplerTest {
+
+    @Test
+    void sample_burst_test() {
+
+        // given
+        HealthErrorSampler healthErrorSampler = new HealthErrorSampler(1.0d, 2, Collections.emptyMap());
+        HealthErrorData healthErrorData = new HealthErrorData("function", "returncode", "messagetext");
+
+        // when
+        long result1 = healthErrorSampler.sample(healthErrorData, 1000000L);
+        long result2 = healthErrorSampler.sample(healthErrorData, 1000000L);
+        long result3 = healthErrorSampler.sample(healthErrorData, 1000000L);
+        long result4 = healthErrorSampler.sample(healthErrorData, 1000100L);
+        long result5 = healthErrorSampler.sample(healthErrorData, 1001000L);
+
+        // then
+        assertEquals(0L, result1);
+        assertEquals(0L, result2);
+        assertEquals(-1L, result3);
+        assertEquals(-1L, result4);
+        assertEquals(2L, result5);
+    }
+
+    @Test
+    void sample_functionRate_test() {
+
+        // given
+        Map<String, Double> functionRateMap = HealthErrorSampler.parseFunctionRates("sampledFunction=1, allFunction=0");
+        HealthErrorSampler healthErrorSampler = new HealthErrorSampler(0.0d, 1, functionRateMap);
+
+        // when
+        long sampledResult1 = healthErrorSampler.sample(new HealthErrorData("sampledFunction", "rc", "text"), 1000000L);
+        long sampledResult2 = healthErrorSampler.sample(new HealthErrorData("sampledFunction", "rc", "text"), 1000000L);
+        long allResult = healthErrorSampler.sample(new HealthErrorData("allFunction", "rc", "text"), 1000000L);
+        long otherResult = healthErrorSampler.sample(new HealthErrorData("otherFunction", "rc", "text"), 1000000L);
+
+        // then
+        assertEquals(2, functionRateMap.size());
+        assertEquals(0L, sampledResult1);
+        assertEquals(-1L, sampledResult2);
+        assertEquals(0L, allResult);
+        assertEquals(0L, otherResult);
+    }
+
+    @Test
+    void parseFunctionRates_invalid_test() {
+
+        // when + then
+        assertThrows(IllegalArgumentException.class, () -> HealthErrorSampler.parseFunctionRates("myFunction"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new HealthErrorSampler(1.0d, 1, HealthErrorSampler.parseFunctionRates("myFunction=-1")));
+    }
+}
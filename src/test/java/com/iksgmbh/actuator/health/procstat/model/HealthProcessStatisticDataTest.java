@@ -6,7 +6,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ContextConfiguration;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -164,6 +177,131 @@ public class HealthProcessStatisticDataTest {
     }
 
 
+    @Test
+    void incrementCounter_concurrent_test() throws InterruptedException {
+
+        // given
+        int threadCount = 8;
+        int incrementCount = 10000;
+        healthProcessStatisticData.reset();
+
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            final String key = "testkey" + (i % 2);
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < incrementCount; j++) {
+                    healthProcessStatisticData.incrementCounter(key);
+                    healthProcessStatisticData.incrementCounter(HealthProcessStatisticDataKey.request);
+                }
+            });
+        }
+
+        // when
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // then
+        assertEquals(threadCount / 2 * incrementCount, healthProcessStatisticData.getStatisticDataCounter("testkey0"));
+        assertEquals(threadCount / 2 * incrementCount, healthProcessStatisticData.getStatisticDataCounter("testkey1"));
+        assertEquals(threadCount * incrementCount,
+                healthProcessStatisticData.getStatisticDataCounter(HealthProcessStatisticDataKey.request));
+
+        List<String> resultStatisticDataKeyList = healthProcessStatisticData.getStatisticDataKeyList();
+        assertEquals(4, resultStatisticDataKeyList.size());
+        assertEquals(HealthProcessStatisticDataKey.request.toString(), resultStatisticDataKeyList.get(0));
+        assertEquals(HealthProcessStatisticDataKey.error.toString(), resultStatisticDataKeyList.get(1));
+    }
+
+
+    @Test
+    void incrementCounter_clock_test() {
+
+        // given
+        String key = "testkey";
+        Instant now = Instant.parse("2024-02-01T11:05:01.123Z");
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setClock(Clock.fixed(now, ZoneOffset.ofHours(1)));
+
+        // when
+        healthProcessStatisticData.incrementCounter(key);
+
+        // then
+        OffsetDateTime resultTimestamp = healthProcessStatisticData.getStatisticDataTimestamp(key);
+        assertEquals(OffsetDateTime.parse("2024-02-01T12:05:01.123+01:00"), resultTimestamp);
+        assertEquals(resultTimestamp, healthProcessStatisticData.getHealthProcessStatisticDataMap().get(
+                key + HealthProcessStatisticData.HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_TIMESTAMP));
+        assertNull(healthProcessStatisticData.getStatisticDataTimestamp(HealthProcessStatisticDataKey.request));
+    }
+
+    @Test
+    void incrementCounter_coarseClock_test() {
+
+        // given
+        String key = "testkey";
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setClockGranularity(10L);
+        long before = System.currentTimeMillis();
+
+        // when
+        healthProcessStatisticData.incrementCounter(key);
+
+        // then
+        assertTrue(healthProcessStatisticData.getClock() instanceof HealthProcessStatisticCoarseClock);
+        long resultTimestamp = healthProcessStatisticData.getStatisticDataTimestamp(key).toInstant().toEpochMilli();
+        assertTrue(Math.abs(resultTimestamp - before) < 1000L);
+
+        healthProcessStatisticData.close();
+        assertFalse(healthProcessStatisticData.getClock() instanceof HealthProcessStatisticCoarseClock);
+    }
+
+    @Test
+    void counter_increment_test() {
+
+        // given
+        String key = "testkey";
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();  // pinned keys survive reset
+        HealthProcessStatisticCounter counter = healthProcessStatisticData.counter(key);
+
+        // when
+        counter.increment();
+        counter.increment();
+        healthProcessStatisticData.incrementCounter(key);
+
+        // then
+        assertEquals(3L, counter.getCounter());
+        assertNotNull(counter.getTimestamp());
+        Map<String, Object> resultHealthProcessStatisticDataMap = healthProcessStatisticData.getHealthProcessStatisticDataMap();
+        assertEquals(3L, resultHealthProcessStatisticDataMap.get(
+                key + HealthProcessStatisticData.HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_COUNTER));
+    }
+
+    @Test
+    void counter_reset_test() {
+
+        // given
+        String key = "testkey";
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();  // pinned keys survive reset
+        HealthProcessStatisticCounter counter = healthProcessStatisticData.counter(key);
+        HealthProcessStatisticCounter errorCounter = healthProcessStatisticData.counter(HealthProcessStatisticDataKey.error);
+        counter.increment();
+        errorCounter.increment();
+
+        // when
+        healthProcessStatisticData.reset();
+        counter.increment();
+        errorCounter.increment();
+
+        // then
+        assertEquals(1L, healthProcessStatisticData.getStatisticDataCounter(key));
+        assertEquals(1L, healthProcessStatisticData.getStatisticDataCounter(HealthProcessStatisticDataKey.error));
+        assertTrue(healthProcessStatisticData.getStatisticDataKeyList().contains(key));
+    }
+
+
     @Test
     void addError1_test() {
 
@@ -304,4 +442,544 @@ public class HealthProcessStatisticDataTest {
         resultError = resultErrorList.get(0);
         assertEquals("function2", resultError.getFunction());
     }
+
+    @Test
+    void setErrorListMaxSize_keepNewest_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setErrorListMaxSize(5);
+        healthProcessStatisticData.addError("function1", "returncode", "messagetext");
+        healthProcessStatisticData.addError("function2", "returncode", "messagetext");
+        healthProcessStatisticData.addError("function3", "returncode", "messagetext");
+
+        // when
+        healthProcessStatisticData.setErrorListMaxSize(2);
+
+        // then
+        List<HealthErrorData> resultErrorList = healthProcessStatisticData.getErrorList();
+        assertEquals(2, resultErrorList.size());
+        assertEquals("function2", resultErrorList.get(0).getFunction());
+        assertEquals("function3", resultErrorList.get(1).getFunction());
+        assertEquals(3L, healthProcessStatisticData.getStatisticDataCounter(HealthProcessStatisticDataKey.error));
+    }
+
+    @Test
+    void getRate_test() {
+
+        // given
+        Instant now = Instant.parse("2024-02-01T11:05:01.123Z");
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setRateWindows("1m, 5m");
+        healthProcessStatisticData.setClock(Clock.fixed(now.minusSeconds(120), ZoneOffset.UTC));
+        healthProcessStatisticData.incrementCounter(HealthProcessStatisticDataKey.error);
+        healthProcessStatisticData.setClock(Clock.fixed(now, ZoneOffset.UTC));
+
+        // when
+        healthProcessStatisticData.incrementCounter(HealthProcessStatisticDataKey.error);
+        healthProcessStatisticData.incrementCounter(HealthProcessStatisticDataKey.error);
+
+        // then
+        assertEquals(2L, healthProcessStatisticData.getRate(HealthProcessStatisticDataKey.error, Duration.ofMinutes(1)));
+        assertEquals(3L, healthProcessStatisticData.getRate(HealthProcessStatisticDataKey.error, Duration.ofMinutes(5)));
+        assertEquals(0L, healthProcessStatisticData.getRate(HealthProcessStatisticDataKey.request, Duration.ofMinutes(5)));
+
+        Map<String, Object> resultHealthProcessStatisticDataMap = healthProcessStatisticData.getHealthProcessStatisticDataMap();
+        assertEquals(10, resultHealthProcessStatisticDataMap.size());
+        assertEquals(2L, resultHealthProcessStatisticDataMap.get("errorRate1m"));
+        assertEquals(3L, resultHealthProcessStatisticDataMap.get("errorRate5m"));
+    }
+
+    @Test
+    void recordDuration_test() {
+
+        // given
+        String key = "myFunction";
+        healthProcessStatisticData.reset();
+
+        // when
+        healthProcessStatisticData.recordDuration(key, 2000000L);
+        healthProcessStatisticData.recordDuration(key, 4000000L);
+
+        // then
+        Map<String, Object> resultHealthProcessStatisticDataMap = healthProcessStatisticData.getHealthProcessStatisticDataMap();
+        assertEquals(10, resultHealthProcessStatisticDataMap.size());
+        assertEquals(2.0d, (Double) resultHealthProcessStatisticDataMap.get(
+                key + HealthProcessStatisticData.HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_P50), 0.1d);
+        assertEquals(4.0d, (Double) resultHealthProcessStatisticDataMap.get(
+                key + HealthProcessStatisticData.HEALTH_PROCESS_STATISTIC_DATA_SUBKEY_DURATION_MAX));
+        assertEquals(4000000L, healthProcessStatisticData.getDurationAtPercentile(key, 100.0d));
+
+        // when
+        healthProcessStatisticData.reset();
+
+        // then
+        assertNull(healthProcessStatisticData.getDurationAtPercentile(key, 50.0d));
+        assertEquals(6, healthProcessStatisticData.getHealthProcessStatisticDataMap().size());
+    }
+
+    @Test
+    void addError_aggregate_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setErrorListMaxSize(2);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            healthProcessStatisticData.addError("myFunction", "ERR-001", "messagetext", null, "referenceId" + i);
+        }
+        healthProcessStatisticData.addError("myFunction", "ERR-002", "messagetext");
+
+        // then
+        List<HealthErrorAggregate> resultErrorAggregateList = healthProcessStatisticData.getErrorAggregateList();
+        assertEquals(2, healthProcessStatisticData.getErrorList().size());
+        assertEquals(2, resultErrorAggregateList.size());
+        assertEquals("ERR-001", resultErrorAggregateList.get(0).getReturnCode());
+        assertEquals(100L, resultErrorAggregateList.get(0).getCount());
+        assertEquals("referenceId99", resultErrorAggregateList.get(0).getReferenceId());
+        assertNotNull(resultErrorAggregateList.get(0).getFirstSeen());
+        assertFalse(resultErrorAggregateList.get(0).getLastSeen().isBefore(resultErrorAggregateList.get(0).getFirstSeen()));
+        assertEquals(1L, resultErrorAggregateList.get(1).getCount());
+
+        // when
+        healthProcessStatisticData.resetErrorList();
+
+        // then
+        assertTrue(healthProcessStatisticData.getErrorAggregateList().isEmpty());
+    }
+
+    @Test
+    void addError_aggregateOverflow_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setErrorAggregateMaxSize(2);
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            healthProcessStatisticData.addError("myFunction", "ERR-00" + i, "messagetext");
+        }
+
+        // then
+        List<HealthErrorAggregate> resultErrorAggregateList = healthProcessStatisticData.getErrorAggregateList();
+        assertEquals(3, resultErrorAggregateList.size());
+        assertEquals(HealthProcessStatisticData.ERROR_AGGREGATE_OVERFLOW, resultErrorAggregateList.get(2).getReturnCode());
+        assertEquals(3L, resultErrorAggregateList.get(2).getCount());
+    }
+
+    @Test
+    void getHealthProcessStatisticDataMap_errorListDetails_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.addError("myFunction", "ERR-001", "messagetext");
+
+        // when
+        healthProcessStatisticData.setErrorListDetails("aggregate");
+        Map<String, Object> resultAggregate = healthProcessStatisticData.getHealthProcessStatisticDataMap();
+        healthProcessStatisticData.setErrorListDetails("both");
+        Map<String, Object> resultBoth = healthProcessStatisticData.getHealthProcessStatisticDataMap();
+
+        // then
+        assertFalse(resultAggregate.containsKey("errorList"));
+        assertTrue(resultAggregate.containsKey("errorAggregateList"));
+        assertTrue(resultBoth.containsKey("errorList"));
+        assertTrue(resultBoth.containsKey("errorAggregateList"));
+    }
+
+    @Test
+    void incrementCounter_keyMaxSize_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        int defaultKeyCount = healthProcessStatisticData.getStatisticDataKeyList().size();
+        healthProcessStatisticData.setKeyMaxSize(defaultKeyCount + 2);
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            healthProcessStatisticData.incrementCounter("customer" + i);
+        }
+        healthProcessStatisticData.incrementCounter("customer0");
+
+        // then
+        assertEquals(defaultKeyCount + 3, healthProcessStatisticData.getStatisticDataKeyList().size());
+        assertEquals(2L, healthProcessStatisticData.getStatisticDataCounterValue("customer0"));
+        assertNull(healthProcessStatisticData.getStatisticDataCounter("customer2"));
+        assertEquals(3L, healthProcessStatisticData.getStatisticDataCounterValue(HealthProcessStatisticData.STATISTIC_DATA_KEY_OVERFLOW));
+        assertEquals(3L, healthProcessStatisticData.getKeyRejectedCounter());
+        assertEquals(3L, healthProcessStatisticData.getHealthProcessStatisticDataMap().get("statisticDataKeyRejectedCounter"));
+    }
+
+    @Test
+    void incrementCounter_keyMaxSizeRejectedOnce_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        int defaultKeyCount = healthProcessStatisticData.getStatisticDataKeyList().size();
+        healthProcessStatisticData.setKeyMaxSize(defaultKeyCount);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            healthProcessStatisticData.incrementCounter("customer" + (i % 2));
+        }
+        healthProcessStatisticData.setKeyMaxSize(defaultKeyCount + 1);
+        healthProcessStatisticData.incrementCounter("customer2");
+
+        // then
+        assertEquals(100L, healthProcessStatisticData.getStatisticDataCounterValue(HealthProcessStatisticData.STATISTIC_DATA_KEY_OVERFLOW));
+        assertEquals(2L, healthProcessStatisticData.getKeyRejectedCounter());
+        assertEquals(1L, healthProcessStatisticData.getStatisticDataCounterValue("customer2"));
+    }
+
+    @Test
+    void evictIdleKeys_test() {
+
+        // given
+        MutableClock clock = new MutableClock(1000000L);
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setClock(clock);
+        healthProcessStatisticData.setKeyIdleTimeout(Duration.ofMinutes(1L));
+        healthProcessStatisticData.incrementCounter("customerIdle");
+        healthProcessStatisticData.counter("customerPinned");
+        clock.millis += 50000L;
+        healthProcessStatisticData.incrementCounter("customerActive");
+        long modificationCountBefore = healthProcessStatisticData.getModificationCount();
+
+        // when
+        clock.millis += 20000L;
+        int result = healthProcessStatisticData.evictIdleKeys();
+
+        // then
+        assertEquals(1, result);
+        assertNull(healthProcessStatisticData.getStatisticDataCounter("customerIdle"));
+        assertNotNull(healthProcessStatisticData.getStatisticDataCounter("customerPinned"));
+        assertNotNull(healthProcessStatisticData.getStatisticDataCounter("customerActive"));
+        assertNotNull(healthProcessStatisticData.getStatisticDataCounter(HealthProcessStatisticDataKey.error));
+        assertEquals(1L, healthProcessStatisticData.getKeyEvictedCounter());
+        assertTrue(healthProcessStatisticData.getModificationCount() > modificationCountBefore);
+    }
+
+    @Test
+    void counter_evictionDue_test() {
+
+        // given
+        MutableClock clock = new MutableClock(1000000L);
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setClock(clock);
+        healthProcessStatisticData.setKeyIdleTimeout(Duration.ofMinutes(1L));
+        healthProcessStatisticData.incrementCounter("customerIdle");
+        List<Integer> holdCounts = new ArrayList<>();
+        healthProcessStatisticData.addListener(new HealthProcessStatisticDataListener() {
+            @Override
+            public void statisticDataKeyAdded(final String statisticDataKey) {
+                holdCounts.add(healthProcessStatisticData.getStatisticDataLockHoldCount());
+            }
+
+            @Override
+            public void statisticDataKeysRemoved(final List<String> statisticDataKeys) {
+                holdCounts.add(healthProcessStatisticData.getStatisticDataLockHoldCount());
+            }
+        });
+        long structureVersionBefore = healthProcessStatisticData.getStructureVersion();
+
+        // when
+        clock.millis += 70000L;
+        HealthProcessStatisticCounter counter = healthProcessStatisticData.counter("customerPinned");
+
+        // then
+        assertEquals(structureVersionBefore + 2L, healthProcessStatisticData.getStructureVersion());
+        assertNull(healthProcessStatisticData.getStatisticDataCounter("customerIdle"));
+        assertEquals(Arrays.asList(0, 0), holdCounts);
+        counter.increment();
+        assertEquals(1L, healthProcessStatisticData.getStatisticDataCounter("customerPinned"));
+    }
+
+    @Test
+    void getHealthProcessStatisticDataValue_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setRateWindows("1m");
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+        healthProcessStatisticData.recordDuration("myFunction", 3000000L);
+
+        // when
+        Map<String, Object> map = healthProcessStatisticData.getHealthProcessStatisticDataMap();
+
+        // then
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            if (!"errorList".equals(entry.getKey())) {
+                assertEquals(entry.getValue(), healthProcessStatisticData.getHealthProcessStatisticDataValue(entry.getKey()),
+                        entry.getKey());
+            }
+        }
+        assertEquals(1L, healthProcessStatisticData.getHealthProcessStatisticDataValue("myFunctionSuccessRate1m"));
+        assertNull(healthProcessStatisticData.getHealthProcessStatisticDataValue("unknownCounter"));
+        assertNull(healthProcessStatisticData.getHealthProcessStatisticDataValue("Counter"));
+    }
+
+    @Test
+    void getSnapshot_unaffectedByLaterChanges_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+        healthProcessStatisticData.addError("myFunction", "returncode", "messagetext", "instructiontext", "referenceid");
+
+        // when
+        HealthProcessStatisticSnapshot snapshot = healthProcessStatisticData.getSnapshot();
+        Map<String, Object> mapBefore = snapshot.getHealthProcessStatisticDataMap();
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+        healthProcessStatisticData.reset();
+
+        // then
+        assertEquals(1L, snapshot.getCounterValue("myFunctionSuccess"));
+        assertEquals(1, snapshot.getErrorList().size());
+        assertEquals(mapBefore, snapshot.getHealthProcessStatisticDataMap());
+        assertEquals(-1, healthProcessStatisticData.getSnapshot().indexOf("myFunctionSuccess"));
+    }
+
+    @Test
+    void getHealthProcessStatisticDataDelta_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+        healthProcessStatisticData.addError("myFunction", "returncode", "messagetext", "instructiontext", "referenceid");
+
+        // when
+        Map<String, Object> fullDelta = healthProcessStatisticData.getHealthProcessStatisticDataDelta(0L);
+        long version = (Long) fullDelta.get("version");
+        healthProcessStatisticData.incrementCounter("otherFunctionSuccess");
+        healthProcessStatisticData.addError("otherFunction", "returncode", "messagetext", "instructiontext", "referenceid");
+        Map<String, Object> delta = healthProcessStatisticData.getHealthProcessStatisticDataDelta(version);
+        Map<String, Object> emptyDelta = healthProcessStatisticData.getHealthProcessStatisticDataDelta((Long) delta.get("version"));
+        healthProcessStatisticData.reset();
+        Map<String, Object> resetDelta = healthProcessStatisticData.getHealthProcessStatisticDataDelta((Long) emptyDelta.get("version"));
+
+        // then
+        assertEquals(Boolean.TRUE, fullDelta.get("full"));
+        assertEquals(1L, fullDelta.get("myFunctionSuccessCounter"));
+        assertEquals(1, ((List<?>) fullDelta.get("errorList")).size());
+
+        assertEquals(Boolean.FALSE, delta.get("full"));
+        assertEquals(1L, delta.get("otherFunctionSuccessCounter"));
+        assertEquals(2L, delta.get("errorCounter"));
+        assertFalse(delta.containsKey("myFunctionSuccessCounter"));
+        assertEquals(1, ((List<?>) delta.get("errorList")).size());
+        assertEquals("otherFunction", ((HealthErrorData) ((List<?>) delta.get("errorList")).get(0)).getFunction());
+
+        assertEquals(Boolean.FALSE, emptyDelta.get("full"));
+        assertFalse(emptyDelta.containsKey("otherFunctionSuccessCounter"));
+        assertTrue(((List<?>) emptyDelta.get("errorList")).isEmpty());
+
+        assertEquals(Boolean.TRUE, resetDelta.get("full"));
+        assertEquals(0L, resetDelta.get("errorCounter"));
+    }
+
+    @Test
+    void getSnapshot_sameAsDataMap_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setRateWindows("1m");
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+        healthProcessStatisticData.incrementCounter("otherFunctionFailed");
+        healthProcessStatisticData.recordDuration("myFunction", 3000000L);
+
+        // when
+        HealthProcessStatisticSnapshot snapshot = healthProcessStatisticData.getSnapshot();
+        HealthProcessStatisticSnapshot prefixSnapshot = healthProcessStatisticData.getSnapshot("myFunction");
+
+        // then
+        assertEquals(healthProcessStatisticData.getHealthProcessStatisticDataMap(), snapshot.getHealthProcessStatisticDataMap());
+        assertEquals(healthProcessStatisticData.getModificationCount(), snapshot.getModificationCount());
+        assertEquals(1L, snapshot.getRate("myFunctionSuccess", Duration.ofMinutes(1)));
+        assertTrue(prefixSnapshot.indexOf("myFunctionSuccess") >= 0);
+        assertEquals(-1, prefixSnapshot.indexOf("otherFunctionFailed"));
+        assertEquals(healthProcessStatisticData.getHealthProcessStatisticDataMap("myFunction"),
+                prefixSnapshot.getHealthProcessStatisticDataMap("myFunction"));
+    }
+
+    @Test
+    void addError_async_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setErrorQueueCapacity(8);
+
+        // when
+        healthProcessStatisticData.addError("function", "returncode", "messagetext", "instructiontext", "referenceid");
+        healthProcessStatisticData.flushErrors();
+
+        // then
+        assertTrue(healthProcessStatisticData.isErrorQueueEnabled());
+        assertEquals(1, healthProcessStatisticData.getErrorListSize());
+        assertEquals(1L, healthProcessStatisticData.getStatisticDataCounterValue("error"));
+        Map<String, Object> map = healthProcessStatisticData.getHealthProcessStatisticDataMap();
+        assertEquals(0L, map.get("errorDroppedCounter"));
+        assertEquals(0L, healthProcessStatisticData.getHealthProcessStatisticDataValue("errorDroppedCounter"));
+
+        healthProcessStatisticData.close();
+        assertFalse(healthProcessStatisticData.isErrorQueueEnabled());
+        assertFalse(healthProcessStatisticData.getHealthProcessStatisticDataMap().containsKey("errorDroppedCounter"));
+    }
+
+    @Test
+    void addError_sampling_test() {
+
+        // given
+        MutableClock clock = new MutableClock(1000000L);
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setClock(clock);
+        healthProcessStatisticData.setErrorSamplingBurst(2);
+        healthProcessStatisticData.setErrorSamplingRate(1.0d);
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            healthProcessStatisticData.addError("myFunction", "returncode", "messagetext");
+        }
+        healthProcessStatisticData.addError("otherFunction", "returncode", "messagetext");
+        clock.millis += 1000L;
+        healthProcessStatisticData.addError("myFunction", "returncode", "messagetext");
+
+        // then
+        List<HealthErrorData> errorList = healthProcessStatisticData.getErrorList();
+        assertEquals(4, errorList.size());
+        assertEquals(0L, errorList.get(0).getSuppressedCounter());
+        assertEquals("otherFunction", errorList.get(2).getFunction());
+        assertEquals(3L, errorList.get(3).getSuppressedCounter());
+        assertEquals(7L, healthProcessStatisticData.getStatisticDataCounterValue("error"));
+    }
+
+    @Test
+    void addError_samplingPendingSuppressed_test() {
+
+        // given
+        MutableClock clock = new MutableClock(1000000L);
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setClock(clock);
+        healthProcessStatisticData.setErrorSamplingBurst(1);
+        healthProcessStatisticData.setErrorSamplingRate(1.0d);
+        HealthErrorData admitted = new HealthErrorData("myFunction", "returncode", "messagetext");
+
+        // when
+        for (int i = 0; i < 4; i++) {
+            healthProcessStatisticData.addError("myFunction", "returncode", "messagetext");
+        }
+        Object pending = healthProcessStatisticData.getHealthProcessStatisticDataMap().get("errorSuppressedCounter");
+        clock.millis += 1000L;
+        healthProcessStatisticData.addError(admitted);
+
+        // then
+        assertEquals(Collections.singletonMap("myFunction", 3L), pending);
+        assertEquals(Collections.emptyMap(),
+                healthProcessStatisticData.getHealthProcessStatisticDataValue("errorSuppressedCounter"));
+        List<HealthErrorData> errorList = healthProcessStatisticData.getErrorList();
+        assertEquals(3L, errorList.get(1).getSuppressedCounter());
+        assertEquals(0L, admitted.getSuppressedCounter());
+    }
+
+    @Test
+    void addError_samplingDisabled_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+
+        // when
+        healthProcessStatisticData.addError("myFunction", "returncode", "messagetext");
+
+        // then
+        assertFalse(healthProcessStatisticData.getHealthProcessStatisticDataMap().containsKey("errorSuppressedCounter"));
+        assertNull(healthProcessStatisticData.getHealthProcessStatisticDataValue("errorSuppressedCounter"));
+    }
+
+    @Test
+    void serialize_errorQueue_test() throws IOException, ClassNotFoundException {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setErrorQueueCapacity(16);
+        healthProcessStatisticData.addError("myFunction", "returncode", "messagetext");
+
+        // when
+        HealthProcessStatisticData result = serializeAndDeserialize(healthProcessStatisticData);
+        result.addError("myFunction", "returncode", "messagetext2");
+        result.flushErrors();
+
+        // then
+        assertTrue(result.isErrorQueueEnabled());
+        assertEquals(16, result.getErrorQueueCapacity());
+        assertEquals(2, result.getErrorList().size());
+        assertEquals("messagetext2", result.getErrorList().get(1).getMessageText());
+        assertEquals(2L, result.getStatisticDataCounterValue("error"));
+        healthProcessStatisticData.close();
+        result.close();
+    }
+
+    @Test
+    void serialize_coarseClockAndListener_test() throws IOException, ClassNotFoundException {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setClockGranularity(10L);
+        healthProcessStatisticData.addListener(new HealthProcessStatisticDataListener() { });
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+
+        // when
+        HealthProcessStatisticData result = serializeAndDeserialize(healthProcessStatisticData);
+        result.incrementCounter("myFunctionSuccess");
+
+        // then
+        assertTrue(result.getClock() instanceof HealthProcessStatisticCoarseClock);
+        assertEquals(10L, ((HealthProcessStatisticCoarseClock) result.getClock()).getGranularityMillis());
+        assertEquals(healthProcessStatisticData.getClock().getZone(), result.getClock().getZone());
+        assertEquals(2L, result.getStatisticDataCounter("myFunctionSuccess"));
+        healthProcessStatisticData.close();
+        result.close();
+    }
+
+    private static HealthProcessStatisticData serializeAndDeserialize(final HealthProcessStatisticData healthProcessStatisticData)
+            throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(healthProcessStatisticData);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (HealthProcessStatisticData) in.readObject();
+        }
+    }
+
+    /**
+     * Clock with settable time.
+     */
+    private static class MutableClock extends Clock {
+
+        private long millis;
+
+        private MutableClock(final long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
 }
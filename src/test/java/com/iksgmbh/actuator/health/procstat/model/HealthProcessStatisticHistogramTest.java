@@ -0,0 +1,75 @@
+package com.iksgmbh.actuator.health.procstat.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HealthProcessStatisticHistogramTest {
+
+    @Test
+    void getValueAtPercentile_test() {
+
+        // given
+        HealthProcessStatisticHistogram healthProcessStatisticHistogram = new HealthProcessStatisticHistogram();
+
+        // when
+        for (long value = 1L; value <= 1000L; value++) {
+            healthProcessStatisticHistogram.record(value * 1000000L);
+        }
+
+        // then
+        assertEquals(1000L, healthProcessStatisticHistogram.getTotalCount());
+        assertEquals(1000000000L, healthProcessStatisticHistogram.getMax());
+        assertEquals(500000000L, healthProcessStatisticHistogram.getValueAtPercentile(50.0d), 500000000L * 0.04d);
+        assertEquals(900000000L, healthProcessStatisticHistogram.getValueAtPercentile(90.0d), 900000000L * 0.04d);
+        assertEquals(990000000L, healthProcessStatisticHistogram.getValueAtPercentile(99.0d), 990000000L * 0.04d);
+        assertEquals(1000000000L, healthProcessStatisticHistogram.getValueAtPercentile(100.0d));
+    }
+
+    @Test
+    void getValueAtPercentile_empty_test() {
+
+        // given
+        HealthProcessStatisticHistogram healthProcessStatisticHistogram = new HealthProcessStatisticHistogram();
+
+        // when
+        long result = healthProcessStatisticHistogram.getValueAtPercentile(99.0d);
+
+        // then
+        assertEquals(0L, result);
+    }
+
+    @Test
+    void bucketIndex_test() {
+
+        // given
+
+        // when
+
+        // then
+        assertEquals(0, HealthProcessStatisticHistogram.bucketIndex(0L));
+        assertEquals(31, HealthProcessStatisticHistogram.bucketIndex(31L));
+        assertEquals(32, HealthProcessStatisticHistogram.bucketIndex(32L));
+        assertTrue(HealthProcessStatisticHistogram.bucketIndex(Long.MAX_VALUE) < 1888);
+        for (long value = 1L; value > 0L && value < Long.MAX_VALUE / 3L; value = value * 3L) {
+            long middle = HealthProcessStatisticHistogram.bucketMiddle(HealthProcessStatisticHistogram.bucketIndex(value));
+            assertEquals(value, middle, value * 0.04d);
+        }
+    }
+
+    @Test
+    void reset_test() {
+
+        // given
+        HealthProcessStatisticHistogram healthProcessStatisticHistogram = new HealthProcessStatisticHistogram();
+        healthProcessStatisticHistogram.record(42L);
+
+        // when
+        healthProcessStatisticHistogram.reset();
+
+        // then
+        assertEquals(0L, healthProcessStatisticHistogram.getTotalCount());
+        assertEquals(0L, healthProcessStatisticHistogram.getMax());
+        assertEquals(0L, healthProcessStatisticHistogram.getValueAtPercentile(50.0d));
+    }
+}
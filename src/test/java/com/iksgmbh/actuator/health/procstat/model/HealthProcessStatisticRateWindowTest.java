@@ -0,0 +1,61 @@
+package com.iksgmbh.actuator.health.procstat.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HealthProcessStatisticRateWindowTest {
+
+    private static final long NOW = 1706785501123L;
+
+
+    @Test
+    void getCount_withinWindow_test() {
+
+        // given
+        HealthProcessStatisticRateWindow healthProcessStatisticRateWindow = new HealthProcessStatisticRateWindow(60);
+
+        // when
+        healthProcessStatisticRateWindow.increment(NOW - 59000L);
+        healthProcessStatisticRateWindow.increment(NOW - 10000L);
+        healthProcessStatisticRateWindow.increment(NOW);
+        healthProcessStatisticRateWindow.increment(NOW);
+
+        // then
+        assertEquals(4L, healthProcessStatisticRateWindow.getCount(NOW, 60L));
+        assertEquals(3L, healthProcessStatisticRateWindow.getCount(NOW, 30L));
+        assertEquals(2L, healthProcessStatisticRateWindow.getCount(NOW, 1L));
+        assertEquals(2L, healthProcessStatisticRateWindow.getCount(NOW + 50000L, 60L));
+        assertEquals(0L, healthProcessStatisticRateWindow.getCount(NOW + 60000L, 60L));
+    }
+
+    @Test
+    void increment_reuseBucket_test() {
+
+        // given
+        HealthProcessStatisticRateWindow healthProcessStatisticRateWindow = new HealthProcessStatisticRateWindow(10);
+        healthProcessStatisticRateWindow.increment(NOW);
+        healthProcessStatisticRateWindow.increment(NOW);
+
+        // when
+        healthProcessStatisticRateWindow.increment(NOW + 10000L);
+        healthProcessStatisticRateWindow.increment(NOW);  // one ring older than bucket, ignored
+
+        // then
+        assertEquals(1L, healthProcessStatisticRateWindow.getCount(NOW + 10000L, 10L));
+    }
+
+    @Test
+    void reset_test() {
+
+        // given
+        HealthProcessStatisticRateWindow healthProcessStatisticRateWindow = new HealthProcessStatisticRateWindow(10);
+        healthProcessStatisticRateWindow.increment(NOW);
+
+        // when
+        healthProcessStatisticRateWindow.reset();
+
+        // then
+        assertEquals(0L, healthProcessStatisticRateWindow.getCount(NOW, 10L));
+    }
+}
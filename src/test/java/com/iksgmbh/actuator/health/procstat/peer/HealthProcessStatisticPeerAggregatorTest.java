@@ -0,0 +1,174 @@
+package com.iksgmbh.actuator.health.procstat.peer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.iksgmbh.actuator.health.procstat.model.HealthErrorData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticMergeableSnapshot;
+import com.iksgmbh.actuator.health.procstat.persistence.HealthProcessStatisticSnapshotCodec;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HealthProcessStatisticPeerAggregatorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final List<HttpServer> stubPeerList = new ArrayList<>();
+
+    @AfterEach
+    void stopStubPeers() {
+        stubPeerList.forEach(stubPeer -> stubPeer.stop(0));
+    }
+
+    @Test
+    void getAggregate_merged_test() throws IOException {
+
+        // given
+        HealthProcessStatisticData localData = new HealthProcessStatisticData();
+        localData.setErrorListMaxSize(2);
+        localData.incrementCounter("myFunctionSuccess");
+        localData.addError(createError("function1", "2023-10-02T10:00:00Z"));
+
+        HealthProcessStatisticData peerData = new HealthProcessStatisticData();
+        peerData.incrementCounter("myFunctionSuccess");
+        peerData.incrementCounter("myFunctionSuccess");
+        peerData.incrementCounter("otherFunctionSuccess");
+        peerData.addError(createError("function2", "2023-10-02T12:00:00Z"));
+        peerData.addError(createError("function3", "2023-10-02T11:00:00Z"));
+        AtomicInteger requestCounter = new AtomicInteger();
+        String peerUrl = startStubPeer(peerData, true, 0L, requestCounter);
+        String slowPeerUrl = startStubPeer(peerData, true, 2000L, new AtomicInteger());
+
+        HealthProcessStatisticPeerAggregator aggregator = new HealthProcessStatisticPeerAggregator(localData,
+                Arrays.asList(peerUrl, slowPeerUrl), Duration.ofMillis(500L), Duration.ofMinutes(1L));
+
+        // when
+        HealthProcessStatisticPeerAggregator.Aggregate result = aggregator.getAggregate();
+        Map<String, Object> resultMap = aggregator.getHealthProcessStatisticDataMap();
+        aggregator.close();
+
+        // then
+        HealthProcessStatisticMergeableSnapshot snapshot = result.getSnapshot();
+        assertEquals(2, snapshot.getInstanceCount());
+        assertEquals(Arrays.asList(slowPeerUrl), result.getFailedPeerUrlList());
+        assertEquals(3L, snapshot.getStatisticData().get("myFunctionSuccess").getCounter());
+        assertEquals(1L, snapshot.getStatisticData().get("otherFunctionSuccess").getCounter());
+        assertEquals(3L, snapshot.getStatisticData().get("error").getCounter());
+        assertEquals(Math.max(localData.getStatisticDataTimestampMillis("error"), peerData.getStatisticDataTimestampMillis("error")),
+                snapshot.getStatisticData().get("error").getTimestamp());
+        assertEquals(2, snapshot.getErrorList().size());
+        assertEquals("function3", snapshot.getErrorList().get(0).getFunction());
+        assertEquals("function2", snapshot.getErrorList().get(1).getFunction());
+
+        assertEquals(1, requestCounter.get());  // second call served from cache
+        assertEquals(3L, resultMap.get("myFunctionSuccessCounter"));
+        assertEquals(2, resultMap.get("instanceCount"));
+        assertEquals(Arrays.asList(slowPeerUrl), resultMap.get("peerFailedList"));
+    }
+
+    @Test
+    void getAggregate_jsonPeer_test() throws IOException {
+
+        // given
+        HealthProcessStatisticData localData = new HealthProcessStatisticData();
+        HealthProcessStatisticData peerData = new HealthProcessStatisticData();
+        peerData.incrementCounter("myFunctionSuccess");
+        String peerUrl = startStubPeer(peerData, false, 0L, new AtomicInteger());
+        HealthProcessStatisticPeerAggregator aggregator = new HealthProcessStatisticPeerAggregator(localData,
+                Arrays.asList(peerUrl), Duration.ofSeconds(2L), Duration.ZERO);
+
+        // when
+        HealthProcessStatisticPeerAggregator.Aggregate result = aggregator.getAggregate();
+        aggregator.close();
+
+        // then
+        assertEquals(2, result.getSnapshot().getInstanceCount());
+        assertTrue(result.getFailedPeerUrlList().isEmpty());
+        assertEquals(1L, result.getSnapshot().getStatisticData().get("myFunctionSuccess").getCounter());
+    }
+
+    @Test
+    void merge_durations_test() {
+
+        // given
+        HealthProcessStatisticData data1 = new HealthProcessStatisticData();
+        data1.recordDuration("myFunction", 2000000L);
+        HealthProcessStatisticData data2 = new HealthProcessStatisticData();
+        data2.recordDuration("myFunction", 5000000L);
+
+        // when
+        HealthProcessStatisticMergeableSnapshot result = HealthProcessStatisticMergeableSnapshot.merge(Arrays.asList(
+                HealthProcessStatisticMergeableSnapshot.of(data1.getSnapshot()),
+                HealthProcessStatisticMergeableSnapshot.of(data2.getSnapshot())), 10);
+
+        // then
+        assertEquals(2, result.getInstanceCount());
+        assertEquals(data2.getSnapshot().getDuration(0, 3), result.getDurations().get("myFunction").getMax());
+        assertEquals(data1.getServiceStartTimestamp(), result.getServiceStartTimestamp());
+    }
+
+    private static HealthErrorData createError(final String function, final String timestamp) {
+        HealthErrorData healthErrorData = new HealthErrorData(function, "returncode", "messagetext");
+        healthErrorData.setTimestamp(OffsetDateTime.parse(timestamp).withOffsetSameInstant(ZoneOffset.UTC));
+        return healthErrorData;
+    }
+
+    /**
+     * Start local HTTP server answering with the mergeable snapshot of the statistic data after a delay,
+     * binary encoded if supported and requested, JSON otherwise.
+     */
+    private String startStubPeer(final HealthProcessStatisticData healthProcessStatisticData, final boolean binary,
+            final long delayMillis, final AtomicInteger requestCounter) throws IOException {
+        HttpServer stubPeer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stubPeer.createContext("/actuator/healthProcessStatistic/snapshot", exchange -> {
+            requestCounter.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            HealthProcessStatisticMergeableSnapshot snapshot = HealthProcessStatisticMergeableSnapshot.of(
+                    healthProcessStatisticData.getSnapshot());
+            String accept = exchange.getRequestHeaders().getFirst("Accept");
+            byte[] body;
+            if (binary && accept != null && accept.contains(HealthProcessStatisticSnapshotCodec.CONTENT_TYPE)) {
+                body = HealthProcessStatisticSnapshotCodec.encode(snapshot);
+                exchange.getResponseHeaders().add("Content-Type", HealthProcessStatisticSnapshotCodec.CONTENT_TYPE);
+            } else {
+                body = objectMapper.writeValueAsString(snapshot).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+            }
+            try {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+            } catch (IOException e) {
+                // client gave up
+            }
+        });
+        stubPeer.setExecutor(null);
+        stubPeer.start();
+        stubPeerList.add(stubPeer);
+        return "http://127.0.0.1:" + stubPeer.getAddress().getPort() + "/actuator/healthProcessStatistic/snapshot";
+    }
+}
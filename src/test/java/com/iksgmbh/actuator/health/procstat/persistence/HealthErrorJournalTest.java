@@ -0,0 +1,137 @@
+package com.iksgmbh.actuator.health.procstat.persistence;
+
+import com.iksgmbh.actuator.health.procstat.model.HealthErrorData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HealthErrorJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+
+    @Test
+    void readPage_newestFirst_test() throws Exception {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setErrorListMaxSize(2);
+        HealthErrorJournal healthErrorJournal = new HealthErrorJournal(healthProcessStatisticData, tempDir,
+                1024L * 1024L, Duration.ofDays(1L), 10, 100);
+        healthErrorJournal.start();
+        for (int i = 0; i < 5; i++) {
+            healthProcessStatisticData.addError("myFunction", "ERR-00" + i, "messagetext");
+        }
+        healthErrorJournal.close();
+
+        // when
+        List<HealthErrorData> page0 = healthErrorJournal.readPage(0, 3);
+        List<HealthErrorData> page1 = healthErrorJournal.readPage(1, 3);
+
+        // then
+        assertEquals(2, healthProcessStatisticData.getErrorList().size());
+        assertEquals(3, page0.size());
+        assertEquals("ERR-004", page0.get(0).getReturnCode());
+        assertEquals("ERR-002", page0.get(2).getReturnCode());
+        assertNotNull(page0.get(0).getTimestamp());
+        assertEquals(2, page1.size());
+        assertEquals("ERR-000", page1.get(1).getReturnCode());
+    }
+
+    @Test
+    void rotate_maxSegments_test() throws Exception {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        HealthErrorJournal healthErrorJournal = new HealthErrorJournal(healthProcessStatisticData, tempDir,
+                1L, Duration.ofDays(1L), 3, 100);
+        healthErrorJournal.start();
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            healthProcessStatisticData.addError("myFunction", "ERR-00" + i, "messagetext");
+            waitForPage(healthErrorJournal, "ERR-00" + i);
+        }
+        healthErrorJournal.close();
+
+        // then
+        assertEquals(3, healthErrorJournal.getSegmentCount());
+        List<HealthErrorData> result = healthErrorJournal.readPage(0, 100);
+        assertEquals(3, result.size());
+        assertEquals("ERR-009", result.get(0).getReturnCode());
+        assertEquals(0L, healthErrorJournal.getDroppedCounter());
+    }
+
+    @Test
+    void readPage_acrossSegments_test() throws Exception {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        HealthErrorJournal healthErrorJournal = new HealthErrorJournal(healthProcessStatisticData, tempDir,
+                1000L, Duration.ofDays(1L), 100, 100);
+        healthErrorJournal.start();
+        StringBuilder longMessage = new StringBuilder();
+        while (longMessage.length() < 100000) {
+            longMessage.append("messagetext ");
+        }
+        for (int i = 0; i < 30; i++) {
+            healthProcessStatisticData.addError("myFunction", String.format("ERR-%03d", i),
+                    (i == 17 ? longMessage.toString() : "messagetext"));
+            waitForPage(healthErrorJournal, String.format("ERR-%03d", i));
+        }
+
+        // when
+        List<HealthErrorData> result = new ArrayList<>();
+        for (int page = 0; page < 5; page++) {
+            result.addAll(healthErrorJournal.readPage(page, 7));
+        }
+        healthErrorJournal.close();
+
+        // then
+        assertTrue(healthErrorJournal.getSegmentCount() > 1);
+        assertEquals(30, result.size());
+        for (int i = 0; i < 30; i++) {
+            assertEquals(String.format("ERR-%03d", 29 - i), result.get(i).getReturnCode());
+        }
+        assertEquals(longMessage.toString(), result.get(12).getMessageText());
+    }
+
+    @Test
+    void constructor_existingSegments_test() throws Exception {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        HealthErrorJournal healthErrorJournal = new HealthErrorJournal(healthProcessStatisticData, tempDir,
+                1024L, Duration.ofDays(1L), 10, 100);
+        healthErrorJournal.start();
+        healthProcessStatisticData.addError("myFunction", "ERR-001", "messagetext");
+        healthErrorJournal.close();
+
+        // when
+        HealthErrorJournal result = new HealthErrorJournal(new HealthProcessStatisticData(), tempDir,
+                1024L, Duration.ofDays(1L), 10, 100);
+
+        // then
+        assertEquals(1, result.readPage(0, 10).size());
+    }
+
+    private static void waitForPage(final HealthErrorJournal healthErrorJournal, final String returnCode) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (System.currentTimeMillis() < deadline) {
+            List<HealthErrorData> page = healthErrorJournal.readPage(0, 1);
+            if (!page.isEmpty() && returnCode.equals(page.get(0).getReturnCode())) {
+                return;
+            }
+            Thread.sleep(5L);
+        }
+        fail("Error event " + returnCode + " not written.");
+    }
+}
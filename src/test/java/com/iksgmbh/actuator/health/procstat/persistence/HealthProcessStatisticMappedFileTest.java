@@ -0,0 +1,198 @@
+package com.iksgmbh.actuator.health.procstat.persistence;
+
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HealthProcessStatisticMappedFileTest {
+
+    @TempDir
+    Path tempDir;
+
+
+    @Test
+    void restore_afterClose_test() throws Exception {
+
+        // given
+        Path path = tempDir.resolve("processStatistic.dat");
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setClock(Clock.fixed(Instant.ofEpochMilli(1700000000000L), ZoneId.systemDefault()));
+        HealthProcessStatisticMappedFile mappedFile = new HealthProcessStatisticMappedFile(healthProcessStatisticData, path, 16);
+        mappedFile.restore();
+        healthProcessStatisticData.incrementCounter("error");
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+        mappedFile.close();
+
+        // when
+        HealthProcessStatisticData restoredData = new HealthProcessStatisticData();
+        HealthProcessStatisticMappedFile restoredFile = new HealthProcessStatisticMappedFile(restoredData, path, 16);
+        int result = restoredFile.restore();
+        restoredFile.close();
+
+        // then
+        assertEquals(2, result);
+        assertEquals(1L, restoredData.getStatisticDataCounterValue("error"));
+        assertEquals(2L, restoredData.getStatisticDataCounterValue("myFunctionSuccess"));
+        assertEquals(1700000000000L, restoredData.getStatisticDataTimestampMillis("myFunctionSuccess"));
+    }
+
+    @Test
+    void statisticDataReset_clearsFile_test() throws Exception {
+
+        // given
+        Path path = tempDir.resolve("processStatistic.dat");
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        HealthProcessStatisticMappedFile mappedFile = new HealthProcessStatisticMappedFile(healthProcessStatisticData, path, 16);
+        mappedFile.restore();
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+        mappedFile.mirror();
+
+        // when
+        healthProcessStatisticData.reset();
+        mappedFile.close();
+
+        // then
+        HealthProcessStatisticData restoredData = new HealthProcessStatisticData();
+        HealthProcessStatisticMappedFile restoredFile = new HealthProcessStatisticMappedFile(restoredData, path, 16);
+        assertEquals(0, restoredFile.restore());
+        restoredFile.close();
+        assertNull(restoredData.getStatisticDataCounter("myFunctionSuccess"));
+    }
+
+    @Test
+    void mirror_maxKeysReached_test() throws Exception {
+
+        // given
+        Path path = tempDir.resolve("processStatistic.dat");
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        HealthProcessStatisticMappedFile mappedFile = new HealthProcessStatisticMappedFile(healthProcessStatisticData, path, 2);
+        mappedFile.restore();
+        healthProcessStatisticData.incrementCounter("myFunction1");
+        healthProcessStatisticData.incrementCounter("myFunction2");
+        healthProcessStatisticData.incrementCounter("myFunction3");
+
+        // when
+        mappedFile.close();
+
+        // then
+        HealthProcessStatisticData restoredData = new HealthProcessStatisticData();
+        HealthProcessStatisticMappedFile restoredFile = new HealthProcessStatisticMappedFile(restoredData, path, 2);
+        assertEquals(2, restoredFile.restore());
+        restoredFile.close();
+        assertNull(restoredData.getStatisticDataCounter("myFunction3"));
+    }
+    @Test
+    void mirror_evictedKeysFreeSlots_test() throws Exception {
+
+        // given
+        Path path = tempDir.resolve("processStatistic.dat");
+        MutableClock clock = new MutableClock(1700000000000L);
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setClock(clock);
+        healthProcessStatisticData.setKeyIdleTimeout(Duration.ofMinutes(1L));
+        HealthProcessStatisticMappedFile mappedFile = new HealthProcessStatisticMappedFile(healthProcessStatisticData, path, 3);
+        mappedFile.restore();
+        healthProcessStatisticData.incrementCounter("myFunction1");
+        healthProcessStatisticData.incrementCounter("myFunction2");
+        healthProcessStatisticData.incrementCounter("myFunction3");
+        mappedFile.mirror();
+
+        // when
+        clock.millis += 120000L;
+        healthProcessStatisticData.incrementCounter("myFunction3");
+        healthProcessStatisticData.evictIdleKeys();
+        healthProcessStatisticData.incrementCounter("myFunction4");
+        healthProcessStatisticData.incrementCounter("myFunction5");
+        mappedFile.close();
+
+        // then
+        HealthProcessStatisticData restoredData = new HealthProcessStatisticData();
+        HealthProcessStatisticMappedFile restoredFile = new HealthProcessStatisticMappedFile(restoredData, path, 3);
+        assertEquals(3, restoredFile.restore());
+        restoredFile.close();
+        assertNull(restoredData.getStatisticDataCounter("myFunction1"));
+        assertNull(restoredData.getStatisticDataCounter("myFunction2"));
+        assertEquals(2L, restoredData.getStatisticDataCounterValue("myFunction3"));
+        assertEquals(1L, restoredData.getStatisticDataCounterValue("myFunction4"));
+        assertEquals(1L, restoredData.getStatisticDataCounterValue("myFunction5"));
+    }
+
+    @Test
+    void restore_invalidSlotReused_test() throws Exception {
+
+        // given
+        Path path = tempDir.resolve("processStatistic.dat");
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        HealthProcessStatisticMappedFile mappedFile = new HealthProcessStatisticMappedFile(healthProcessStatisticData, path, 3);
+        mappedFile.restore();
+        healthProcessStatisticData.incrementCounter("myFunction1");
+        healthProcessStatisticData.incrementCounter("myFunction2");
+        mappedFile.close();
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            fileChannel.write(ByteBuffer.allocate(4).putInt(0, -1), 16);  // corrupt key length of first slot
+        }
+
+        // when
+        HealthProcessStatisticData restoredData = new HealthProcessStatisticData();
+        HealthProcessStatisticMappedFile restoredFile = new HealthProcessStatisticMappedFile(restoredData, path, 3);
+        int restored = restoredFile.restore();
+        restoredData.incrementCounter("myFunction3");
+        restoredData.incrementCounter("myFunction4");
+        restoredFile.close();
+
+        // then
+        HealthProcessStatisticData reloadedData = new HealthProcessStatisticData();
+        HealthProcessStatisticMappedFile reloadedFile = new HealthProcessStatisticMappedFile(reloadedData, path, 3);
+        assertEquals(3, reloadedFile.restore());
+        reloadedFile.close();
+        assertEquals(1, restored);
+        assertEquals(1L, reloadedData.getStatisticDataCounterValue("myFunction2"));
+        assertEquals(1L, reloadedData.getStatisticDataCounterValue("myFunction3"));
+        assertEquals(1L, reloadedData.getStatisticDataCounterValue("myFunction4"));
+    }
+
+    /**
+     * Clock with settable time.
+     */
+    private static class MutableClock extends Clock {
+
+        private long millis;
+
+        private MutableClock(final long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.iksgmbh.actuator.health.procstat.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.iksgmbh.actuator.health.procstat.model.HealthErrorData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticMergeableSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HealthProcessStatisticSnapshotCodecTest {
+
+    @Test
+    void encode_decode_test() throws IOException {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setRateWindows("1m,1h");
+        for (int i = 0; i < 20; i++) {
+            healthProcessStatisticData.incrementCounter("myFunction" + i + "Success");
+            healthProcessStatisticData.addError("myFunction", "returncode", "messagetext", null, "referenceid" + i);
+        }
+        healthProcessStatisticData.recordDuration("myFunction", 3000000L);
+        HealthErrorData healthErrorData = new HealthErrorData("otherFunction", "returncode", "messagetext");
+        healthErrorData.setTimestamp(OffsetDateTime.parse("2023-10-02T12:00:00.123456789+02:00"));
+        healthErrorData.setSuppressedCounter(42L);
+        healthProcessStatisticData.addError(healthErrorData);
+        HealthProcessStatisticMergeableSnapshot snapshot = HealthProcessStatisticMergeableSnapshot.of(healthProcessStatisticData.getSnapshot());
+
+        // when
+        byte[] bytes = HealthProcessStatisticSnapshotCodec.encode(snapshot);
+        HealthProcessStatisticMergeableSnapshot result = HealthProcessStatisticSnapshotCodec.decode(bytes);
+
+        // then
+        assertEquals(snapshot.getTimestampMillis(), result.getTimestampMillis());
+        assertEquals(snapshot.getServiceStartTimestamp(), result.getServiceStartTimestamp());
+        assertEquals(snapshot.getErrorList(), result.getErrorList());
+        assertEquals(snapshot.getStatisticData().keySet(), result.getStatisticData().keySet());
+        assertEquals(1L, result.getStatisticData().get("myFunction7Success").getCounter());
+        assertEquals(snapshot.getStatisticData().get("error").getTimestamp(), result.getStatisticData().get("error").getTimestamp());
+        assertEquals(1L, result.getStatisticData().get("myFunction7Success").getRates().get("Rate1h"));
+        assertEquals(snapshot.getDurations().get("myFunction").getP99(), result.getDurations().get("myFunction").getP99());
+        assertEquals(42L, result.getErrorList().get(result.getErrorList().size() - 1).getSuppressedCounter());
+
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        int jsonLength = objectMapper.writeValueAsBytes(snapshot).length;
+        assertTrue(bytes.length * 3 < jsonLength, bytes.length + " bytes binary, " + jsonLength + " bytes JSON");
+    }
+
+    @Test
+    void decode_invalid_test() {
+
+        // given
+        byte[] bytes = HealthProcessStatisticSnapshotCodec.encode(
+                HealthProcessStatisticMergeableSnapshot.of(new HealthProcessStatisticData().getSnapshot()));
+        byte[] otherVersion = bytes.clone();
+        otherVersion[3] = 99;
+
+        // when + then
+        assertThrows(IOException.class, () -> HealthProcessStatisticSnapshotCodec.decode(new byte[] {'X', 'Y', 'Z', 1}));
+        assertThrows(IOException.class, () -> HealthProcessStatisticSnapshotCodec.decode(otherVersion));
+        assertThrows(IOException.class, () -> HealthProcessStatisticSnapshotCodec.decode(Arrays.copyOf(bytes, bytes.length - 1)));
+    }
+
+    @Test
+    void decode_hugeCount_test() {
+
+        // given: header with timestamp 0, instance count 1, no service start and a string count of 2^30 - 1
+        byte[] bytes = {'H', 'P', 'S', 1, 0, 1, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x03};
+
+        // when + then
+        assertThrows(IOException.class, () -> HealthProcessStatisticSnapshotCodec.decode(bytes));
+    }
+}
@@ -0,0 +1,190 @@
+package com.iksgmbh.actuator.health.procstat.rule;
+
+import com.iksgmbh.actuator.health.procstat.healthindicator.HealthProcessStatisticStatusDecider;
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HealthProcessStatisticRulePlanTest {
+
+    @Test
+    void evaluate_errorAfterSuccess_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        HealthProcessStatisticRule rule = new HealthProcessStatisticRule(HealthProcessStatisticRule.Type.ERROR_AFTER_SUCCESS, "DOWN");
+        rule.setError("{function}Failed");
+        rule.setSuccess("{function}Success");
+        rule.setFunctions(Arrays.asList("order", "payment"));
+        HealthProcessStatisticRulePlan plan = HealthProcessStatisticRulePlan.compile(Collections.singletonList(rule),
+                healthProcessStatisticData.getRateWindows());
+        healthProcessStatisticData.incrementCounter("orderSuccess");
+
+        // when
+        Status result1 = plan.evaluate(healthProcessStatisticData);
+        healthProcessStatisticData.incrementCounter("paymentFailed");
+        Status result2 = plan.evaluate(healthProcessStatisticData);
+
+        // then
+        assertNull(result1);
+        assertEquals(Status.DOWN, result2);
+        assertEquals(Arrays.asList("orderFailed", "orderSuccess", "paymentFailed", "paymentSuccess"), plan.getKeyList());
+        assertEquals(2, plan.getRuleCount());
+    }
+
+    @Test
+    void evaluate_errorAfterSuccessSameTimestamp_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setClock(Clock.fixed(Instant.ofEpochMilli(1000000L), ZoneOffset.UTC));  // one tick
+        HealthProcessStatisticRule rule = new HealthProcessStatisticRule(HealthProcessStatisticRule.Type.ERROR_AFTER_SUCCESS, "DOWN");
+        rule.setError("orderFailed");
+        rule.setSuccess("orderSuccess");
+        HealthProcessStatisticRulePlan plan = HealthProcessStatisticRulePlan.compile(Collections.singletonList(rule),
+                healthProcessStatisticData.getRateWindows());
+        healthProcessStatisticData.incrementCounter("orderFailed");
+
+        // when
+        Status result1 = plan.evaluate(healthProcessStatisticData);
+        healthProcessStatisticData.incrementCounter("orderSuccess");
+        Status result2 = plan.evaluate(healthProcessStatisticData);
+
+        // then
+        assertEquals(Status.DOWN, result1);
+        assertNull(result2);
+    }
+
+    @Test
+    void evaluate_severity_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setRateWindows(Collections.singletonList(Duration.ofMinutes(1)));
+        HealthProcessStatisticRule counterRule = new HealthProcessStatisticRule(HealthProcessStatisticRule.Type.COUNTER, "warning");
+        counterRule.setKey("error");
+        HealthProcessStatisticRule rateRule = new HealthProcessStatisticRule(HealthProcessStatisticRule.Type.RATE, "DOWN");
+        rateRule.setKey("error");
+        rateRule.setWindow(Duration.ofMinutes(1));
+        rateRule.setThreshold(2L);
+        HealthProcessStatisticRulePlan plan = HealthProcessStatisticRulePlan.compile(Arrays.asList(counterRule, rateRule),
+                healthProcessStatisticData.getRateWindows());
+
+        // when
+        healthProcessStatisticData.incrementCounter("error");
+        Status result1 = plan.evaluate(healthProcessStatisticData);
+        healthProcessStatisticData.incrementCounter("error");
+        healthProcessStatisticData.incrementCounter("error");
+        Status result2 = plan.evaluate(healthProcessStatisticData);
+
+        // then
+        assertEquals(HealthProcessStatisticStatusDecider.HEALTH_STATUS_WARNING, result1);
+        assertEquals(Status.DOWN, result2);
+        assertEquals(Collections.singletonList("error"), plan.getKeyList());
+    }
+
+    @Test
+    void compile_turkishLocale_test() {
+
+        // given
+        Locale defaultLocale = Locale.getDefault();
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        HealthProcessStatisticRule rule = new HealthProcessStatisticRule(HealthProcessStatisticRule.Type.COUNTER, "out_of_service");
+        rule.setKey("error");
+        healthProcessStatisticData.incrementCounter("error");
+
+        // when
+        Status result;
+        try {
+            Locale.setDefault(new Locale("tr", "TR"));
+            HealthProcessStatisticRulePlan plan = HealthProcessStatisticRulePlan.compile(Collections.singletonList(rule),
+                    healthProcessStatisticData.getRateWindows());
+            result = plan.evaluate(healthProcessStatisticData);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+
+        // then
+        assertEquals(Status.OUT_OF_SERVICE, result);
+    }
+
+    @Test
+    void evaluate_stale_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setClock(Clock.fixed(Instant.ofEpochMilli(1700000000000L), ZoneId.systemDefault()));
+        healthProcessStatisticData.reset();
+        HealthProcessStatisticRule rule = new HealthProcessStatisticRule(HealthProcessStatisticRule.Type.STALE, "WARNING");
+        rule.setKey("myFunctionSuccess");
+        rule.setMaxAge(Duration.ofMinutes(10));
+        HealthProcessStatisticRulePlan plan = HealthProcessStatisticRulePlan.compile(Collections.singletonList(rule),
+                healthProcessStatisticData.getRateWindows());
+
+        // when
+        Status result1 = plan.evaluate(healthProcessStatisticData);
+        healthProcessStatisticData.setClock(Clock.fixed(Instant.ofEpochMilli(1700000600001L), ZoneId.systemDefault()));
+        Status result2 = plan.evaluate(healthProcessStatisticData);
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+        Status result3 = plan.evaluate(healthProcessStatisticData);
+
+        // then
+        assertNull(result1);
+        assertEquals(HealthProcessStatisticStatusDecider.HEALTH_STATUS_WARNING, result2);
+        assertNull(result3);
+    }
+
+    @Test
+    void compile_invalid_test() {
+
+        // given
+        HealthProcessStatisticRule rule = new HealthProcessStatisticRule(HealthProcessStatisticRule.Type.RATE, "DOWN");
+        rule.setKey("error");
+        rule.setWindow(Duration.ofMinutes(5));
+
+        // when + then
+        assertThrows(IllegalArgumentException.class, () -> HealthProcessStatisticRulePlan.compile(
+                Collections.singletonList(rule), Collections.singletonList(Duration.ofMinutes(1))));
+    }
+
+    @Test
+    void setEnvironment_bindRules_test() {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        healthProcessStatisticData.setClock(Clock.fixed(Instant.ofEpochMilli(1700000000000L), ZoneId.systemDefault()));
+        HealthProcessStatisticStatusDecider decider = new HealthProcessStatisticStatusDecider(healthProcessStatisticData);
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("management.health.processStatistic.rules[0].type", "error-after-success")
+                .withProperty("management.health.processStatistic.rules[0].error", "myFunctionFailed")
+                .withProperty("management.health.processStatistic.rules[0].success", "myFunctionSuccess")
+                .withProperty("management.health.processStatistic.rules[1].type", "counter")
+                .withProperty("management.health.processStatistic.rules[1].key", "myFunctionFailed")
+                .withProperty("management.health.processStatistic.rules[1].status", "WARNING");
+
+        // when
+        decider.setEnvironment(environment);
+        healthProcessStatisticData.incrementCounter("myFunctionFailed");
+        Status result1 = decider.checkStatus();
+        healthProcessStatisticData.setClock(Clock.fixed(Instant.ofEpochMilli(1700000001000L), ZoneId.systemDefault()));
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+        Status result2 = decider.checkStatus();
+
+        // then
+        assertEquals(2, decider.getRulePlan().getRuleCount());
+        assertEquals(Status.DOWN, result1);
+        assertEquals(HealthProcessStatisticStatusDecider.HEALTH_STATUS_WARNING, result2);
+    }
+}
@@ -0,0 +1,159 @@
+package com.iksgmbh.actuator.health.procstat.stream;
+
+import com.iksgmbh.actuator.health.procstat.model.HealthProcessStatisticData;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HealthProcessStatisticEventStreamTest {
+
+    @Test
+    void produce_fullThenDelta_test() throws InterruptedException {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        HealthProcessStatisticEventStream stream = createStream(healthProcessStatisticData, 10);
+        RecordingEmitter emitter = new RecordingEmitter(null);
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+        stream.subscribe(emitter);
+
+        // when
+        stream.produce();
+        String fullFrame = emitter.frames.poll(5L, TimeUnit.SECONDS);
+        awaitSent(stream, 0);
+        healthProcessStatisticData.incrementCounter("otherFunctionSuccess");
+        stream.produce();
+        String deltaFrame = emitter.frames.poll(5L, TimeUnit.SECONDS);
+        awaitSent(stream, 0);
+        stream.produce();
+        String noFrame = emitter.frames.poll(200L, TimeUnit.MILLISECONDS);
+
+        // then
+        assertTrue(fullFrame.contains("event:full"));
+        assertTrue(fullFrame.contains("\"myFunctionSuccessCounter\":1"));
+        assertTrue(fullFrame.contains("\"status\":\"UP\""));
+        assertTrue(deltaFrame.contains("event:delta"));
+        assertTrue(deltaFrame.contains("\"otherFunctionSuccessCounter\":1"));
+        assertFalse(deltaFrame.contains("myFunctionSuccessCounter"));
+        assertFalse(deltaFrame.contains("status"));
+        assertNull(noFrame);
+        stream.close();
+    }
+
+    @Test
+    void produce_blockedSubscribers_test() throws InterruptedException {
+
+        // given
+        HealthProcessStatisticData healthProcessStatisticData = new HealthProcessStatisticData();
+        HealthProcessStatisticEventStream stream = createStream(healthProcessStatisticData, 10);
+        CountDownLatch blockedReleased = new CountDownLatch(1);
+        RecordingEmitter[] blockedEmitters = new RecordingEmitter[5];
+        for (int i = 0; i < blockedEmitters.length; i++) {
+            blockedEmitters[i] = new RecordingEmitter(blockedReleased);
+            stream.subscribe(blockedEmitters[i]);
+        }
+        RecordingEmitter healthyEmitter = new RecordingEmitter(null);
+        stream.subscribe(healthyEmitter);
+
+        // when
+        stream.produce();
+        String fullFrame = healthyEmitter.frames.poll(5L, TimeUnit.SECONDS);
+        awaitSent(stream, blockedEmitters.length);  // blocked subscribers still busy
+        healthProcessStatisticData.incrementCounter("myFunctionSuccess");
+        stream.produce();
+        String deltaFrame = healthyEmitter.frames.poll(5L, TimeUnit.SECONDS);
+        int subscriberCount = stream.getSubscriberCount();
+        blockedReleased.countDown();
+
+        // then
+        assertTrue(fullFrame.contains("event:full"));
+        assertTrue(deltaFrame.contains("event:delta"));
+        assertTrue(deltaFrame.contains("\"myFunctionSuccessCounter\":1"));
+        assertEquals(1, subscriberCount);
+        for (RecordingEmitter blockedEmitter : blockedEmitters) {
+            assertTrue(blockedEmitter.completed.await(5L, TimeUnit.SECONDS));
+            assertEquals(1, blockedEmitter.frames.size());
+        }
+        stream.close();
+    }
+
+    @Test
+    void subscribe_maxSubscribers_test() {
+
+        // given
+        HealthProcessStatisticEventStream stream = createStream(new HealthProcessStatisticData(), 1);
+
+        // when
+        SseEmitter first = stream.subscribe();
+        SseEmitter second = stream.subscribe();
+
+        // then
+        assertNotNull(first);
+        assertNull(second);
+        assertEquals(1, stream.getSubscriberCount());
+        stream.close();
+        assertEquals(0, stream.getSubscriberCount());
+    }
+
+    private static void awaitSent(final HealthProcessStatisticEventStream stream, final int sendingCount)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+        while (stream.getSendingCount() > sendingCount && System.nanoTime() < deadline) {
+            Thread.sleep(1L);
+        }
+    }
+
+    /**
+     * Stream with an interval of one hour, so frames are only produced by the test.
+     */
+    private static HealthProcessStatisticEventStream createStream(final HealthProcessStatisticData healthProcessStatisticData,
+            final int subscriberMaxSize) {
+        return new HealthProcessStatisticEventStream(healthProcessStatisticData, () -> Status.UP,
+                Duration.ofHours(1), Duration.ZERO, subscriberMaxSize);
+    }
+
+    /**
+     * Emitter recording frames as text, the first send waits for the latch if given.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<String> frames = new LinkedBlockingQueue<>();
+        private final CountDownLatch released;
+        private final CountDownLatch sent = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        private RecordingEmitter(final CountDownLatch released) {
+            this.released = released;
+        }
+
+        @Override
+        public void send(final SseEventBuilder builder) throws IOException {
+            StringBuilder frame = new StringBuilder();
+            builder.build().forEach(data -> frame.append(data.getData()));
+            frames.add(frame.toString());
+            try {
+                if (released != null && sent.getCount() > 0L) {
+                    released.await(5L, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.countDown();
+        }
+
+        @Override
+        public synchronized void complete() {
+            super.complete();
+            completed.countDown();
+        }
+    }
+}